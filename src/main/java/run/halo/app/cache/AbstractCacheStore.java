@@ -1,13 +1,13 @@
 package run.halo.app.cache;
 
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import run.halo.app.utils.DateUtils;
 
-import java.util.Date;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,6 +21,15 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public abstract class AbstractCacheStore<K, V> implements CacheStore<K, V> {
 
+    /**
+     * Metrics of this cache store. 缓存的监控指标
+     */
+    final CacheMetrics metrics = new CacheMetrics(Metrics.globalRegistry, getClass().getSimpleName());
+
+    protected AbstractCacheStore() {
+        metrics.entries(this, AbstractCacheStore::entryCount);
+    }
+
     /**
      * Get cache wrapper by key.
      *
@@ -48,17 +57,95 @@ public abstract class AbstractCacheStore<K, V> implements CacheStore<K, V> {
      */
     abstract Boolean putInternalIfAbsent(@NonNull K key, @NonNull CacheWrapper<V> cacheWrapper);
 
+    /**
+     * Deletes the key.
+     *
+     * @param key key must not be null
+     */
+    abstract void deleteInternal(@NonNull K key);
+
+    /**
+     * Deletes keys in a batch, stores should override it with their native batch operation.
+     *
+     * @param keys keys must not be null
+     */
+    void deleteAllInternal(@NonNull Collection<K> keys) {
+        keys.forEach(this::deleteInternal);
+    }
+
+    /**
+     * Gets the count of entries for metrics.
+     *
+     * @return entry count, or NaN if the store can't count it cheaply
+     */
+    double entryCount() {
+        return Double.NaN;
+    }
+
+    /**
+     * Called after the entry is deleted, evicted or expired.
+     *
+     * @param key key must not be null
+     */
+    void onRemoved(@NonNull K key) {
+    }
+
+    /**
+     * Records the entry evicted by the cache store for its capacity.
+     *
+     * @param key key must not be null
+     */
+    void evicted(@NonNull K key) {
+        metrics.eviction(key);
+        onRemoved(key);
+    }
+
+    /**
+     * Records the entry deleted by the cache store for its expiration.
+     *
+     * @param key key must not be null
+     */
+    void expired(@NonNull K key) {
+        metrics.expiration(key);
+        onRemoved(key);
+    }
+
+    /**
+     * Gets cache wrappers by keys in a batch, stores should override it with their native batch operation.
+     *
+     * @param keys keys must not be null
+     * @return cache wrappers of the present keys
+     */
+    @NonNull
+    Map<K, CacheWrapper<V>> getAllInternal(@NonNull Collection<K> keys) {
+        Map<K, CacheWrapper<V>> cacheWrappers = new LinkedHashMap<>(keys.size());
+        keys.forEach(key -> getInternal(key).ifPresent(cacheWrapper -> cacheWrappers.put(key, cacheWrapper)));
+        return cacheWrappers;
+    }
+
+    /**
+     * Puts cache wrappers in a batch, stores should override it with their native batch operation.
+     *
+     * @param cacheWrappers cache wrappers must not be null
+     */
+    void putAllInternal(@NonNull Map<K, CacheWrapper<V>> cacheWrappers) {
+        cacheWrappers.forEach(this::putInternal);
+    }
+
     @Override
     public Optional<V> get(K key) {
         Assert.notNull(key, "Cache key must not be blank");
 
+        String namespace = CacheMetrics.namespaceOf(key);
+
         // lambda表达式传入，直接使用
         // optional的流处理
-        return getInternal(key).map(cacheWrapper -> {
+        Optional<V> valueOptional = metrics.record("get", namespace, () -> getInternal(key)).map(cacheWrapper -> {
             // Check expiration  比较缓存的到期时间是否在当前时间之前
             if (cacheWrapper.getExpireAt() != null && cacheWrapper.getExpireAt().before(run.halo.app.utils.DateUtils.now())) {
                 // Expired then delete it
                 log.warn("Cache key: [{}] has been expired", key);
+                metrics.expiration(key);
 
                 // Delete the key 如果已经过期，删除
                 delete(key);
@@ -69,22 +156,115 @@ public abstract class AbstractCacheStore<K, V> implements CacheStore<K, V> {
 
             return cacheWrapper.getData();
         });
+
+        if (valueOptional.isPresent()) {
+            metrics.hit(key);
+        } else {
+            metrics.miss(key);
+        }
+
+        return valueOptional;
     }
 
     @Override
     public void put(K key, V value, long timeout, TimeUnit timeUnit) {
-        putInternal(key, buildCacheWrapper(value, timeout, timeUnit));
+        CacheWrapper<V> cacheWrapper = buildCacheWrapper(value, timeout, timeUnit);
+        metrics.recordVoid("put", CacheMetrics.namespaceOf(key), () -> putInternal(key, cacheWrapper));
+        metrics.put(key);
     }
 
     @Override
     public Boolean putIfAbsent(K key, V value, long timeout, TimeUnit timeUnit) {
+        CacheWrapper<V> cacheWrapper = buildCacheWrapper(value, timeout, timeUnit);
         // 直接调用抽象方法，说明有这么个事儿；但是不进行具体实现。
-        return putInternalIfAbsent(key, buildCacheWrapper(value, timeout, timeUnit));
+        Boolean result = metrics.record("putIfAbsent", CacheMetrics.namespaceOf(key), () -> putInternalIfAbsent(key, cacheWrapper));
+        if (Boolean.TRUE.equals(result)) {
+            metrics.put(key);
+        }
+        return result;
     }
 
     @Override
     public void put(K key, V value) {
-        putInternal(key, buildCacheWrapper(value, 0, null));
+        CacheWrapper<V> cacheWrapper = buildCacheWrapper(value, 0, null);
+        metrics.recordVoid("put", CacheMetrics.namespaceOf(key), () -> putInternal(key, cacheWrapper));
+        metrics.put(key);
+    }
+
+    @Override
+    public void delete(K key) {
+        Assert.notNull(key, "Cache key must not be blank");
+
+        metrics.recordVoid("delete", CacheMetrics.namespaceOf(key), () -> deleteInternal(key));
+        onRemoved(key);
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        Assert.notNull(keys, "Cache keys must not be null");
+
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Date now = DateUtils.now();
+        List<K> expiredKeys = new LinkedList<>();
+        Map<K, V> values = new LinkedHashMap<>(keys.size());
+
+        metrics.record("getAll", CacheMetrics.NAMESPACE_BATCH, () -> getAllInternal(keys)).forEach((key, cacheWrapper) -> {
+            // Check expiration
+            if (cacheWrapper.getExpireAt() != null && cacheWrapper.getExpireAt().before(now)) {
+                log.warn("Cache key: [{}] has been expired", key);
+                metrics.expiration(key);
+                expiredKeys.add(key);
+                return;
+            }
+            values.put(key, cacheWrapper.getData());
+        });
+
+        keys.forEach(key -> {
+            if (values.containsKey(key)) {
+                metrics.hit(key);
+            } else {
+                metrics.miss(key);
+            }
+        });
+
+        if (!expiredKeys.isEmpty()) {
+            deleteAll(expiredKeys);
+        }
+
+        return values;
+    }
+
+    @Override
+    public void putAll(Map<K, V> values, long timeout, TimeUnit timeUnit) {
+        Assert.notNull(values, "Cache values must not be null");
+
+        if (values.isEmpty()) {
+            return;
+        }
+
+        Map<K, CacheWrapper<V>> cacheWrappers = new LinkedHashMap<>(values.size());
+        values.forEach((key, value) -> {
+            Assert.notNull(key, "Cache key must not be null");
+            cacheWrappers.put(key, buildCacheWrapper(value, timeout, timeUnit));
+        });
+
+        metrics.recordVoid("putAll", CacheMetrics.NAMESPACE_BATCH, () -> putAllInternal(cacheWrappers));
+        cacheWrappers.keySet().forEach(metrics::put);
+    }
+
+    @Override
+    public void deleteAll(Collection<K> keys) {
+        Assert.notNull(keys, "Cache keys must not be null");
+
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        metrics.recordVoid("deleteAll", CacheMetrics.NAMESPACE_BATCH, () -> deleteAllInternal(keys));
+        keys.forEach(this::onRemoved);
     }
 
     /**
@@ -3,13 +3,23 @@ package run.halo.app.cache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import run.halo.app.exception.ServiceException;
 import run.halo.app.utils.JsonUtils;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * String cache store.
@@ -19,6 +29,38 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public abstract class AbstractStringCacheStore extends AbstractCacheStore<String, String> {
 
+    /**
+     * Max entry count of the regions which are not registered explicitly.
+     */
+    private final static int DEFAULT_REGION_MAX_ENTRIES = 10000;
+
+    /**
+     * Max key count of the shared values, which bounds the values of the keys removed without notice, such
+     * as the keys expired in redis.
+     */
+    private final static int MAX_SHARED_KEYS = 10000;
+
+    /**
+     * Deserialized values keyed by cache key and then by value type.
+     * 已经反序列化的对象，字符串缓存仍然是数据源，通过比较原始的json来判断是否失效
+     */
+    private final Map<String, Map<Class<?>, SharedValue>> sharedValues = new ConcurrentHashMap<>();
+
+    /**
+     * Loads in progress keyed by cache key. 正在加载中的key，并发的缓存未命中只会加载一次
+     */
+    private final Map<String, CompletableFuture<Object>> loadings = new ConcurrentHashMap<>();
+
+    /**
+     * Registered regions keyed by name.
+     */
+    private final Map<String, CacheRegion> regions = new ConcurrentHashMap<>();
+
+    /**
+     * Generations of the regions, stores shared by processes should keep them in the store instead.
+     */
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
     protected Optional<CacheWrapper<String>> jsonToCacheWrapper(String json) {
         Assert.hasText(json, "json value must not be null");
         CacheWrapper<String> cacheWrapper = null;
@@ -28,6 +70,7 @@ public abstract class AbstractStringCacheStore extends AbstractCacheStore<String
         } catch (IOException e) {
             e.printStackTrace();
             log.debug("Failed to convert json [{}] to wrapper value bytes", json, e);
+            metrics.deserializationFailure(null);
         }
         //包装成一个Optional类
         return Optional.ofNullable(cacheWrapper);
@@ -49,6 +92,52 @@ public abstract class AbstractStringCacheStore extends AbstractCacheStore<String
         }
     }
 
+    /**
+     * Puts values as json in a batch.
+     *
+     * @param values   values must not be null
+     * @param timeout  the key expiration must not be less than 1
+     * @param timeUnit timeout unit must not be null
+     */
+    public void putAllAny(@NonNull Map<String, ?> values, long timeout, @NonNull TimeUnit timeUnit) {
+        Assert.notNull(values, "Values must not be null");
+
+        Map<String, String> jsonValues = new LinkedHashMap<>(values.size());
+        values.forEach((key, value) -> {
+            try {
+                jsonValues.put(key, JsonUtils.objectToJson(value));
+            } catch (JsonProcessingException e) {
+                throw new ServiceException("Failed to convert " + value + " to json", e);
+            }
+        });
+
+        putAll(jsonValues, timeout, timeUnit);
+    }
+
+    /**
+     * Gets json values in a batch and converts them to the given type.
+     *
+     * @param keys cache keys must not be null
+     * @param type value type must not be null
+     * @param <T>  value type
+     * @return values of the present keys
+     */
+    @NonNull
+    public <T> Map<String, T> getAllAny(@NonNull Collection<String> keys, @NonNull Class<T> type) {
+        Assert.notNull(type, "Type must not be null");
+
+        Map<String, T> values = new LinkedHashMap<>(keys.size());
+        getAll(keys).forEach((key, value) -> {
+            try {
+                values.put(key, JsonUtils.jsonToObject(value, type));
+            } catch (IOException e) {
+                log.error("Failed to convert json to type: " + type.getName(), e);
+                metrics.deserializationFailure(key);
+            }
+        });
+        return values;
+    }
+
     public <T> Optional<T> getAny(String key, Class<T> type) {
         Assert.notNull(type, "Type must not be null");
 
@@ -58,8 +147,313 @@ public abstract class AbstractStringCacheStore extends AbstractCacheStore<String
                 return JsonUtils.jsonToObject(value, type);
             } catch (IOException e) {
                 log.error("Failed to convert json to type: " + type.getName(), e);
+                metrics.deserializationFailure(key);
                 return null;
             }
         });
     }
+
+    /**
+     * Gets a deserialized value which is shared by all callers.
+     * <p>
+     * The json is only parsed again if the backing string value has been changed, deleted or expired,
+     * so the returned value must be treated as immutable.
+     *
+     * @param key  cache key must not be blank
+     * @param type value type must not be null
+     * @param <T>  value type
+     * @return an optional shared value
+     */
+    @NonNull
+    public <T> Optional<T> getAnyShared(@NonNull String key, @NonNull Class<T> type) {
+        Assert.notNull(type, "Type must not be null");
+
+        Optional<String> valueOptional = get(key);
+
+        if (!valueOptional.isPresent()) {
+            // The backing value is gone, so drop the deserialized ones as well
+            sharedValues.remove(key);
+            return Optional.empty();
+        }
+
+        String json = valueOptional.get();
+
+        if (sharedValues.size() >= MAX_SHARED_KEYS && !sharedValues.containsKey(key)) {
+            // Drop any other key, it is parsed again on the next read
+            Iterator<String> iterator = sharedValues.keySet().iterator();
+            if (iterator.hasNext()) {
+                sharedValues.remove(iterator.next());
+            }
+        }
+
+        Map<Class<?>, SharedValue> typedValues = sharedValues.computeIfAbsent(key, k -> new ConcurrentHashMap<>(4));
+
+        SharedValue sharedValue = typedValues.get(type);
+        if (sharedValue != null && json.equals(sharedValue.json)) {
+            return Optional.of(type.cast(sharedValue.value));
+        }
+
+        try {
+            T value = JsonUtils.jsonToObject(json, type);
+            typedValues.put(type, new SharedValue(json, value));
+            return Optional.of(value);
+        } catch (IOException e) {
+            log.error("Failed to convert json to type: " + type.getName(), e);
+            metrics.deserializationFailure(key);
+            typedValues.remove(type);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Gets a shared value, or loads and caches it if absent.
+     * <p>
+     * Concurrent misses of the same key on this node are collapsed into one load, the other callers wait for
+     * the result of it. The returned value is shared, so it must be treated as immutable.
+     *
+     * @param key    cache key must not be blank
+     * @param type   value type must not be null
+     * @param loader value loader must not be null, and must not return null
+     * @param <T>    value type
+     * @return cached or loaded value
+     */
+    @NonNull
+    public <T> T get(@NonNull String key, @NonNull Class<T> type, @NonNull Supplier<? extends T> loader) {
+        return get(key, type, loader, 0, null);
+    }
+
+    /**
+     * Gets a shared value, or loads and caches it with the given timeout if absent.
+     *
+     * @param key      cache key must not be blank
+     * @param type     value type must not be null
+     * @param loader   value loader must not be null, and must not return null
+     * @param timeout  timeout of the loaded value, the value never expires if it is not greater than 0
+     * @param timeUnit timeout unit
+     * @param <T>      value type
+     * @return cached or loaded value
+     */
+    @NonNull
+    public <T> T get(@NonNull String key, @NonNull Class<T> type, @NonNull Supplier<? extends T> loader,
+                     long timeout, @Nullable TimeUnit timeUnit) {
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(loader, "Loader must not be null");
+
+        return getOrLoad(key, type, () -> getAnyShared(key, type), () -> load(key, loader, timeout, timeUnit));
+    }
+
+    /**
+     * Gets a string value, or loads and caches it with the given timeout if absent.
+     * <p>
+     * Concurrent misses are collapsed like {@link #get(String, Class, Supplier)}, but the value is stored as
+     * it is instead of as json, and no deserialized copy is kept, which suits large values such as rendered
+     * documents.
+     *
+     * @param key      cache key must not be blank
+     * @param loader   value loader must not be null, and must not return null
+     * @param timeout  timeout of the loaded value, the value never expires if it is not greater than 0
+     * @param timeUnit timeout unit
+     * @return cached or loaded value
+     */
+    @NonNull
+    public String getString(@NonNull String key, @NonNull Supplier<String> loader, long timeout, @Nullable TimeUnit timeUnit) {
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(loader, "Loader must not be null");
+
+        return getOrLoad(key, String.class, () -> get(key), () -> {
+            String value = loader.get();
+            Assert.notNull(value, "Loaded value of key: " + key + " must not be null");
+
+            if (timeout > 0 && timeUnit != null) {
+                put(key, value, timeout, timeUnit);
+            } else {
+                put(key, value);
+            }
+            log.debug("Loaded cache: [{}]", key);
+            return value;
+        });
+    }
+
+    /**
+     * Reads the value, or loads it if absent with the concurrent misses on this node collapsed.
+     *
+     * @param key    cache key must not be blank
+     * @param type   value type must not be null
+     * @param reader cached value reader must not be null
+     * @param loader value loader caching the loaded value must not be null
+     * @param <T>    value type
+     * @return cached or loaded value
+     */
+    @NonNull
+    private <T> T getOrLoad(@NonNull String key,
+                            @NonNull Class<T> type,
+                            @NonNull Supplier<Optional<T>> reader,
+                            @NonNull Supplier<T> loader) {
+        Optional<T> valueOptional = reader.get();
+        if (valueOptional.isPresent()) {
+            return valueOptional.get();
+        }
+
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> presentLoading = loadings.putIfAbsent(key, loading);
+
+        if (presentLoading != null) {
+            // Wait for the load in progress
+            Object value = waitForLoading(presentLoading);
+            if (type.isInstance(value)) {
+                return type.cast(value);
+            }
+            // Loaded as another type, load it by self
+            return loader.get();
+        }
+
+        try {
+            // Check again, the previous load may have just completed
+            valueOptional = reader.get();
+            T value = valueOptional.isPresent() ? valueOptional.get() : loader.get();
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadings.remove(key, loading);
+        }
+    }
+
+    @NonNull
+    private <T> T load(@NonNull String key, @NonNull Supplier<? extends T> loader, long timeout, @Nullable TimeUnit timeUnit) {
+        T value = loader.get();
+        Assert.notNull(value, "Loaded value of key: " + key + " must not be null");
+
+        // Cache the value
+        if (timeout > 0 && timeUnit != null) {
+            putAny(key, value, timeout, timeUnit);
+        } else {
+            putAny(key, value);
+        }
+        log.debug("Loaded cache: [{}]", key);
+        return value;
+    }
+
+    private Object waitForLoading(@NonNull CompletableFuture<Object> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Registers a region, the region registered before with the same name is replaced.
+     *
+     * @param name       region name must not be blank
+     * @param timeout    default timeout of the entries, the entries never expire if it is 0
+     * @param timeUnit   timeout unit must not be null
+     * @param maxEntries max entry count put by this node, must be greater than 0
+     * @return registered region
+     */
+    @NonNull
+    public CacheRegion registerRegion(@NonNull String name, long timeout, @NonNull TimeUnit timeUnit, int maxEntries) {
+        Assert.notNull(timeUnit, "Time unit must not be null");
+
+        CacheRegion region = new CacheRegion(name, timeUnit.toMillis(timeout), maxEntries, this);
+        regions.put(name, region);
+        return region;
+    }
+
+    /**
+     * Gets the region, a region without expiration is registered if it is absent.
+     *
+     * @param name region name must not be blank
+     * @return cache region
+     */
+    @NonNull
+    public CacheRegion region(@NonNull String name) {
+        Assert.hasText(name, "Region name must not be blank");
+
+        return regions.computeIfAbsent(name, n -> new CacheRegion(n, 0, DEFAULT_REGION_MAX_ENTRIES, this));
+    }
+
+    /**
+     * Clears all entries of the region at once.
+     *
+     * @param name region name must not be blank
+     */
+    public void clearRegion(@NonNull String name) {
+        region(name).clear();
+    }
+
+    /**
+     * Gets the current generation of the region.
+     *
+     * @param region region name must not be blank
+     * @return current generation
+     */
+    long getGeneration(@NonNull String region) {
+        AtomicLong generation = generations.get(region);
+        return generation == null ? 0 : generation.get();
+    }
+
+    /**
+     * Increments the generation of the region.
+     *
+     * @param region region name must not be blank
+     * @return incremented generation
+     */
+    long incrementGeneration(@NonNull String region) {
+        return generations.computeIfAbsent(region, r -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Deletes the entries which are unreachable or out of the region budget.
+     *
+     * @param keys cache keys must not be null
+     */
+    void release(@NonNull Collection<String> keys) {
+        // The shared values are dropped as well
+        deleteAll(keys);
+    }
+
+    /**
+     * Releases the threads and connections held by the cache store, called on shutdown by the cache store
+     * itself or the one wrapping it.
+     */
+    void close() {
+    }
+
+    /**
+     * Gets the count of the keys holding shared values.
+     *
+     * @return shared key count
+     */
+    int sharedKeyCount() {
+        return sharedValues.size();
+    }
+
+    @Override
+    void onRemoved(@NonNull String key) {
+        sharedValues.remove(key);
+    }
+
+    /**
+     * Deserialized value with the json it was parsed from.
+     */
+    private static class SharedValue {
+
+        private final String json;
+
+        private final Object value;
+
+        private SharedValue(String json, Object value) {
+            this.json = json;
+            this.value = value;
+        }
+    }
 }
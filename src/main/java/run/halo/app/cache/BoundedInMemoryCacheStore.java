@@ -0,0 +1,433 @@
+package run.halo.app.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory cache store.
+ * <p>
+ * Entries are kept in a segmented LRU: new entries go to the probation segment and are promoted to the
+ * protected segment when they are read again, so keys used only once are evicted before hot keys.
+ * 有容量限制的内存缓存，按照条目数量或者字节数淘汰
+ */
+@Slf4j
+public class BoundedInMemoryCacheStore extends AbstractStringCacheStore {
+
+    /**
+     * Percentage of the capacity reserved for the protected segment.
+     */
+    private final static int PROTECTED_PERCENTAGE = 80;
+
+    /**
+     * Estimated bytes of a cache entry besides the key and the value.
+     */
+    private final static long ENTRY_OVERHEAD = 96;
+
+    /**
+     * Entries seen once. 只被访问过一次的条目
+     */
+    private final LinkedHashMap<String, CacheWrapper<String>> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Entries seen at least twice. 被多次访问的热点条目
+     */
+    private final LinkedHashMap<String, CacheWrapper<String>> protect = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Lock lock = new ReentrantLock();
+
+    private final long maxEntries;
+
+    private final long maxWeight;
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private final CacheExpiryIndex expiryIndex = new CacheExpiryIndex();
+
+    private final ScheduledFuture<?> cleaner;
+
+    private long weight;
+
+    private long protectedWeight;
+
+    @Nullable
+    private volatile CacheEvictionListener evictionListener;
+
+    /**
+     * Creates a bounded in-memory cache store.
+     *
+     * @param maxEntries max entry count, 0 means no limit of entry count
+     * @param maxWeight  max estimated bytes, 0 means no limit of bytes
+     */
+    public BoundedInMemoryCacheStore(long maxEntries, long maxWeight) {
+        Assert.isTrue(maxEntries >= 0, "Max entries must not be less than 0");
+        Assert.isTrue(maxWeight >= 0, "Max weight must not be less than 0");
+        Assert.isTrue(maxEntries > 0 || maxWeight > 0, "Max entries or max weight must be greater than 0");
+
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+
+        // Run a cache store cleaner on the shared cleaner thread
+        cleaner = CacheExpiryScheduler.schedule(new CacheExpiryCleaner());
+    }
+
+    /**
+     * Sets the listener notified on every eviction.
+     *
+     * @param evictionListener eviction listener, null to remove the listener
+     */
+    public void setEvictionListener(@Nullable CacheEvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Gets the count of entries evicted because of the size limit.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Gets the current entry count.
+     *
+     * @return entry count
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return probation.size() + protect.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    double entryCount() {
+        return size();
+    }
+
+    /**
+     * Gets the current estimated bytes of all entries.
+     *
+     * @return estimated bytes
+     */
+    public long weight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    Optional<CacheWrapper<String>> getInternal(String key) {
+        Assert.hasText(key, "Cache key must not be blank");
+
+        lock.lock();
+        try {
+            // Hit in the protected segment just refreshes the access order
+            CacheWrapper<String> cacheWrapper = protect.get(key);
+            if (cacheWrapper != null) {
+                return Optional.of(cacheWrapper);
+            }
+
+            cacheWrapper = probation.remove(key);
+            if (cacheWrapper == null) {
+                return Optional.empty();
+            }
+
+            // Second access, promote it to the protected segment
+            protect.put(key, cacheWrapper);
+            protectedWeight += weigh(key, cacheWrapper);
+            demoteProtected();
+
+            return Optional.of(cacheWrapper);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    void putInternal(String key, CacheWrapper<String> cacheWrapper) {
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
+
+        List<Map.Entry<String, CacheWrapper<String>>> evicted;
+
+        lock.lock();
+        try {
+            evicted = doPut(key, cacheWrapper);
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Put [{}] cache : [{}]", key, cacheWrapper);
+
+        notifyEvicted(evicted);
+    }
+
+    @Override
+    Boolean putInternalIfAbsent(String key, CacheWrapper<String> cacheWrapper) {
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
+
+        log.debug("Preparing to put key: [{}], value: [{}]", key, cacheWrapper);
+
+        List<Map.Entry<String, CacheWrapper<String>>> evicted;
+
+        lock.lock();
+        try {
+            CacheWrapper<String> present = protect.containsKey(key) ? protect.get(key) : probation.get(key);
+
+            if (present != null && !isExpired(present)) {
+                log.warn("Failed to put the cache, because the key: [{}] has been present already", key);
+                return false;
+            }
+
+            evicted = doPut(key, cacheWrapper);
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Put successfully");
+
+        notifyEvicted(evicted);
+        return true;
+    }
+
+    @Override
+    void deleteInternal(String key) {
+        Assert.hasText(key, "Cache key must not be blank");
+
+        lock.lock();
+        try {
+            remove(key);
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Removed key: [{}]", key);
+    }
+
+    @Override
+    void putAllInternal(Map<String, CacheWrapper<String>> cacheWrappers) {
+        Assert.notNull(cacheWrappers, "Cache wrappers must not be null");
+
+        List<Map.Entry<String, CacheWrapper<String>>> evicted = new LinkedList<>();
+
+        lock.lock();
+        try {
+            cacheWrappers.forEach((key, cacheWrapper) -> evicted.addAll(doPut(key, cacheWrapper)));
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Put caches: [{}]", cacheWrappers.keySet());
+
+        notifyEvicted(evicted);
+    }
+
+    @Override
+    void deleteAllInternal(Collection<String> keys) {
+        Assert.notNull(keys, "Cache keys must not be null");
+
+        lock.lock();
+        try {
+            keys.forEach(this::remove);
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Removed keys: [{}]", keys);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        cleaner.cancel(false);
+        expiryIndex.clear();
+
+        lock.lock();
+        try {
+            probation.clear();
+            protect.clear();
+            weight = 0;
+            protectedWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @NonNull
+    private List<Map.Entry<String, CacheWrapper<String>>> doPut(@NonNull String key, @NonNull CacheWrapper<String> cacheWrapper) {
+        boolean wasProtected = protect.containsKey(key);
+
+        remove(key);
+
+        long entryWeight = weigh(key, cacheWrapper);
+        if (wasProtected) {
+            // Updating a hot key keeps it hot
+            protect.put(key, cacheWrapper);
+            protectedWeight += entryWeight;
+        } else {
+            probation.put(key, cacheWrapper);
+        }
+        weight += entryWeight;
+
+        if (cacheWrapper.getExpireAt() != null) {
+            expiryIndex.schedule(key, cacheWrapper.getExpireAt().getTime());
+        }
+
+        demoteProtected();
+
+        return evict();
+    }
+
+    private void remove(@NonNull String key) {
+        expiryIndex.cancel(key);
+
+        CacheWrapper<String> removed = protect.remove(key);
+        if (removed != null) {
+            long entryWeight = weigh(key, removed);
+            protectedWeight -= entryWeight;
+            weight -= entryWeight;
+            return;
+        }
+
+        removed = probation.remove(key);
+        if (removed != null) {
+            weight -= weigh(key, removed);
+        }
+    }
+
+    /**
+     * Moves the least recently used protected entries back to the probation segment.
+     */
+    private void demoteProtected() {
+        Iterator<Map.Entry<String, CacheWrapper<String>>> iterator = protect.entrySet().iterator();
+        while (iterator.hasNext() && isProtectedOverflow()) {
+            Map.Entry<String, CacheWrapper<String>> eldest = iterator.next();
+            iterator.remove();
+            protectedWeight -= weigh(eldest.getKey(), eldest.getValue());
+            probation.put(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the store fits the limits.
+     *
+     * @return evicted entries
+     */
+    @NonNull
+    private List<Map.Entry<String, CacheWrapper<String>>> evict() {
+        List<Map.Entry<String, CacheWrapper<String>>> evicted = Collections.emptyList();
+
+        while (isOverflow()) {
+            // Evict from probation first, fall back to protected if probation is empty
+            Map<String, CacheWrapper<String>> segment = probation.isEmpty() ? protect : probation;
+            Iterator<Map.Entry<String, CacheWrapper<String>>> iterator = segment.entrySet().iterator();
+            if (!iterator.hasNext()) {
+                break;
+            }
+
+            Map.Entry<String, CacheWrapper<String>> eldest = iterator.next();
+            iterator.remove();
+            expiryIndex.cancel(eldest.getKey());
+
+            long entryWeight = weigh(eldest.getKey(), eldest.getValue());
+            weight -= entryWeight;
+            if (segment == protect) {
+                protectedWeight -= entryWeight;
+            }
+
+            if (evicted.isEmpty()) {
+                evicted = new LinkedList<>();
+            }
+            evicted.add(new AbstractMap.SimpleImmutableEntry<>(eldest.getKey(), eldest.getValue()));
+        }
+
+        return evicted;
+    }
+
+    private void notifyEvicted(@NonNull List<Map.Entry<String, CacheWrapper<String>>> evicted) {
+        if (evicted.isEmpty()) {
+            return;
+        }
+
+        evictionCount.addAndGet(evicted.size());
+
+        CacheEvictionListener listener = evictionListener;
+
+        evicted.forEach(entry -> {
+            log.debug("Evicted the cache: [{}] for size limit", entry.getKey());
+            evicted(entry.getKey());
+            if (listener != null) {
+                listener.onEvicted(entry.getKey(), entry.getValue().getData());
+            }
+        });
+    }
+
+    private boolean isOverflow() {
+        return (maxEntries > 0 && probation.size() + protect.size() > maxEntries)
+            || (maxWeight > 0 && weight > maxWeight);
+    }
+
+    private boolean isProtectedOverflow() {
+        return (maxEntries > 0 && protect.size() > maxEntries * PROTECTED_PERCENTAGE / 100)
+            || (maxWeight > 0 && protectedWeight > maxWeight * PROTECTED_PERCENTAGE / 100);
+    }
+
+    private boolean isExpired(@NonNull CacheWrapper<String> cacheWrapper) {
+        return isExpired(cacheWrapper, System.currentTimeMillis());
+    }
+
+    private boolean isExpired(@NonNull CacheWrapper<String> cacheWrapper, long now) {
+        return cacheWrapper.getExpireAt() != null && cacheWrapper.getExpireAt().getTime() <= now;
+    }
+
+    private static long weigh(@NonNull String key, @NonNull CacheWrapper<String> cacheWrapper) {
+        // Strings take 2 bytes per char at most
+        return ENTRY_OVERHEAD + 2L * (key.length() + cacheWrapper.getData().length());
+    }
+
+    /**
+     * Cache cleaner.
+     */
+    private class CacheExpiryCleaner implements Runnable {
+
+        @Override
+        public void run() {
+            long now = System.currentTimeMillis();
+
+            List<String> expiredKeys = expiryIndex.pollExpired(now);
+            if (expiredKeys.isEmpty()) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                expiredKeys.forEach(key -> {
+                    // The key may have been put again, so check the expiration again
+                    CacheWrapper<String> cacheWrapper = protect.containsKey(key) ? protect.get(key) : probation.get(key);
+                    if (cacheWrapper != null && isExpired(cacheWrapper, now)) {
+                        remove(key);
+                        expired(key);
+                        log.debug("Deleted the cache: [{}] for expiration", key);
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
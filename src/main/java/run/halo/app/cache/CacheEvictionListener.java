@@ -0,0 +1,19 @@
+package run.halo.app.cache;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Listener notified when a cache entry is evicted because of the size limit of a cache store.
+ * 缓存因为容量限制被淘汰时的回调
+ */
+@FunctionalInterface
+public interface CacheEvictionListener {
+
+    /**
+     * Called after the entry has been evicted.
+     *
+     * @param key   evicted cache key must not be null
+     * @param value evicted cache value must not be null
+     */
+    void onEvicted(@NonNull String key, @NonNull String value);
+}
@@ -0,0 +1,145 @@
+package run.halo.app.cache;
+
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Expiry-ordered index of cache keys.
+ * <p>
+ * Keys are ordered by their expiration time, so finding the expired keys only touches the expired ones
+ * instead of walking every key of the cache store.
+ * 按照过期时间排序的索引，清理时只需要访问已经过期的key
+ */
+class CacheExpiryIndex {
+
+    /**
+     * Keys ordered by expiration time.
+     */
+    private final ConcurrentSkipListSet<Expiry> expiries = new ConcurrentSkipListSet<>();
+
+    /**
+     * Current expiration time of every indexed key.
+     */
+    private final ConcurrentHashMap<String, Long> deadlines = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes the key, the previous expiration time of the key will be replaced.
+     *
+     * @param key      cache key must not be blank
+     * @param expireAt expiration time in milliseconds
+     */
+    void schedule(@NonNull String key, long expireAt) {
+        Assert.hasText(key, "Cache key must not be blank");
+
+        deadlines.compute(key, (k, previous) -> {
+            if (previous != null) {
+                expiries.remove(new Expiry(previous, k));
+            }
+            expiries.add(new Expiry(expireAt, k));
+            return expireAt;
+        });
+    }
+
+    /**
+     * Removes the key from the index.
+     *
+     * @param key cache key must not be blank
+     */
+    void cancel(@NonNull String key) {
+        Assert.hasText(key, "Cache key must not be blank");
+
+        deadlines.computeIfPresent(key, (k, previous) -> {
+            expiries.remove(new Expiry(previous, k));
+            return null;
+        });
+    }
+
+    /**
+     * Removes and returns the keys expired before the given time.
+     * <p>
+     * The keys may be re-put concurrently, so the caller should check the expiration of the cache again.
+     *
+     * @param now current time in milliseconds
+     * @return expired keys
+     */
+    @NonNull
+    List<String> pollExpired(long now) {
+        List<String> expiredKeys = Collections.emptyList();
+
+        for (Expiry expiry : expiries) {
+            if (expiry.expireAt > now) {
+                // The rest are not expired yet
+                break;
+            }
+
+            deadlines.computeIfPresent(expiry.key, (k, expireAt) -> expireAt == expiry.expireAt ? null : expireAt);
+
+            if (expiries.remove(expiry)) {
+                if (expiredKeys.isEmpty()) {
+                    expiredKeys = new LinkedList<>();
+                }
+                expiredKeys.add(expiry.key);
+            }
+        }
+
+        return expiredKeys;
+    }
+
+    /**
+     * Gets the count of indexed keys.
+     *
+     * @return indexed key count
+     */
+    int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Clears the index.
+     */
+    void clear() {
+        deadlines.clear();
+        expiries.clear();
+    }
+
+    private static class Expiry implements Comparable<Expiry> {
+
+        private final long expireAt;
+
+        private final String key;
+
+        private Expiry(long expireAt, String key) {
+            this.expireAt = expireAt;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Expiry other) {
+            int result = Long.compare(expireAt, other.expireAt);
+            return result != 0 ? result : key.compareTo(other.key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Expiry)) {
+                return false;
+            }
+            Expiry other = (Expiry) o;
+            return expireAt == other.expireAt && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(expireAt) + key.hashCode();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package run.halo.app.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single thread scheduler shared by all cache stores to clean expired caches.
+ * 所有缓存共用一个清理线程，代替每个缓存各自的Timer
+ */
+@Slf4j
+final class CacheExpiryScheduler {
+
+    /**
+     * Cleaner schedule period. (ms)
+     */
+    final static long PERIOD = 1000;
+
+    private final static ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-expiry-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CacheExpiryScheduler() {
+    }
+
+    /**
+     * Schedules the cleaner periodically.
+     *
+     * @param cleaner cleaner must not be null
+     * @return scheduled future which should be cancelled when the cache store is destroyed
+     */
+    @NonNull
+    static ScheduledFuture<?> schedule(@NonNull Runnable cleaner) {
+        Assert.notNull(cleaner, "Cleaner must not be null");
+
+        return EXECUTOR.scheduleWithFixedDelay(() -> {
+            try {
+                cleaner.run();
+            } catch (Exception e) {
+                // Keep the following executions alive
+                log.error("Failed to clean expired caches", e);
+            }
+        }, PERIOD, PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executes the task once on the cleaner thread.
+     *
+     * @param task task must not be null
+     */
+    static void execute(@NonNull Runnable task) {
+        Assert.notNull(task, "Task must not be null");
+
+        EXECUTOR.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Failed to execute cache task", e);
+            }
+        });
+    }
+}
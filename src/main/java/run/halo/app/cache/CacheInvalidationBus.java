@@ -0,0 +1,32 @@
+package run.halo.app.cache;
+
+import org.springframework.lang.NonNull;
+
+import java.util.function.Consumer;
+
+/**
+ * Bus broadcasting invalidated cache keys between nodes.
+ * 多个节点之间广播失效的缓存key
+ */
+public interface CacheInvalidationBus extends AutoCloseable {
+
+    /**
+     * Publishes the invalidation message to all subscribers.
+     *
+     * @param message invalidation message must not be null
+     */
+    void publish(@NonNull String message);
+
+    /**
+     * Subscribes the invalidation messages.
+     *
+     * @param subscriber subscriber must not be null
+     */
+    void subscribe(@NonNull Consumer<String> subscriber);
+
+    /**
+     * Stops receiving the invalidation messages.
+     */
+    @Override
+    void close();
+}
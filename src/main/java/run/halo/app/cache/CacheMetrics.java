@@ -0,0 +1,164 @@
+package run.halo.app.cache;
+
+import io.micrometer.core.instrument.*;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Cache metrics tagged by store and key namespace.
+ * <p>
+ * Meters are registered in the global registry, which Spring Boot binds to the registry exposed by the
+ * actuator metrics endpoint.
+ * 缓存的监控指标，按照缓存实现和key的命名空间区分
+ */
+class CacheMetrics {
+
+    private final static String METRIC_PREFIX = "halo.cache.";
+
+    private final static String TAG_STORE = "store";
+
+    private final static String TAG_NAMESPACE = "namespace";
+
+    /**
+     * Namespace of batch operations which may contain keys of different namespaces.
+     */
+    final static String NAMESPACE_BATCH = "batch";
+
+    /**
+     * Namespace of the keys matching no known prefix.
+     */
+    private final static String NAMESPACE_OTHER = "other";
+
+    /**
+     * Known key prefixes and their namespaces, the namespace must be bounded to keep the tag cardinality low.
+     */
+    private final static String[][] NAMESPACE_PREFIXES = {
+        {"options", "options"},
+        {"themes", "themes"},
+        {"halo.admin.access.token.", "access_token"},
+        {"halo.admin.access_token.", "access_token"},
+        {"halo.admin.refresh.token.", "refresh_token"},
+        {"halo.admin.refresh_token.", "refresh_token"},
+        {"cache_lock_", "cache_lock"},
+    };
+
+    private final MeterRegistry registry;
+
+    private final String store;
+
+    private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+
+    CacheMetrics(@NonNull MeterRegistry registry, @NonNull String store) {
+        this.registry = registry;
+        this.store = store;
+    }
+
+    /**
+     * Resolves the namespace of the key.
+     *
+     * @param key cache key
+     * @return namespace of the key
+     */
+    @NonNull
+    static String namespaceOf(@Nullable Object key) {
+        if (key == null) {
+            return NAMESPACE_OTHER;
+        }
+        String keyString = key.toString();
+        String region = CacheRegion.regionOf(keyString);
+        if (region != null) {
+            // Regions are registered in code, so they are bounded as well
+            return region;
+        }
+        for (String[] namespacePrefix : NAMESPACE_PREFIXES) {
+            if (keyString.startsWith(namespacePrefix[0])) {
+                return namespacePrefix[1];
+            }
+        }
+        return NAMESPACE_OTHER;
+    }
+
+    void hit(@Nullable Object key) {
+        counter("gets", namespaceOf(key), "result", "hit").increment();
+    }
+
+    void miss(@Nullable Object key) {
+        counter("gets", namespaceOf(key), "result", "miss").increment();
+    }
+
+    void put(@Nullable Object key) {
+        counter("puts", namespaceOf(key)).increment();
+    }
+
+    void eviction(@Nullable Object key) {
+        counter("evictions", namespaceOf(key)).increment();
+    }
+
+    void expiration(@Nullable Object key) {
+        counter("expirations", namespaceOf(key)).increment();
+    }
+
+    void deserializationFailure(@Nullable Object key) {
+        counter("deserialization.failures", namespaceOf(key)).increment();
+    }
+
+    /**
+     * Records the latency of the operation.
+     *
+     * @param operation operation name
+     * @param namespace key namespace
+     * @param supplier  operation
+     * @param <T>       result type
+     * @return result of the operation
+     */
+    <T> T record(@NonNull String operation, @NonNull String namespace, @NonNull Supplier<T> supplier) {
+        String id = "operations:" + operation + ":" + namespace;
+        Timer timer = (Timer) meters.computeIfAbsent(id, k -> Timer.builder(METRIC_PREFIX + "operations")
+            .description("Latency of cache operations")
+            .tag(TAG_STORE, store)
+            .tag(TAG_NAMESPACE, namespace)
+            .tag("operation", operation)
+            .register(registry));
+        return timer.record(supplier);
+    }
+
+    void recordVoid(@NonNull String operation, @NonNull String namespace, @NonNull Runnable runnable) {
+        record(operation, namespace, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Registers the gauge of the entry count.
+     *
+     * @param cacheStore   cache store
+     * @param entryCounter entry counter
+     * @param <S>          cache store type
+     */
+    <S> void entries(@NonNull S cacheStore, @NonNull ToDoubleFunction<S> entryCounter) {
+        Gauge.builder(METRIC_PREFIX + "entries", cacheStore, entryCounter)
+            .description("Count of cache entries")
+            .tag(TAG_STORE, store)
+            .register(registry);
+    }
+
+    @NonNull
+    private Counter counter(@NonNull String name, @NonNull String namespace, @NonNull String... extraTags) {
+        StringBuilder idBuilder = new StringBuilder(name).append(':').append(namespace);
+        for (String extraTag : extraTags) {
+            idBuilder.append(':').append(extraTag);
+        }
+
+        return (Counter) meters.computeIfAbsent(idBuilder.toString(), id -> Counter.builder(METRIC_PREFIX + name)
+            .tag(TAG_STORE, store)
+            .tag(TAG_NAMESPACE, namespace)
+            .tags(extraTags)
+            .register(registry));
+    }
+}
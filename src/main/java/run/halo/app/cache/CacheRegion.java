@@ -0,0 +1,266 @@
+package run.halo.app.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Named cache region.
+ * <p>
+ * Keys of a region are stored with the current generation of the region, so clearing a region only bumps
+ * the generation and the entries of the previous generations become unreachable at once. The keys put by
+ * this node are tracked to keep the region within its size budget, and the stale ones are deleted in the
+ * background after the region is cleared. Entries put by the other nodes are left to their expiration.
+ * 缓存区域：key带有区域的代数，清空区域只需要增加代数，不需要扫描key
+ */
+@Slf4j
+public class CacheRegion {
+
+    /**
+     * Region of the theme properties.
+     */
+    public final static String THEMES = "themes";
+
+    /**
+     * Region of the rendered contents.
+     */
+    public final static String RENDER = "render";
+
+    /**
+     * Region of the rendered pages.
+     */
+    public final static String PAGE = "page";
+
+    /**
+     * Prefix of the keys stored in regions: region:{name}:{generation}:{key}.
+     */
+    final static String KEY_PREFIX = "region:";
+
+    private final static char KEY_DELIMITER = ':';
+
+    private final String name;
+
+    private final long timeout;
+
+    private final int maxEntries;
+
+    private final AbstractStringCacheStore cacheStore;
+
+    /**
+     * Keys put by this node in access order, the eldest key is deleted when the region is full.
+     */
+    private LinkedHashMap<String, Boolean> trackedKeys = new LinkedHashMap<>(16, 0.75f, true);
+
+    CacheRegion(@NonNull String name, long timeout, int maxEntries, @NonNull AbstractStringCacheStore cacheStore) {
+        Assert.hasText(name, "Region name must not be blank");
+        Assert.isTrue(name.indexOf(KEY_DELIMITER) < 0, "Region name must not contain " + KEY_DELIMITER);
+        Assert.isTrue(timeout >= 0, "Region timeout must not be less than 0");
+        Assert.isTrue(maxEntries > 0, "Region max entries must be greater than 0");
+        Assert.notNull(cacheStore, "Cache store must not be null");
+
+        this.name = name;
+        this.timeout = timeout;
+        this.maxEntries = maxEntries;
+        this.cacheStore = cacheStore;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the default timeout of the entries.
+     *
+     * @return timeout in milliseconds, 0 means the entries never expire
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Gets the current generation of this region.
+     *
+     * @return current generation
+     */
+    public long getGeneration() {
+        return cacheStore.getGeneration(name);
+    }
+
+    @NonNull
+    public Optional<String> get(@NonNull String key) {
+        String regionKey = toRegionKey(key);
+        Optional<String> valueOptional = cacheStore.get(regionKey);
+        valueOptional.ifPresent(value -> touch(regionKey));
+        return valueOptional;
+    }
+
+    @NonNull
+    public <T> Optional<T> getAny(@NonNull String key, @NonNull Class<T> type) {
+        String regionKey = toRegionKey(key);
+        Optional<T> valueOptional = cacheStore.getAnyShared(regionKey, type);
+        valueOptional.ifPresent(value -> touch(regionKey));
+        return valueOptional;
+    }
+
+    /**
+     * Gets a shared value, or loads and caches it with the default timeout if absent.
+     *
+     * @param key    cache key must not be blank
+     * @param type   value type must not be null
+     * @param loader value loader must not be null, and must not return null
+     * @param <T>    value type
+     * @return cached or loaded value
+     * @see AbstractStringCacheStore#get(String, Class, Supplier)
+     */
+    @NonNull
+    public <T> T get(@NonNull String key, @NonNull Class<T> type, @NonNull Supplier<? extends T> loader) {
+        String regionKey = toRegionKey(key);
+        T value = cacheStore.get(regionKey, type, loader, timeout, TimeUnit.MILLISECONDS);
+        track(regionKey);
+        return value;
+    }
+
+    /**
+     * Gets a string value, or loads and caches it as it is with the default timeout if absent.
+     *
+     * @param key    cache key must not be blank
+     * @param loader value loader must not be null, and must not return null
+     * @return cached or loaded value
+     * @see AbstractStringCacheStore#getString(String, Supplier, long, TimeUnit)
+     */
+    @NonNull
+    public String getString(@NonNull String key, @NonNull Supplier<String> loader) {
+        String regionKey = toRegionKey(key);
+        String value = cacheStore.getString(regionKey, loader, timeout, TimeUnit.MILLISECONDS);
+        track(regionKey);
+        return value;
+    }
+
+    /**
+     * Puts the value with the default timeout.
+     *
+     * @param key   cache key must not be blank
+     * @param value cache value must not be null
+     */
+    public void put(@NonNull String key, @NonNull String value) {
+        String regionKey = toRegionKey(key);
+        if (timeout > 0) {
+            cacheStore.put(regionKey, value, timeout, TimeUnit.MILLISECONDS);
+        } else {
+            cacheStore.put(regionKey, value);
+        }
+        track(regionKey);
+    }
+
+    public void put(@NonNull String key, @NonNull String value, long timeout, @NonNull TimeUnit timeUnit) {
+        String regionKey = toRegionKey(key);
+        cacheStore.put(regionKey, value, timeout, timeUnit);
+        track(regionKey);
+    }
+
+    /**
+     * Puts the value as json with the default timeout.
+     *
+     * @param key   cache key must not be blank
+     * @param value cache value must not be null
+     * @param <T>   value type
+     */
+    public <T> void putAny(@NonNull String key, @NonNull T value) {
+        String regionKey = toRegionKey(key);
+        if (timeout > 0) {
+            cacheStore.putAny(regionKey, value, timeout, TimeUnit.MILLISECONDS);
+        } else {
+            cacheStore.putAny(regionKey, value);
+        }
+        track(regionKey);
+    }
+
+    public <T> void putAny(@NonNull String key, @NonNull T value, long timeout, @NonNull TimeUnit timeUnit) {
+        String regionKey = toRegionKey(key);
+        cacheStore.putAny(regionKey, value, timeout, timeUnit);
+        track(regionKey);
+    }
+
+    public void delete(@NonNull String key) {
+        String regionKey = toRegionKey(key);
+        cacheStore.delete(regionKey);
+        synchronized (this) {
+            trackedKeys.remove(regionKey);
+        }
+    }
+
+    /**
+     * Clears this region by bumping the generation.
+     */
+    public void clear() {
+        long generation = cacheStore.incrementGeneration(name);
+
+        List<String> staleKeys;
+        synchronized (this) {
+            staleKeys = new ArrayList<>(trackedKeys.keySet());
+            trackedKeys = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        log.debug("Cleared cache region: [{}], current generation: [{}]", name, generation);
+
+        if (!staleKeys.isEmpty()) {
+            // The stale entries are unreachable already, release them in the background
+            CacheExpiryScheduler.execute(() -> cacheStore.release(staleKeys));
+        }
+    }
+
+    @NonNull
+    private String toRegionKey(@NonNull String key) {
+        Assert.hasText(key, "Cache key must not be blank");
+
+        return KEY_PREFIX + name + KEY_DELIMITER + cacheStore.getGeneration(name) + KEY_DELIMITER + key;
+    }
+
+    private synchronized void touch(@NonNull String regionKey) {
+        trackedKeys.get(regionKey);
+    }
+
+    private void track(@NonNull String regionKey) {
+        List<String> evictedKeys = new LinkedList<>();
+
+        synchronized (this) {
+            trackedKeys.put(regionKey, Boolean.TRUE);
+
+            Iterator<String> iterator = trackedKeys.keySet().iterator();
+            while (trackedKeys.size() > maxEntries && iterator.hasNext()) {
+                evictedKeys.add(iterator.next());
+                iterator.remove();
+            }
+        }
+
+        if (!evictedKeys.isEmpty()) {
+            log.debug("Evicted [{}] caches of region: [{}] for size limit", evictedKeys.size(), name);
+            cacheStore.release(evictedKeys);
+        }
+    }
+
+    /**
+     * Resolves the region name of the key.
+     *
+     * @param key cache key
+     * @return region name, or null if the key is not stored in any region
+     */
+    @Nullable
+    static String regionOf(@NonNull String key) {
+        if (!key.startsWith(KEY_PREFIX)) {
+            return null;
+        }
+        int end = key.indexOf(KEY_DELIMITER, KEY_PREFIX.length());
+        return end < 0 ? null : key.substring(KEY_PREFIX.length(), end);
+    }
+}
@@ -2,6 +2,8 @@ package run.halo.app.cache;
 
 import org.springframework.lang.NonNull;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -62,4 +64,29 @@ public interface CacheStore<K, V> {
      */
     void delete(@NonNull K key);
 
+    /**
+     * Gets by cache keys in a batch.
+     *
+     * @param keys cache keys must not be null
+     * @return cache values of the present keys
+     */
+    @NonNull
+    Map<K, V> getAll(@NonNull Collection<K> keys);
+
+    /**
+     * Puts caches which will be expired in a batch.
+     *
+     * @param values   cache values must not be null
+     * @param timeout  the key expiration must not be less than 1
+     * @param timeUnit timeout unit must not be null
+     */
+    void putAll(@NonNull Map<K, V> values, long timeout, @NonNull TimeUnit timeUnit);
+
+    /**
+     * Deletes keys in a batch.
+     *
+     * @param keys cache keys must not be null
+     */
+    void deleteAll(@NonNull Collection<K> keys);
+
 }
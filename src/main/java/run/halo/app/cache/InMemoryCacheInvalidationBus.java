@@ -0,0 +1,35 @@
+package run.halo.app.cache;
+
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory cache invalidation bus, messages are delivered synchronously in the current jvm.
+ * 单个jvm内的失效消息总线
+ */
+public class InMemoryCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final List<Consumer<String>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String message) {
+        Assert.notNull(message, "Invalidation message must not be null");
+
+        subscribers.forEach(subscriber -> subscriber.accept(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> subscriber) {
+        Assert.notNull(subscriber, "Subscriber must not be null");
+
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void close() {
+        subscribers.clear();
+    }
+}
@@ -2,12 +2,16 @@ package run.halo.app.cache;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.Assert;
+import run.halo.app.utils.DateUtils;
 
 import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -19,19 +23,26 @@ import java.util.concurrent.locks.ReentrantLock;
 @Slf4j
 public class InMemoryCacheStore extends AbstractStringCacheStore {
 
-    /**
-     * Cleaner schedule period. (ms)
-     */
-    private final static long PERIOD = 60 * 1000;
-
     /**
      * Cache container.这个字段会与并发有关，涉及到了Concurrent
      * 定义的是Cache的HashMap作为容器，是一个线程安全的
      */
     private final static ConcurrentHashMap<String, CacheWrapper<String>> CACHE_CONTAINER = new ConcurrentHashMap<>();
 
-    //计时器
-    private final Timer timer;
+    /**
+     * Expiry index of the cache container. 按过期时间排序的索引，清理时不再遍历所有的key
+     */
+    private final static CacheExpiryIndex EXPIRY_INDEX = new CacheExpiryIndex();
+
+    /**
+     * Generations of the regions, shared like the cache container.
+     */
+    private final static ConcurrentHashMap<String, AtomicLong> GENERATIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Scheduled cleaner on the shared cleaner thread.
+     */
+    private final ScheduledFuture<?> cleaner;
 
     /**
      * Lock.对象锁 定义了内部的锁，但是没有明显的使用；外部拿到执行权之后会获得该锁
@@ -39,11 +50,8 @@ public class InMemoryCacheStore extends AbstractStringCacheStore {
     private final Lock lock = new ReentrantLock();
 
     public InMemoryCacheStore() {
-        // Run a cache store cleaner
-        timer = new Timer();
-        // 添加个缓存到期清理的任务执行  Cleaner继承了TimerTask
-        // TODO 这个方法的确很好用
-        timer.scheduleAtFixedRate(new CacheExpiryCleaner(), 0, PERIOD);
+        // Run a cache store cleaner on the shared cleaner thread
+        cleaner = CacheExpiryScheduler.schedule(new CacheExpiryCleaner());
     }
 
     @Override
@@ -62,6 +70,12 @@ public class InMemoryCacheStore extends AbstractStringCacheStore {
         // Put the cache wrapper  容器是一个Map，但是添加元素后的返回值却是一个普通对象
         CacheWrapper<String> putCacheWrapper = CACHE_CONTAINER.put(key, cacheWrapper);
 
+        if (cacheWrapper.getExpireAt() != null) {
+            EXPIRY_INDEX.schedule(key, cacheWrapper.getExpireAt().getTime());
+        } else {
+            EXPIRY_INDEX.cancel(key);
+        }
+
         log.debug("Put [{}] cache 添加后的缓存: [{}], 原始的缓存 cache wrapper: [{}]", key, putCacheWrapper, cacheWrapper);
     }
 
@@ -75,10 +89,11 @@ public class InMemoryCacheStore extends AbstractStringCacheStore {
         // TODO lock的使用
         lock.lock();
         try {
-            // Get the value before
-            Optional<String> valueOptional = get(key);
+            // Get the value before, without recording it as a hit or miss
+            Optional<CacheWrapper<String>> presentOptional = getInternal(key);
 
-            if (valueOptional.isPresent()) {
+            if (presentOptional.filter(present -> present.getExpireAt() == null
+                || !present.getExpireAt().before(DateUtils.now())).isPresent()) {
                 log.warn("Failed to put the cache, because the key: [{}] has been present already", key);
                 return false;
             }
@@ -93,22 +108,66 @@ public class InMemoryCacheStore extends AbstractStringCacheStore {
     }
 
     @Override
-    public void delete(String key) {
+    void deleteInternal(String key) {
         Assert.hasText(key, "Cache key must not be blank");
 
         CACHE_CONTAINER.remove(key);
+        EXPIRY_INDEX.cancel(key);
         log.debug("Removed key: [{}]", key);
     }
 
+    @Override
+    void putAllInternal(Map<String, CacheWrapper<String>> cacheWrappers) {
+        Assert.notNull(cacheWrappers, "Cache wrappers must not be null");
+
+        CACHE_CONTAINER.putAll(cacheWrappers);
+
+        cacheWrappers.forEach((key, cacheWrapper) -> {
+            if (cacheWrapper.getExpireAt() != null) {
+                EXPIRY_INDEX.schedule(key, cacheWrapper.getExpireAt().getTime());
+            } else {
+                EXPIRY_INDEX.cancel(key);
+            }
+        });
+
+        log.debug("Put caches: [{}]", cacheWrappers.keySet());
+    }
+
+    @Override
+    void deleteAllInternal(Collection<String> keys) {
+        Assert.notNull(keys, "Cache keys must not be null");
+
+        keys.forEach(CACHE_CONTAINER::remove);
+        keys.forEach(EXPIRY_INDEX::cancel);
+        log.debug("Removed keys: [{}]", keys);
+    }
+
+    @Override
+    long getGeneration(String region) {
+        AtomicLong generation = GENERATIONS.get(region);
+        return generation == null ? 0 : generation.get();
+    }
+
+    @Override
+    long incrementGeneration(String region) {
+        return GENERATIONS.computeIfAbsent(region, r -> new AtomicLong()).incrementAndGet();
+    }
+
+    @Override
+    double entryCount() {
+        return CACHE_CONTAINER.size();
+    }
+
     @PreDestroy
     public void preDestroy() {
         log.debug("取消定时器中的所有任务");
-        timer.cancel();
+        cleaner.cancel(false);
         clear();
     }
 
     private void clear() {
         CACHE_CONTAINER.clear();
+        EXPIRY_INDEX.clear();
     }
 
     /**
@@ -117,16 +176,23 @@ public class InMemoryCacheStore extends AbstractStringCacheStore {
      * @author johnniang
      * @date 03/28/19
      */
-    private class CacheExpiryCleaner extends TimerTask {
+    private class CacheExpiryCleaner implements Runnable {
 
         @Override
         public void run() {
-            // 使用到了流，key的集合的forEach方法执行lambda表达式，每个key都会传入执行语句。类似循环
-            CACHE_CONTAINER.keySet().forEach(key -> {
-                if (!InMemoryCacheStore.this.get(key).isPresent()) {
-                    // 为空的时候删除
-                    log.debug("Deleted the cache: [{}] for expiration", key);
-                }
+            long now = System.currentTimeMillis();
+            // 只处理已经过期的key
+            List<String> expiredKeys = EXPIRY_INDEX.pollExpired(now);
+            expiredKeys.forEach(key -> {
+                // The key may have been put again, so check the expiration again
+                CACHE_CONTAINER.computeIfPresent(key, (k, cacheWrapper) -> {
+                    if (cacheWrapper.getExpireAt() != null && cacheWrapper.getExpireAt().getTime() <= now) {
+                        log.debug("Deleted the cache: [{}] for expiration", k);
+                        expired(k);
+                        return null;
+                    }
+                    return cacheWrapper;
+                });
             });
         }
     }
@@ -1,39 +1,77 @@
 package run.halo.app.cache;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.extern.slf4j.Slf4j;
 import org.iq80.leveldb.*;
 import org.iq80.leveldb.impl.Iq80DBFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import run.halo.app.config.properties.HaloProperties;
-import run.halo.app.utils.JsonUtils;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * level-db cache store
  * levelDB 是Google开发的一个键值型的数据库
  * LevelDB的数据是存储在磁盘上的，采用LSM-Tree的结构实现。LSM-Tree将磁盘的随机写转化为顺序写，从而大大提高了写速度。
  * 数据库级别的缓存
+ * <p>
+ * Values are stored as binary records: a version byte, createAt and expireAt as longs, then the UTF-8 data.
+ * Every expiring key also has an entry in the expiry key range, ordered by expireAt, so the expired caches
+ * can be found by a range scan. Json records written by the previous versions are migrated on read.
+ * 值使用二进制格式存储，过期时间放在固定的头部，读取时不需要解析json
  * Create by Pencilso on 2020/1/9 7:20 下午
  */
 @Slf4j
 public class LevelCacheStore extends AbstractStringCacheStore {
+
+    /**
+     * Version of the binary record. Json records start with '{', so they never collide.
+     */
+    private final static byte RECORD_VERSION = 1;
+
+    /**
+     * Version byte, createAt and expireAt.
+     */
+    private final static int RECORD_HEADER_LENGTH = 1 + Long.BYTES + Long.BYTES;
+
+    /**
+     * Prefix of the expiry key range: prefix + expireAt (big endian) + cache key.
+     */
+    private final static byte[] EXPIRY_PREFIX = {0, 'e', 'x', 'p', 'i', 'r', 'y', ':'};
+
     /**
-     * Cleaner schedule period. (ms)
+     * Prefix of the region generations: prefix + region name, the value is the generation as a long.
      */
-    private final static long PERIOD = 60 * 1000;
+    private final static byte[] GENERATION_PREFIX = {0, 'r', 'e', 'g', 'i', 'o', 'n', ':'};
+
+    private final static byte[] EMPTY_BYTES = new byte[0];
+
+    /**
+     * Generations read from level db, level db is owned by this process so they can be cached.
+     */
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
 
     private static DB LEVEL_DB;
 
-    private Timer timer;
+    private ScheduledFuture<?> cleaner;
+
+    /**
+     * Lock for putting if absent.
+     */
+    private final Lock lock = new ReentrantLock();
 
     @Autowired
     private HaloProperties haloProperties;
@@ -51,8 +89,9 @@ public class LevelCacheStore extends AbstractStringCacheStore {
             options.createIfMissing(true);
             //open leveldb store folder
             LEVEL_DB = factory.open(folder, options);
-            timer = new Timer();
-            timer.scheduleAtFixedRate(new CacheExpiryCleaner(), 0, PERIOD);
+            // Migrate the json records written by the previous versions once
+            CacheExpiryScheduler.execute(this::migrateJsonRecords);
+            cleaner = CacheExpiryScheduler.schedule(new CacheExpiryCleaner());
         } catch (Exception ex) {
             log.error("init leveldb error ", ex);
         }
@@ -64,8 +103,10 @@ public class LevelCacheStore extends AbstractStringCacheStore {
     @PreDestroy
     public void preDestroy() {
         try {
+            if (cleaner != null) {
+                cleaner.cancel(false);
+            }
             LEVEL_DB.close();
-            timer.cancel();
         } catch (IOException e) {
             log.error("close leveldb error ", e);
         }
@@ -75,81 +116,348 @@ public class LevelCacheStore extends AbstractStringCacheStore {
     Optional<CacheWrapper<String>> getInternal(String key) {
         Assert.hasText(key, "Cache key must not be blank");
         byte[] bytes = LEVEL_DB.get(stringToBytes(key));
-        if (bytes != null) {
-            String valueJson = bytesToString(bytes);
-            return StringUtils.isEmpty(valueJson) ? Optional.empty() : jsonToCacheWrapper(valueJson);
+        if (bytes == null || bytes.length == 0) {
+            return Optional.empty();
         }
-        return Optional.empty();
+
+        if (!isRecord(bytes)) {
+            // Json record of the previous versions, migrate it
+            Optional<CacheWrapper<String>> cacheWrapperOptional = jsonToCacheWrapper(bytesToString(bytes));
+            cacheWrapperOptional.ifPresent(cacheWrapper -> write(key, cacheWrapper));
+            return cacheWrapperOptional;
+        }
+
+        long expireAt = readExpireAt(bytes);
+        if (expireAt > 0 && expireAt <= System.currentTimeMillis()) {
+            // Expired, leave it to the cleaner without decoding the data
+            log.debug("Cache key: [{}] has been expired", key);
+            return Optional.empty();
+        }
+
+        return Optional.of(recordToCacheWrapper(bytes));
     }
 
     @Override
     void putInternal(String key, CacheWrapper<String> cacheWrapper) {
-        putInternalIfAbsent(key, cacheWrapper);
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
+
+        write(key, cacheWrapper);
+        log.debug("Cache key: [{}], original cache wrapper: [{}]", key, cacheWrapper);
     }
 
     @Override
     Boolean putInternalIfAbsent(String key, CacheWrapper<String> cacheWrapper) {
         Assert.hasText(key, "Cache key must not be blank");
         Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
+
+        lock.lock();
         try {
-            LEVEL_DB.put(
-                stringToBytes(key),
-                stringToBytes(JsonUtils.objectToJson(cacheWrapper))
-            );
+            if (getInternal(key).isPresent()) {
+                log.warn("Failed to put the cache, because the key: [{}] has been present already", key);
+                return false;
+            }
+
+            write(key, cacheWrapper);
+            log.debug("Cache key: [{}], original cache wrapper: [{}]", key, cacheWrapper);
             return true;
-        } catch (JsonProcessingException e) {
-            log.warn("Put cache fail json2object key: [{}] value:[{}]", key, cacheWrapper);
+        } finally {
+            lock.unlock();
         }
-        log.debug("Cache key: [{}], original cache wrapper: [{}]", key, cacheWrapper);
-        return false;
     }
 
     @Override
-    public void delete(String key) {
-        LEVEL_DB.delete(stringToBytes(key));
+    void deleteInternal(String key) {
+        WriteBatch writeBatch = LEVEL_DB.createWriteBatch();
+        try {
+            delete(writeBatch, stringToBytes(key));
+            LEVEL_DB.write(writeBatch);
+        } finally {
+            closeQuietly(writeBatch);
+        }
         log.debug("cache remove key: [{}]", key);
     }
 
+    @Override
+    void putAllInternal(Map<String, CacheWrapper<String>> cacheWrappers) {
+        Assert.notNull(cacheWrappers, "Cache wrappers must not be null");
 
-    private byte[] stringToBytes(String str) {
-        return str.getBytes(Charset.defaultCharset());
+        WriteBatch writeBatch = LEVEL_DB.createWriteBatch();
+        try {
+            cacheWrappers.forEach((key, cacheWrapper) -> write(writeBatch, stringToBytes(key), cacheWrapper));
+            LEVEL_DB.write(writeBatch);
+        } finally {
+            closeQuietly(writeBatch);
+        }
+        log.debug("Cache keys: [{}]", cacheWrappers.keySet());
     }
 
-    private String bytesToString(byte[] bytes) {
-        return new String(bytes, Charset.defaultCharset());
+    @Override
+    void deleteAllInternal(Collection<String> keys) {
+        Assert.notNull(keys, "Cache keys must not be null");
+
+        WriteBatch writeBatch = LEVEL_DB.createWriteBatch();
+        try {
+            keys.forEach(key -> delete(writeBatch, stringToBytes(key)));
+            LEVEL_DB.write(writeBatch);
+        } finally {
+            closeQuietly(writeBatch);
+        }
+        log.debug("cache remove keys: [{}]", keys);
     }
 
-    private class CacheExpiryCleaner extends TimerTask {
+    /**
+     * Writes the record and its expiry key.
+     *
+     * @param key          cache key must not be blank
+     * @param cacheWrapper cache wrapper must not be null
+     */
+    private void write(@NonNull String key, @NonNull CacheWrapper<String> cacheWrapper) {
+        WriteBatch writeBatch = LEVEL_DB.createWriteBatch();
+        try {
+            write(writeBatch, stringToBytes(key), cacheWrapper);
+            LEVEL_DB.write(writeBatch);
+        } finally {
+            closeQuietly(writeBatch);
+        }
+    }
 
-        @Override
-        public void run() {
-            //batch
-            WriteBatch writeBatch = LEVEL_DB.createWriteBatch();
+    /**
+     * Adds the record and its expiry key to the write batch.
+     *
+     * @param writeBatch   write batch must not be null
+     * @param keyBytes     cache key bytes must not be null
+     * @param cacheWrapper cache wrapper must not be null
+     */
+    private void write(@NonNull WriteBatch writeBatch, @NonNull byte[] keyBytes, @NonNull CacheWrapper<String> cacheWrapper) {
+        // Remove the expiry key of the previous record
+        long previousExpireAt = readExpireAt(LEVEL_DB.get(keyBytes));
+        if (previousExpireAt > 0) {
+            writeBatch.delete(buildExpiryKey(previousExpireAt, keyBytes));
+        }
 
-            DBIterator iterator = LEVEL_DB.iterator();
-            long currentTimeMillis = System.currentTimeMillis();
+        writeBatch.put(keyBytes, cacheWrapperToRecord(cacheWrapper));
+
+        if (cacheWrapper.getExpireAt() != null) {
+            writeBatch.put(buildExpiryKey(cacheWrapper.getExpireAt().getTime(), keyBytes), EMPTY_BYTES);
+        }
+    }
+
+    /**
+     * Adds the deletion of the record and its expiry key to the write batch.
+     *
+     * @param writeBatch write batch must not be null
+     * @param keyBytes   cache key bytes must not be null
+     */
+    private void delete(@NonNull WriteBatch writeBatch, @NonNull byte[] keyBytes) {
+        long expireAt = readExpireAt(LEVEL_DB.get(keyBytes));
+        if (expireAt > 0) {
+            writeBatch.delete(buildExpiryKey(expireAt, keyBytes));
+        }
+        writeBatch.delete(keyBytes);
+    }
+
+    /**
+     * Rewrites the json records of the previous versions as binary records.
+     */
+    private void migrateJsonRecords() {
+        int migrated = 0;
+        try (DBIterator iterator = LEVEL_DB.iterator()) {
+            iterator.seekToFirst();
             while (iterator.hasNext()) {
                 Map.Entry<byte[], byte[]> next = iterator.next();
-                if (next.getKey() == null || next.getValue() == null) {
+                if (next.getKey() == null || next.getValue() == null || isInternalKey(next.getKey())) {
+                    continue;
+                }
+
+                if (next.getValue().length == 0 || isRecord(next.getValue())) {
                     continue;
                 }
 
+                String key = bytesToString(next.getKey());
                 String valueJson = bytesToString(next.getValue());
                 Optional<CacheWrapper<String>> stringCacheWrapper = StringUtils.isEmpty(valueJson) ? Optional.empty() : jsonToCacheWrapper(valueJson);
                 if (stringCacheWrapper.isPresent()) {
-                    //get expireat time
-                    long expireAtTime = stringCacheWrapper.map(CacheWrapper::getExpireAt)
-                        .map(Date::getTime)
-                        .orElse(0L);
-                    //if expire
-                    if (expireAtTime != 0 && currentTimeMillis > expireAtTime) {
-                        writeBatch.delete(next.getKey());
-                        log.debug("deleted the cache: [{}] for expiration", bytesToString(next.getKey()));
+                    write(key, stringCacheWrapper.get());
+                    migrated++;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to migrate the json records of level db", e);
+        }
+
+        if (migrated > 0) {
+            log.info("Migrated [{}] json records of level db", migrated);
+        }
+    }
+
+    @Override
+    long getGeneration(String region) {
+        return generations.computeIfAbsent(region, r -> {
+            byte[] bytes = LEVEL_DB.get(buildGenerationKey(r));
+            return bytes == null || bytes.length != Long.BYTES ? 0L : ByteBuffer.wrap(bytes).getLong();
+        });
+    }
+
+    @Override
+    long incrementGeneration(String region) {
+        lock.lock();
+        try {
+            long generation = getGeneration(region) + 1;
+            // Persist it, or the entries of the previous generations will be reachable again after restarting
+            LEVEL_DB.put(buildGenerationKey(region), ByteBuffer.allocate(Long.BYTES).putLong(generation).array());
+            generations.put(region, generation);
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @NonNull
+    private static byte[] buildGenerationKey(@NonNull String region) {
+        byte[] regionBytes = region.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(GENERATION_PREFIX.length + regionBytes.length)
+            .put(GENERATION_PREFIX)
+            .put(regionBytes)
+            .array();
+    }
+
+    /**
+     * Checks if the key is in the internal key ranges.
+     *
+     * @param keyBytes key bytes
+     * @return true if the key is an expiry key or a generation key
+     */
+    private static boolean isInternalKey(@NonNull byte[] keyBytes) {
+        return startsWith(keyBytes, EXPIRY_PREFIX) || startsWith(keyBytes, GENERATION_PREFIX);
+    }
+
+    private static boolean isRecord(@NonNull byte[] bytes) {
+        return bytes.length >= RECORD_HEADER_LENGTH && bytes[0] == RECORD_VERSION;
+    }
+
+    /**
+     * Reads expireAt from the record header.
+     *
+     * @param bytes record bytes
+     * @return expireAt in milliseconds, or 0 if the record is absent, is not expired or is a json record
+     */
+    private static long readExpireAt(@Nullable byte[] bytes) {
+        if (bytes == null || !isRecord(bytes)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(bytes, 1 + Long.BYTES, Long.BYTES).getLong();
+    }
+
+    @NonNull
+    private static byte[] cacheWrapperToRecord(@NonNull CacheWrapper<String> cacheWrapper) {
+        byte[] data = cacheWrapper.getData().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(RECORD_HEADER_LENGTH + data.length)
+            .put(RECORD_VERSION)
+            .putLong(cacheWrapper.getCreateAt() == null ? 0 : cacheWrapper.getCreateAt().getTime())
+            .putLong(cacheWrapper.getExpireAt() == null ? 0 : cacheWrapper.getExpireAt().getTime())
+            .put(data)
+            .array();
+    }
+
+    @NonNull
+    private static CacheWrapper<String> recordToCacheWrapper(@NonNull byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, RECORD_HEADER_LENGTH - 1);
+        long createAt = buffer.getLong();
+        long expireAt = buffer.getLong();
+
+        String data = new String(bytes, RECORD_HEADER_LENGTH, bytes.length - RECORD_HEADER_LENGTH, StandardCharsets.UTF_8);
+
+        return new CacheWrapper<>(data, expireAt > 0 ? new Date(expireAt) : null, new Date(createAt));
+    }
+
+    @NonNull
+    private static byte[] buildExpiryKey(long expireAt, @NonNull byte[] keyBytes) {
+        return ByteBuffer.allocate(EXPIRY_PREFIX.length + Long.BYTES + keyBytes.length)
+            .put(EXPIRY_PREFIX)
+            .putLong(expireAt)
+            .put(keyBytes)
+            .array();
+    }
+
+    private static boolean startsWith(@NonNull byte[] bytes, @NonNull byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void closeQuietly(@NonNull WriteBatch writeBatch) {
+        try {
+            writeBatch.close();
+        } catch (IOException e) {
+            log.warn("Failed to close write batch", e);
+        }
+    }
+
+    private byte[] stringToBytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String bytesToString(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deletes the caches in the expired part of the expiry key range.
+     */
+    private class CacheExpiryCleaner implements Runnable {
+
+        @Override
+        public void run() {
+            long currentTimeMillis = System.currentTimeMillis();
+
+            //batch
+            WriteBatch writeBatch = LEVEL_DB.createWriteBatch();
+            int deleted = 0;
+
+            try (DBIterator iterator = LEVEL_DB.iterator()) {
+                iterator.seek(EXPIRY_PREFIX);
+                while (iterator.hasNext()) {
+                    byte[] expiryKey = iterator.next().getKey();
+                    if (!startsWith(expiryKey, EXPIRY_PREFIX)) {
+                        break;
+                    }
+
+                    long expireAt = ByteBuffer.wrap(expiryKey, EXPIRY_PREFIX.length, Long.BYTES).getLong();
+                    if (expireAt > currentTimeMillis) {
+                        // The rest are not expired yet
+                        break;
+                    }
+
+                    writeBatch.delete(expiryKey);
+
+                    byte[] keyBytes = Arrays.copyOfRange(expiryKey, EXPIRY_PREFIX.length + Long.BYTES, expiryKey.length);
+                    // The key may have been put again, so only delete the record with the same expiration
+                    if (readExpireAt(LEVEL_DB.get(keyBytes)) == expireAt) {
+                        writeBatch.delete(keyBytes);
+                        deleted++;
+                        String key = bytesToString(keyBytes);
+                        expired(key);
+                        log.debug("deleted the cache: [{}] for expiration", key);
                     }
                 }
+
+                LEVEL_DB.write(writeBatch);
+            } catch (IOException e) {
+                log.error("Failed to clean expired caches of level db", e);
+            } finally {
+                closeQuietly(writeBatch);
+            }
+
+            if (deleted > 0) {
+                log.debug("Deleted [{}] expired caches of level db", deleted);
             }
-            LEVEL_DB.write(writeBatch);
         }
     }
 }
-
@@ -0,0 +1,520 @@
+package run.halo.app.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-heap cache store.
+ * <p>
+ * Values are stored as UTF-8 bytes in direct byte buffer slabs, only the index of the keys is kept on heap.
+ * Every slab is assigned to a size class on demand and split into chunks of that size, a value takes the
+ * smallest chunk it fits in. When a size class has no free chunk and no slab is left, the least recently
+ * used entry of that size class is evicted. A size class without any entry to evict takes a whole slab over
+ * from the size class holding the most slabs, so it never starves once the slabs are assigned. Values
+ * larger than a slab are not cached.
+ * 堆外缓存：值存放在直接内存的slab中，堆上只保留索引，适合缓存渲染结果等较大的字符串
+ */
+@Slf4j
+public class OffHeapCacheStore extends AbstractStringCacheStore {
+
+    /**
+     * Size of a slab, it is the max size of a value as well. (bytes)
+     */
+    public final static int SLAB_SIZE = 1024 * 1024;
+
+    /**
+     * Chunk size of the smallest size class, chunk sizes of the next classes are doubled. (bytes)
+     */
+    private final static int MIN_CHUNK_SIZE = 64;
+
+    private final static int MIN_CHUNK_SHIFT = Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+
+    private final int maxSlabs;
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+
+    private final SizeClass[] sizeClasses;
+
+    /**
+     * Hash index of the entries.
+     */
+    private final Map<String, Slot> index = new HashMap<>();
+
+    private final Lock lock = new ReentrantLock();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private final CacheExpiryIndex expiryIndex = new CacheExpiryIndex();
+
+    private final ScheduledFuture<?> cleaner;
+
+    /**
+     * Creates an off-heap cache store.
+     *
+     * @param capacity max bytes of the slabs, must not be less than the slab size
+     */
+    public OffHeapCacheStore(long capacity) {
+        Assert.isTrue(capacity >= SLAB_SIZE, "Capacity must not be less than " + SLAB_SIZE);
+
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, capacity / SLAB_SIZE);
+
+        int sizeClassCount = Integer.numberOfTrailingZeros(SLAB_SIZE) - MIN_CHUNK_SHIFT + 1;
+        this.sizeClasses = new SizeClass[sizeClassCount];
+        for (int i = 0; i < sizeClassCount; i++) {
+            sizeClasses[i] = new SizeClass(MIN_CHUNK_SIZE << i);
+        }
+
+        // Run a cache store cleaner on the shared cleaner thread
+        cleaner = CacheExpiryScheduler.schedule(new CacheExpiryCleaner());
+    }
+
+    /**
+     * Gets the count of entries evicted because of the capacity.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Gets the current entry count.
+     *
+     * @return entry count
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the bytes of the allocated slabs.
+     *
+     * @return allocated bytes
+     */
+    public long allocated() {
+        lock.lock();
+        try {
+            return (long) slabs.size() * SLAB_SIZE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    double entryCount() {
+        return size();
+    }
+
+    @Override
+    Optional<CacheWrapper<String>> getInternal(String key) {
+        Assert.hasText(key, "Cache key must not be blank");
+
+        Slot slot;
+        byte[] bytes;
+
+        lock.lock();
+        try {
+            slot = index.get(key);
+            if (slot == null) {
+                return Optional.empty();
+            }
+
+            // Refresh the access order
+            sizeClasses[slot.sizeClass].lru.get(key);
+
+            bytes = new byte[slot.length];
+            ByteBuffer source = slabs.get(slabIndexOf(slot.address)).duplicate();
+            source.position(offsetOf(slot.address));
+            source.get(bytes);
+        } finally {
+            lock.unlock();
+        }
+
+        // Decode it out of the lock
+        return Optional.of(new CacheWrapper<>(new String(bytes, StandardCharsets.UTF_8),
+            slot.expireAt > 0 ? new Date(slot.expireAt) : null,
+            new Date(slot.createAt)));
+    }
+
+    @Override
+    void putInternal(String key, CacheWrapper<String> cacheWrapper) {
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
+
+        byte[] bytes = cacheWrapper.getData().getBytes(StandardCharsets.UTF_8);
+
+        lock.lock();
+        try {
+            doPut(key, bytes, cacheWrapper);
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Put [{}] cache, [{}] bytes", key, bytes.length);
+    }
+
+    @Override
+    Boolean putInternalIfAbsent(String key, CacheWrapper<String> cacheWrapper) {
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
+
+        log.debug("Preparing to put key: [{}], value: [{}]", key, cacheWrapper);
+
+        byte[] bytes = cacheWrapper.getData().getBytes(StandardCharsets.UTF_8);
+
+        lock.lock();
+        try {
+            Slot present = index.get(key);
+            if (present != null && !isExpired(present, System.currentTimeMillis())) {
+                log.warn("Failed to put the cache, because the key: [{}] has been present already", key);
+                return false;
+            }
+
+            return doPut(key, bytes, cacheWrapper);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    void deleteInternal(String key) {
+        Assert.hasText(key, "Cache key must not be blank");
+
+        lock.lock();
+        try {
+            remove(key);
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Removed key: [{}]", key);
+    }
+
+    @Override
+    void putAllInternal(Map<String, CacheWrapper<String>> cacheWrappers) {
+        Assert.notNull(cacheWrappers, "Cache wrappers must not be null");
+
+        // Encode them out of the lock
+        Map<String, byte[]> values = new LinkedHashMap<>(cacheWrappers.size());
+        cacheWrappers.forEach((key, cacheWrapper) -> values.put(key, cacheWrapper.getData().getBytes(StandardCharsets.UTF_8)));
+
+        lock.lock();
+        try {
+            values.forEach((key, bytes) -> doPut(key, bytes, cacheWrappers.get(key)));
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Put caches: [{}]", cacheWrappers.keySet());
+    }
+
+    @Override
+    void deleteAllInternal(Collection<String> keys) {
+        Assert.notNull(keys, "Cache keys must not be null");
+
+        lock.lock();
+        try {
+            keys.forEach(this::remove);
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Removed keys: [{}]", keys);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        cleaner.cancel(false);
+        expiryIndex.clear();
+
+        lock.lock();
+        try {
+            index.clear();
+            for (SizeClass sizeClass : sizeClasses) {
+                sizeClass.lru.clear();
+                sizeClass.freeChunks.clear();
+                sizeClass.slabCount = 0;
+            }
+            // Direct memory is released once the slabs are collected
+            slabs.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts the value, the lock must be held.
+     *
+     * @return true if the value is put, false if the value is too large or no chunk is available
+     */
+    private boolean doPut(@NonNull String key, @NonNull byte[] bytes, @NonNull CacheWrapper<String> cacheWrapper) {
+        // Release the previous chunk first, it may be reused
+        remove(key);
+
+        if (bytes.length > SLAB_SIZE) {
+            log.warn("Cache key: [{}] is not cached, because the value of [{}] bytes is larger than the slab size", key, bytes.length);
+            return false;
+        }
+
+        int sizeClass = sizeClassOf(bytes.length);
+        long address = allocate(sizeClass);
+        if (address < 0) {
+            log.warn("Cache key: [{}] is not cached, because no chunk of [{}] bytes is available", key, sizeClasses[sizeClass].chunkSize);
+            return false;
+        }
+
+        ByteBuffer target = slabs.get(slabIndexOf(address)).duplicate();
+        target.position(offsetOf(address));
+        target.put(bytes);
+
+        long expireAt = cacheWrapper.getExpireAt() == null ? 0 : cacheWrapper.getExpireAt().getTime();
+        long createAt = cacheWrapper.getCreateAt() == null ? System.currentTimeMillis() : cacheWrapper.getCreateAt().getTime();
+
+        Slot slot = new Slot(sizeClass, address, bytes.length, createAt, expireAt);
+        index.put(key, slot);
+        sizeClasses[sizeClass].lru.put(key, slot);
+
+        if (expireAt > 0) {
+            expiryIndex.schedule(key, expireAt);
+        }
+        return true;
+    }
+
+    /**
+     * Allocates a chunk of the size class, the lock must be held.
+     *
+     * @param sizeClass size class index
+     * @return address of the chunk, or -1 if no chunk is available
+     */
+    private long allocate(int sizeClass) {
+        SizeClass chunks = sizeClasses[sizeClass];
+
+        Long address = chunks.freeChunks.poll();
+        if (address != null) {
+            return address;
+        }
+
+        if (slabs.size() < maxSlabs) {
+            // Assign a new slab to this size class
+            int slabIndex = slabs.size();
+            slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE));
+            assignSlab(slabIndex, sizeClass);
+            return chunks.freeChunks.poll();
+        }
+
+        // Evict the least recently used entry of this size class
+        Iterator<String> iterator = chunks.lru.keySet().iterator();
+        if (iterator.hasNext()) {
+            evict(iterator.next());
+            address = chunks.freeChunks.poll();
+            if (address != null) {
+                return address;
+            }
+        }
+
+        // Nothing of this size class to evict, take a slab over from another size class
+        if (!reassignSlab(sizeClass)) {
+            return -1;
+        }
+        return chunks.freeChunks.poll();
+    }
+
+    /**
+     * Splits the slab into the chunks of the size class, the lock must be held.
+     */
+    private void assignSlab(int slabIndex, int sizeClass) {
+        SizeClass chunks = sizeClasses[sizeClass];
+        for (int offset = 0; offset < SLAB_SIZE; offset += chunks.chunkSize) {
+            chunks.freeChunks.add(toAddress(slabIndex, offset));
+        }
+        chunks.slabCount++;
+    }
+
+    /**
+     * Takes a slab over from the size class holding the most slabs, the lock must be held.
+     * <p>
+     * The slab holding the least recently used entry of that size class is chosen, and all the entries in
+     * it are evicted.
+     *
+     * @param sizeClass size class index taking the slab over
+     * @return true if a slab is taken over, false if no other size class holds a slab
+     */
+    private boolean reassignSlab(int sizeClass) {
+        SizeClass victim = null;
+        for (int i = 0; i < sizeClasses.length; i++) {
+            if (i != sizeClass && sizeClasses[i].slabCount > 0
+                && (victim == null || sizeClasses[i].slabCount > victim.slabCount)) {
+                victim = sizeClasses[i];
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+
+        // A size class without any entry has all its chunks free
+        Iterator<Slot> eldest = victim.lru.values().iterator();
+        int slabIndex = slabIndexOf(eldest.hasNext() ? eldest.next().address : victim.freeChunks.element());
+
+        List<String> evictedKeys = new ArrayList<>();
+        victim.lru.forEach((key, slot) -> {
+            if (slabIndexOf(slot.address) == slabIndex) {
+                evictedKeys.add(key);
+            }
+        });
+        evictedKeys.forEach(this::evict);
+
+        victim.freeChunks.removeIf(address -> slabIndexOf(address) == slabIndex);
+        victim.slabCount--;
+
+        assignSlab(slabIndex, sizeClass);
+        log.debug("Reassigned slab: [{}] to size class of [{}] bytes, [{}] entries evicted",
+            slabIndex, sizeClasses[sizeClass].chunkSize, evictedKeys.size());
+        return true;
+    }
+
+    /**
+     * Evicts the entry for capacity, the lock must be held.
+     */
+    private void evict(@NonNull String key) {
+        remove(key);
+        evictionCount.incrementAndGet();
+        evicted(key);
+        log.debug("Evicted the cache: [{}] for capacity", key);
+    }
+
+    /**
+     * Removes the entry and releases its chunk, the lock must be held.
+     */
+    private void remove(@NonNull String key) {
+        Slot slot = index.remove(key);
+        if (slot == null) {
+            return;
+        }
+
+        SizeClass chunks = sizeClasses[slot.sizeClass];
+        chunks.lru.remove(key);
+        chunks.freeChunks.push(slot.address);
+
+        if (slot.expireAt > 0) {
+            expiryIndex.cancel(key);
+        }
+    }
+
+    private static boolean isExpired(@NonNull Slot slot, long now) {
+        return slot.expireAt > 0 && slot.expireAt <= now;
+    }
+
+    private static int sizeClassOf(int length) {
+        if (length <= MIN_CHUNK_SIZE) {
+            return 0;
+        }
+        // Smallest power of 2 not less than the length
+        return Integer.SIZE - Integer.numberOfLeadingZeros(length - 1) - MIN_CHUNK_SHIFT;
+    }
+
+    private static long toAddress(int slabIndex, int offset) {
+        return ((long) slabIndex << Integer.SIZE) | offset;
+    }
+
+    private static int slabIndexOf(long address) {
+        return (int) (address >>> Integer.SIZE);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    /**
+     * Chunks of the same size.
+     */
+    private static class SizeClass {
+
+        private final int chunkSize;
+
+        private final Deque<Long> freeChunks = new ArrayDeque<>();
+
+        /**
+         * Count of the slabs assigned to this size class.
+         */
+        private int slabCount;
+
+        /**
+         * Entries of this size class in access order.
+         */
+        private final LinkedHashMap<String, Slot> lru = new LinkedHashMap<>(16, 0.75f, true);
+
+        private SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * Location and metadata of an entry.
+     */
+    private static class Slot {
+
+        private final int sizeClass;
+
+        private final long address;
+
+        private final int length;
+
+        private final long createAt;
+
+        private final long expireAt;
+
+        private Slot(int sizeClass, long address, int length, long createAt, long expireAt) {
+            this.sizeClass = sizeClass;
+            this.address = address;
+            this.length = length;
+            this.createAt = createAt;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * Cache cleaner.
+     */
+    private class CacheExpiryCleaner implements Runnable {
+
+        @Override
+        public void run() {
+            long now = System.currentTimeMillis();
+
+            List<String> expiredKeys = expiryIndex.pollExpired(now);
+            if (expiredKeys.isEmpty()) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                expiredKeys.forEach(key -> {
+                    // The key may have been put again, so check the expiration again
+                    Slot slot = index.get(key);
+                    if (slot != null && isExpired(slot, now)) {
+                        remove(key);
+                        expired(key);
+                        log.debug("Deleted the cache: [{}] for expiration", key);
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package run.halo.app.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Redis cache invalidation bus based on redis pub/sub.
+ * 基于redis发布订阅的失效消息总线
+ */
+@Slf4j
+public class RedisCacheInvalidationBus implements CacheInvalidationBus {
+
+    /**
+     * Default channel of the invalidation messages.
+     */
+    private final static String DEFAULT_CHANNEL = "halo_cache_invalidation";
+
+    /**
+     * Delay before subscribing again after the connection is broken. (ms)
+     */
+    private final static long RESUBSCRIBE_DELAY = 5000;
+
+    private final JedisCluster redis;
+
+    private final String channel;
+
+    private final List<Consumer<String>> subscribers = new CopyOnWriteArrayList<>();
+
+    private final JedisPubSub pubSub = new JedisPubSub() {
+        @Override
+        public void onMessage(String channel, String message) {
+            subscribers.forEach(subscriber -> subscriber.accept(message));
+        }
+    };
+
+    private final Thread subscriberThread;
+
+    private volatile boolean closed = false;
+
+    public RedisCacheInvalidationBus(@NonNull JedisCluster redis) {
+        this(redis, DEFAULT_CHANNEL);
+    }
+
+    public RedisCacheInvalidationBus(@NonNull JedisCluster redis, @NonNull String channel) {
+        Assert.notNull(redis, "Redis must not be null");
+        Assert.hasText(channel, "Channel must not be blank");
+        this.redis = redis;
+        this.channel = channel;
+
+        // Subscribing blocks the thread
+        subscriberThread = new Thread(this::receive, "cache-invalidation-subscriber");
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+    }
+
+    @Override
+    public void publish(String message) {
+        Assert.notNull(message, "Invalidation message must not be null");
+
+        try {
+            redis.publish(channel, message);
+        } catch (Exception e) {
+            log.warn("Failed to publish cache invalidation message: [{}]", message, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> subscriber) {
+        Assert.notNull(subscriber, "Subscriber must not be null");
+
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (pubSub.isSubscribed()) {
+            pubSub.unsubscribe();
+        }
+        subscriberThread.interrupt();
+        subscribers.clear();
+    }
+
+    private void receive() {
+        while (!closed) {
+            try {
+                redis.subscribe(pubSub, channel);
+            } catch (Exception e) {
+                if (closed) {
+                    return;
+                }
+                log.warn("Cache invalidation subscription is broken, subscribe again later", e);
+            }
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(RESUBSCRIBE_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
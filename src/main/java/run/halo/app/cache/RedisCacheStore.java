@@ -5,32 +5,51 @@ import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
-import redis.clients.jedis.HostAndPort;
-import redis.clients.jedis.JedisCluster;
-import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.*;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
 import run.halo.app.config.properties.HaloProperties;
 import run.halo.app.utils.JsonUtils;
 
 import javax.annotation.PreDestroy;
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
 
 /**
  * Redis cache store.
+ * <p>
+ * The region generations are cached locally, a node incrementing a generation tells the other nodes to
+ * read it from redis again, and a local generation is read again after a short time in case the message is
+ * lost.
  *
  * @author chaos
  */
 @Slf4j
 public class RedisCacheStore extends AbstractStringCacheStore {
+
+    /**
+     * Prefix of the keys of the region generations, they never expire.
+     */
+    private final static String GENERATION_KEY_PREFIX = "halo_cache_region_generation:";
+
     /**
-     * Cache container.
+     * Channel of the incremented region names.
      */
-    private final static ConcurrentHashMap<String, CacheWrapper<String>> CACHE_CONTAINER = new ConcurrentHashMap<>();
+    private final static String GENERATION_CHANNEL = "halo_cache_region_generation";
+
+    /**
+     * Max time of using a generation read from redis. (ms)
+     */
+    private final static long GENERATION_CHECK_INTERVAL = 1000;
+
+    /**
+     * Reply of a successful SET command.
+     */
+    private final static String OK = "OK";
+
     // volatile从代码层面控制并发同步
     private volatile static JedisCluster REDIS;
     protected HaloProperties haloProperties;
@@ -39,9 +58,19 @@ public class RedisCacheStore extends AbstractStringCacheStore {
      */
     private Lock lock = new ReentrantLock();
 
+    /**
+     * Region generations read from redis or incremented by this node.
+     */
+    private final Map<String, LocalGeneration> generations = new ConcurrentHashMap<>();
+
+    private final CacheInvalidationBus generationBus;
+
     public RedisCacheStore(HaloProperties haloProperties) {
         this.haloProperties = haloProperties;
         initRedis();
+
+        this.generationBus = new RedisCacheInvalidationBus(redis(), GENERATION_CHANNEL);
+        this.generationBus.subscribe(generations::remove);
     }
 
     private void initRedis() {
@@ -86,6 +115,16 @@ public class RedisCacheStore extends AbstractStringCacheStore {
         return REDIS;
     }
 
+    /**
+     * Creates an invalidation bus based on the pub/sub of this redis cluster.
+     *
+     * @return redis cache invalidation bus
+     */
+    @NotNull
+    public CacheInvalidationBus createInvalidationBus() {
+        return new RedisCacheInvalidationBus(redis());
+    }
+
     @NotNull
     @Override
     Optional<CacheWrapper<String>> getInternal(@NotNull String key) {
@@ -96,14 +135,12 @@ public class RedisCacheStore extends AbstractStringCacheStore {
 
     @Override
     void putInternal(@NotNull String key, @NotNull CacheWrapper<String> cacheWrapper) {
-        putInternalIfAbsent(key, cacheWrapper);
+        Assert.hasText(key, "Cache key must not be blank");
+        Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
         try {
-            REDIS.set(key, JsonUtils.objectToJson(cacheWrapper));
-            Date ttl = cacheWrapper.getExpireAt();
-            if (ttl != null) {
-                REDIS.pexpireAt(key, ttl.getTime());
-            }
-        } catch (Exception e) {
+            // Set the value and the expiration in one round trip
+            REDIS.set(key, JsonUtils.objectToJson(cacheWrapper), buildSetParams(cacheWrapper));
+        } catch (JsonProcessingException e) {
             log.warn("Put cache fail json2object key: [{}] value:[{}]", key, cacheWrapper);
         }
     }
@@ -113,14 +150,11 @@ public class RedisCacheStore extends AbstractStringCacheStore {
         Assert.hasText(key, "Cache key must not be blank");
         Assert.notNull(cacheWrapper, "Cache wrapper must not be null");
         try {
-            if (REDIS.setnx(key, JsonUtils.objectToJson(cacheWrapper)) <= 0) {
+            // SET NX PX is atomic, the key won't be left without expiration
+            if (!OK.equals(REDIS.set(key, JsonUtils.objectToJson(cacheWrapper), buildSetParams(cacheWrapper).nx()))) {
                 log.warn("Failed to put the cache, because the key: [{}] has been present already", key);
                 return false;
             }
-            Date ttl = cacheWrapper.getExpireAt();
-            if (ttl != null) {
-                REDIS.pexpireAt(key, ttl.getTime());
-            }
             return true;
         } catch (JsonProcessingException e) {
             log.warn("Put cache fail json2object key: [{}] value:[{}]", key, cacheWrapper);
@@ -130,13 +164,157 @@ public class RedisCacheStore extends AbstractStringCacheStore {
     }
 
     @Override
-    public void delete(@NotNull String key) {
+    void deleteInternal(@NotNull String key) {
         Assert.hasText(key, "Cache key must not be blank");
         REDIS.del(key);
         log.debug("Removed key: [{}]", key);
     }
 
+    @NotNull
+    @Override
+    Map<String, CacheWrapper<String>> getAllInternal(@NotNull Collection<String> keys) {
+        Assert.notNull(keys, "Cache keys must not be null");
+
+        Map<String, CacheWrapper<String>> cacheWrappers = new LinkedHashMap<>(keys.size());
+        pipelined(keys, Pipeline::get).forEach((key, v) -> {
+            if (!StringUtils.isEmpty(v)) {
+                jsonToCacheWrapper(v).ifPresent(cacheWrapper -> cacheWrappers.put(key, cacheWrapper));
+            }
+        });
+        return cacheWrappers;
+    }
+
+    @Override
+    void putAllInternal(@NotNull Map<String, CacheWrapper<String>> cacheWrappers) {
+        Assert.notNull(cacheWrappers, "Cache wrappers must not be null");
+
+        Map<String, String> values = new HashMap<>(cacheWrappers.size());
+        cacheWrappers.forEach((key, cacheWrapper) -> {
+            try {
+                values.put(key, JsonUtils.objectToJson(cacheWrapper));
+            } catch (JsonProcessingException e) {
+                log.warn("Put cache fail json2object key: [{}] value:[{}]", key, cacheWrapper);
+            }
+        });
+
+        pipelined(values.keySet(), (pipeline, key) -> pipeline.set(key, values.get(key), buildSetParams(cacheWrappers.get(key))));
+    }
+
+    @Override
+    long getGeneration(@NotNull String region) {
+        long now = System.currentTimeMillis();
+
+        LocalGeneration localGeneration = generations.get(region);
+        if (localGeneration != null && now - localGeneration.checkedAt < GENERATION_CHECK_INTERVAL) {
+            return localGeneration.generation;
+        }
+
+        String generation = REDIS.get(GENERATION_KEY_PREFIX + region);
+        return updateGeneration(region, StringUtils.isEmpty(generation) ? 0 : Long.parseLong(generation), now);
+    }
+
+    @Override
+    long incrementGeneration(@NotNull String region) {
+        // INCR is atomic across the nodes
+        long generation = updateGeneration(region, REDIS.incr(GENERATION_KEY_PREFIX + region), System.currentTimeMillis());
+        generationBus.publish(region);
+        return generation;
+    }
+
+    /**
+     * Updates the local generation, which never goes back since the generations only increase.
+     *
+     * @return the local generation after updating
+     */
+    private long updateGeneration(@NotNull String region, long generation, long checkedAt) {
+        return generations.merge(region, new LocalGeneration(generation, checkedAt),
+            (present, updated) -> updated.generation >= present.generation ? updated : present).generation;
+    }
+
+    @Override
+    void deleteAllInternal(@NotNull Collection<String> keys) {
+        Assert.notNull(keys, "Cache keys must not be null");
+
+        pipelined(keys, Pipeline::del);
+        log.debug("Removed keys: [{}]", keys);
+    }
+
+    /**
+     * Runs the command of every key in one pipeline per cluster node.
+     *
+     * @param keys    cache keys must not be null
+     * @param command command to run in the pipeline must not be null
+     * @param <R>     result type
+     * @return results of the keys
+     */
+    @NotNull
+    private <R> Map<String, R> pipelined(@NotNull Collection<String> keys,
+                                         @NotNull BiFunction<Pipeline, String, Response<R>> command) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Jedis> connections = new HashMap<>();
+        Map<String, Pipeline> pipelines = new HashMap<>();
+        Map<String, Response<R>> responses = new LinkedHashMap<>(keys.size());
+
+        try {
+            for (String key : keys) {
+                Jedis jedis = redis().getConnectionFromSlot(JedisClusterCRC16.getSlot(key));
+                String node = jedis.getClient().getHost() + ":" + jedis.getClient().getPort();
+
+                Jedis present = connections.putIfAbsent(node, jedis);
+                if (present != null) {
+                    // Return the duplicated connection to the pool
+                    jedis.close();
+                    jedis = present;
+                }
+
+                Pipeline pipeline = pipelines.computeIfAbsent(node, n -> connections.get(n).pipelined());
+                responses.put(key, command.apply(pipeline, key));
+            }
+
+            pipelines.values().forEach(Pipeline::sync);
+        } finally {
+            connections.values().forEach(Jedis::close);
+        }
+
+        Map<String, R> results = new LinkedHashMap<>(responses.size());
+        responses.forEach((key, response) -> results.put(key, response.get()));
+        return results;
+    }
+
+    @NotNull
+    private SetParams buildSetParams(@NotNull CacheWrapper<String> cacheWrapper) {
+        SetParams setParams = SetParams.setParams();
+        Date ttl = cacheWrapper.getExpireAt();
+        if (ttl != null) {
+            // At least 1 ms, or redis rejects the command
+            setParams.px(Math.max(ttl.getTime() - System.currentTimeMillis(), 1));
+        }
+        return setParams;
+    }
+
+    @Override
+    void close() {
+        generationBus.close();
+        generations.clear();
+    }
+
     @PreDestroy
     public void preDestroy() {
+        close();
+    }
+
+    private static class LocalGeneration {
+
+        private final long generation;
+
+        private final long checkedAt;
+
+        private LocalGeneration(long generation, long checkedAt) {
+            this.generation = generation;
+            this.checkedAt = checkedAt;
+        }
     }
 }
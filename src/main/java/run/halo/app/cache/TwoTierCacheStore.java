@@ -0,0 +1,297 @@
+package run.halo.app.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache store.
+ * <p>
+ * Reads are served from a small local (L1) cache in front of a shared (L2) cache store. Every write to the
+ * shared cache store publishes an invalidation message, and the other nodes evict their local copies when
+ * they receive it. Local copies also expire after a short time in case a message is lost.
+ * 两级缓存：本地缓存加上共享缓存（例如redis），写入时通过消息通知其他节点清除本地缓存
+ */
+@Slf4j
+public class TwoTierCacheStore extends AbstractStringCacheStore {
+
+    /**
+     * Delimiter between the node id and the cache key of the invalidation message.
+     */
+    private final static char MESSAGE_DELIMITER = ':';
+
+    /**
+     * Delimiter between the cache keys of the invalidation message.
+     */
+    private final static String KEY_DELIMITER = "\n";
+
+    /**
+     * Prefix of the local keys of the region generations, cache keys never contain the null char.
+     */
+    private final static String GENERATION_KEY_PREFIX = "\u0000generation:";
+
+    private final AbstractStringCacheStore sharedCacheStore;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final long localTtl;
+
+    /**
+     * Count of local evictions, a value loaded before an eviction must not be cached locally.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Local cache in access order, the eldest entry is removed when it is full.
+     */
+    private final Map<String, LocalEntry> localCache;
+
+    /**
+     * Creates a two-tier cache store.
+     *
+     * @param sharedCacheStore shared cache store must not be null
+     * @param invalidationBus  invalidation bus must not be null
+     * @param localMaxEntries  max entry count of the local cache, must be greater than 0
+     * @param localTtl         max time to live of the local copies in milliseconds, must be greater than 0
+     */
+    public TwoTierCacheStore(@NonNull AbstractStringCacheStore sharedCacheStore,
+                             @NonNull CacheInvalidationBus invalidationBus,
+                             int localMaxEntries,
+                             long localTtl) {
+        Assert.notNull(sharedCacheStore, "Shared cache store must not be null");
+        Assert.notNull(invalidationBus, "Invalidation bus must not be null");
+        Assert.isTrue(localMaxEntries > 0, "Local max entries must be greater than 0");
+        Assert.isTrue(localTtl > 0, "Local ttl must be greater than 0");
+
+        this.sharedCacheStore = sharedCacheStore;
+        this.invalidationBus = invalidationBus;
+        this.localTtl = localTtl;
+        this.localCache = new LinkedHashMap<String, LocalEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                return size() > localMaxEntries;
+            }
+        };
+
+        invalidationBus.subscribe(this::onInvalidated);
+    }
+
+    @Override
+    Optional<CacheWrapper<String>> getInternal(String key) {
+        Assert.hasText(key, "Cache key must not be blank");
+
+        long now = System.currentTimeMillis();
+
+        synchronized (localCache) {
+            LocalEntry localEntry = localCache.get(key);
+            if (localEntry != null) {
+                if (localEntry.localExpireAt > now) {
+                    return Optional.of(localEntry.cacheWrapper);
+                }
+                localCache.remove(key);
+            }
+        }
+
+        long evictionsBeforeLoad = evictions.get();
+
+        Optional<CacheWrapper<String>> cacheWrapperOptional = sharedCacheStore.getInternal(key);
+
+        cacheWrapperOptional.ifPresent(cacheWrapper -> {
+            synchronized (localCache) {
+                // Skip it if any key has been invalidated during loading, it may be stale already
+                if (evictions.get() == evictionsBeforeLoad) {
+                    localCache.put(key, new LocalEntry(cacheWrapper, now + localTtl));
+                }
+            }
+        });
+
+        return cacheWrapperOptional;
+    }
+
+    @Override
+    void putInternal(String key, CacheWrapper<String> cacheWrapper) {
+        sharedCacheStore.putInternal(key, cacheWrapper);
+        invalidate(key);
+    }
+
+    @Override
+    Boolean putInternalIfAbsent(String key, CacheWrapper<String> cacheWrapper) {
+        Boolean result = sharedCacheStore.putInternalIfAbsent(key, cacheWrapper);
+        if (Boolean.TRUE.equals(result)) {
+            invalidate(key);
+        }
+        return result;
+    }
+
+    @Override
+    void deleteInternal(String key) {
+        sharedCacheStore.deleteInternal(key);
+        invalidate(key);
+    }
+
+    @Override
+    Map<String, CacheWrapper<String>> getAllInternal(Collection<String> keys) {
+        Assert.notNull(keys, "Cache keys must not be null");
+
+        long now = System.currentTimeMillis();
+        Map<String, CacheWrapper<String>> cacheWrappers = new LinkedHashMap<>(keys.size());
+        List<String> missingKeys = new LinkedList<>();
+
+        synchronized (localCache) {
+            keys.forEach(key -> {
+                LocalEntry localEntry = localCache.get(key);
+                if (localEntry != null && localEntry.localExpireAt > now) {
+                    cacheWrappers.put(key, localEntry.cacheWrapper);
+                } else {
+                    missingKeys.add(key);
+                }
+            });
+        }
+
+        if (missingKeys.isEmpty()) {
+            return cacheWrappers;
+        }
+
+        long evictionsBeforeLoad = evictions.get();
+
+        Map<String, CacheWrapper<String>> loaded = sharedCacheStore.getAllInternal(missingKeys);
+
+        synchronized (localCache) {
+            // Skip them if any key has been invalidated during loading, they may be stale already
+            if (evictions.get() == evictionsBeforeLoad) {
+                loaded.forEach((key, cacheWrapper) -> localCache.put(key, new LocalEntry(cacheWrapper, now + localTtl)));
+            }
+        }
+
+        cacheWrappers.putAll(loaded);
+        return cacheWrappers;
+    }
+
+    @Override
+    void putAllInternal(Map<String, CacheWrapper<String>> cacheWrappers) {
+        sharedCacheStore.putAllInternal(cacheWrappers);
+        invalidate(cacheWrappers.keySet());
+    }
+
+    @Override
+    void deleteAllInternal(Collection<String> keys) {
+        sharedCacheStore.deleteAllInternal(keys);
+        invalidate(keys);
+    }
+
+    @Override
+    long getGeneration(String region) {
+        String generationKey = GENERATION_KEY_PREFIX + region;
+        long now = System.currentTimeMillis();
+
+        synchronized (localCache) {
+            LocalEntry localEntry = localCache.get(generationKey);
+            if (localEntry != null && localEntry.localExpireAt > now) {
+                return Long.parseLong(localEntry.cacheWrapper.getData());
+            }
+        }
+
+        long evictionsBeforeLoad = evictions.get();
+
+        long generation = sharedCacheStore.getGeneration(region);
+
+        synchronized (localCache) {
+            if (evictions.get() == evictionsBeforeLoad) {
+                CacheWrapper<String> cacheWrapper = new CacheWrapper<>(String.valueOf(generation), null, new Date(now));
+                localCache.put(generationKey, new LocalEntry(cacheWrapper, now + localTtl));
+            }
+        }
+
+        return generation;
+    }
+
+    @Override
+    long incrementGeneration(String region) {
+        long generation = sharedCacheStore.incrementGeneration(region);
+        // The other nodes read the generation from the shared cache store again
+        invalidate(GENERATION_KEY_PREFIX + region);
+        return generation;
+    }
+
+    @Override
+    double entryCount() {
+        synchronized (localCache) {
+            return localCache.size();
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        invalidationBus.close();
+        // The shared cache store is not a bean, so it's not destroyed by the container
+        sharedCacheStore.close();
+        synchronized (localCache) {
+            localCache.clear();
+        }
+    }
+
+    /**
+     * Evicts the local copy and notifies the other nodes.
+     *
+     * @param key cache key must not be blank
+     */
+    private void invalidate(@NonNull String key) {
+        invalidate(Collections.singleton(key));
+    }
+
+    /**
+     * Evicts the local copies and notifies the other nodes in one message.
+     *
+     * @param keys cache keys must not be null
+     */
+    private void invalidate(@NonNull Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        keys.forEach(this::evictLocal);
+        invalidationBus.publish(nodeId + MESSAGE_DELIMITER + String.join(KEY_DELIMITER, keys));
+    }
+
+    private void onInvalidated(@NonNull String message) {
+        int index = message.indexOf(MESSAGE_DELIMITER);
+        if (index < 0) {
+            log.warn("Ignored malformed cache invalidation message: [{}]", message);
+            return;
+        }
+
+        if (nodeId.equals(message.substring(0, index))) {
+            // Published by this node, the local copy has been evicted already
+            return;
+        }
+
+        for (String key : message.substring(index + 1).split(KEY_DELIMITER)) {
+            evictLocal(key);
+            log.debug("Evicted local cache: [{}] invalidated by the other node", key);
+        }
+    }
+
+    private void evictLocal(@NonNull String key) {
+        synchronized (localCache) {
+            evictions.incrementAndGet();
+            localCache.remove(key);
+        }
+    }
+
+    private static class LocalEntry {
+
+        private final CacheWrapper<String> cacheWrapper;
+
+        private final long localExpireAt;
+
+        private LocalEntry(CacheWrapper<String> cacheWrapper, long localExpireAt) {
+            this.cacheWrapper = cacheWrapper;
+            this.localExpireAt = localExpireAt;
+        }
+    }
+}
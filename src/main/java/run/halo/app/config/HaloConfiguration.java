@@ -12,15 +12,20 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.client.RestTemplate;
 import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.BoundedInMemoryCacheStore;
+import run.halo.app.cache.CacheRegion;
 import run.halo.app.cache.InMemoryCacheStore;
 import run.halo.app.cache.LevelCacheStore;
+import run.halo.app.cache.OffHeapCacheStore;
 import run.halo.app.cache.RedisCacheStore;
+import run.halo.app.cache.TwoTierCacheStore;
 import run.halo.app.config.properties.HaloProperties;
 import run.halo.app.utils.HttpClientUtils;
 
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Halo configuration.
@@ -61,8 +66,24 @@ public class HaloConfiguration {
             case "level":
                 stringCacheStore = new LevelCacheStore();
                 break;
+            case "memory-bounded":
+                stringCacheStore = new BoundedInMemoryCacheStore(haloProperties.getCacheMemoryMaxEntries(),
+                    haloProperties.getCacheMemoryMaxWeight());
+                break;
+            case "offheap":
+                stringCacheStore = new OffHeapCacheStore(haloProperties.getCacheOffheapCapacity());
+                break;
             case "redis":
-                stringCacheStore = new RedisCacheStore(this.haloProperties);
+                RedisCacheStore redisCacheStore = new RedisCacheStore(this.haloProperties);
+                if (haloProperties.isCacheRedisLocalEnabled()) {
+                    // Local cache in front of redis
+                    stringCacheStore = new TwoTierCacheStore(redisCacheStore,
+                        redisCacheStore.createInvalidationBus(),
+                        haloProperties.getCacheRedisLocalMaxEntries(),
+                        haloProperties.getCacheRedisLocalTtl().toMillis());
+                } else {
+                    stringCacheStore = redisCacheStore;
+                }
                 break;
             case "memory":
                 // 这里没写
@@ -72,6 +93,14 @@ public class HaloConfiguration {
                 break;
 
         }
+
+        // Regions can be cleared at once
+        stringCacheStore.registerRegion(CacheRegion.THEMES, 0, TimeUnit.MILLISECONDS, 64);
+        stringCacheStore.registerRegion(CacheRegion.RENDER, haloProperties.getCacheRenderTtl().toMillis(),
+            TimeUnit.MILLISECONDS, haloProperties.getCacheRenderMaxEntries());
+        stringCacheStore.registerRegion(CacheRegion.PAGE, haloProperties.getPageCacheTtl().toMillis(),
+            TimeUnit.MILLISECONDS, haloProperties.getPageCacheMaxEntries());
+
         log.info("halo cache store load impl : [{}]", stringCacheStore.getClass());
         return stringCacheStore;
 
@@ -16,9 +16,11 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewResolverRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+import org.springframework.web.servlet.i18n.FixedLocaleResolver;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
 import org.springframework.web.servlet.view.freemarker.FreeMarkerViewResolver;
@@ -151,6 +153,12 @@ public class WebMvcAutoConfiguration extends WebMvcConfigurationSupport {
         if (haloProperties.isProductionEnv()) {
             // 如果是生产环境，还加上错误处理的Handler
             configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+
+            // Never check the template files, they are invalidated by the theme template watcher
+            configuration.setTemplateUpdateDelayMilliseconds(Long.MAX_VALUE);
+        } else {
+            // Reload the edited templates on the next request
+            configuration.setTemplateUpdateDelayMilliseconds(0);
         }
 
         // Set predefined freemarker configuration  最后还是换到Spring中的管理
@@ -160,22 +168,49 @@ public class WebMvcAutoConfiguration extends WebMvcConfigurationSupport {
     }
 
     /**
-     * Configuring view resolver
+     * Configuring freemarker view resolver.
+     * <p>
+     * The resolved views are cached in production mode and cleared by the theme template watcher.
      *
-     * @param registry registry
+     * @return new FreeMarkerViewResolver
      */
-    @Override
-    public void configureViewResolvers(ViewResolverRegistry registry) {
+    @Bean
+    public FreeMarkerViewResolver freeMarkerViewResolver() {
         // 通过freemarker的视图处理
         FreeMarkerViewResolver resolver = new FreeMarkerViewResolver();
         resolver.setAllowRequestOverride(false);
-        resolver.setCache(false);
+        resolver.setCache(haloProperties.isProductionEnv());
         resolver.setExposeRequestAttributes(false);
         resolver.setExposeSessionAttributes(false);
         resolver.setExposeSpringMacroHelpers(true);
         resolver.setSuffix(HaloConst.SUFFIX_FTL);
         resolver.setContentType("text/html; charset=UTF-8");
-        registry.viewResolver(resolver);
+        return resolver;
+    }
+
+    /**
+     * Configuring locale resolver.
+     * <p>
+     * Templates are cached per locale, so the views are rendered with the locale of the freemarker
+     * configuration instead of the accept language of every request, which is the locale the templates are
+     * warmed up with.
+     *
+     * @param freeMarkerConfigurer freemarker configurer
+     * @return new FixedLocaleResolver
+     */
+    @Bean
+    public LocaleResolver localeResolver(FreeMarkerConfigurer freeMarkerConfigurer) {
+        return new FixedLocaleResolver(freeMarkerConfigurer.getConfiguration().getLocale());
+    }
+
+    /**
+     * Configuring view resolver
+     *
+     * @param registry registry
+     */
+    @Override
+    public void configureViewResolvers(ViewResolverRegistry registry) {
+        registry.viewResolver(freeMarkerViewResolver());
     }
 
     @Override
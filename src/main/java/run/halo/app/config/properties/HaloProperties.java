@@ -6,6 +6,8 @@ import run.halo.app.model.enums.Mode;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static run.halo.app.model.support.HaloConst.*;
 import static run.halo.app.utils.HaloUtils.ensureSuffix;
@@ -77,13 +79,92 @@ public class HaloProperties {
     /**
      * cache store impl 缓存的模式
      * memory
+     * memory-bounded
+     * offheap
      * level
+     * redis
      */
     private String cache = "memory";
 
+    /**
+     * Max entry count of the bounded memory cache store, 0 means no limit of entry count.
+     */
+    private long cacheMemoryMaxEntries = 100000;
+
+    /**
+     * Max estimated bytes of the bounded memory cache store, 0 means no limit of bytes.
+     */
+    private long cacheMemoryMaxWeight = 64 * 1024 * 1024;
+
+    /**
+     * Max bytes of the direct memory of the off-heap cache store.
+     */
+    private long cacheOffheapCapacity = 128 * 1024 * 1024;
+
     private ArrayList<String> cacheRedisNodes = new ArrayList<>();
 
     private String cacheRedisPassword = "";
 
+    /**
+     * Whether to cache redis values locally, peer nodes are notified through redis pub/sub on writes.
+     */
+    private boolean cacheRedisLocalEnabled = false;
+
+    /**
+     * Max entry count of the local cache in front of redis.
+     */
+    private int cacheRedisLocalMaxEntries = 1000;
+
+    /**
+     * Max time to live of the local copies, in case an invalidation message is lost.
+     */
+    private Duration cacheRedisLocalTtl = Duration.ofSeconds(60);
+
+    /**
+     * Default time to live of the entries of the render cache region.
+     */
+    private Duration cacheRenderTtl = Duration.ofDays(1);
+
+    /**
+     * Max entry count of the render cache region put by this node.
+     */
+    private int cacheRenderMaxEntries = 10000;
+
+    /**
+     * Thread count of rendering the contents while re-rendering all of them.
+     */
+    private int contentRenderParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Whether to cache the pages rendered for anonymous visitors.
+     */
+    private boolean pageCacheEnabled = false;
+
+    /**
+     * Default time to live of the cached pages.
+     */
+    private Duration pageCacheTtl = Duration.ofMinutes(10);
+
+    /**
+     * Max entry count of the cached pages put by this node.
+     */
+    private int pageCacheMaxEntries = 10000;
+
+    /**
+     * Time to live of the cached pages by ant path pattern, the first matched pattern wins.
+     */
+    private Map<String, Duration> pageCacheRouteTtls = new LinkedHashMap<>();
+
+    /**
+     * Whether to count the visits of posts and sheets while rendering them, for the themes not including the
+     * footer macros. Otherwise the visits are reported by the beacon script in the footer macros.
+     */
+    private boolean visitCountedOnRender = false;
+
+    /**
+     * Interval of writing the accumulated visits and likes of posts to the database.
+     */
+    private Duration postCounterFlushInterval = Duration.ofSeconds(10);
+
 
 }
@@ -0,0 +1,35 @@
+package run.halo.app.controller.admin.api;
+
+import io.swagger.annotations.ApiOperation;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import run.halo.app.model.dto.RenderProgressDTO;
+import run.halo.app.service.ContentRenderService;
+
+/**
+ * Content render controller.
+ */
+@RestController
+@RequestMapping("/api/admin/contents/render")
+public class ContentRenderController {
+
+    private final ContentRenderService contentRenderService;
+
+    public ContentRenderController(ContentRenderService contentRenderService) {
+        this.contentRenderService = contentRenderService;
+    }
+
+    @PostMapping
+    @ApiOperation("Re-renders all posts, sheets and journals in the background")
+    public RenderProgressDTO rerenderAll() {
+        return contentRenderService.rerenderAll();
+    }
+
+    @GetMapping("progress")
+    @ApiOperation("Gets the progress of re-rendering")
+    public RenderProgressDTO getProgress() {
+        return contentRenderService.getRerenderProgress();
+    }
+}
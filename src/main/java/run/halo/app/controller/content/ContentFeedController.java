@@ -3,32 +3,27 @@ package run.halo.app.controller.content;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.RegExUtils;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
-import run.halo.app.model.dto.CategoryDTO;
-import run.halo.app.model.entity.Category;
-import run.halo.app.model.entity.Post;
+import run.halo.app.model.dto.post.BasePostMinimalDTO;
 import run.halo.app.model.enums.PostStatus;
-import run.halo.app.model.vo.PostDetailVO;
-import run.halo.app.service.CategoryService;
-import run.halo.app.service.OptionService;
-import run.halo.app.service.PostCategoryService;
+import run.halo.app.model.support.CachedFeed;
+import run.halo.app.service.FeedService;
 import run.halo.app.service.PostService;
+import run.halo.app.service.SitemapService;
+import run.halo.app.utils.FreemarkerUtils;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
 
@@ -44,119 +39,102 @@ public class ContentFeedController {
 
     private final static String UTF_8_SUFFIX = ";charset=UTF-8";
 
-    private final static String XML_INVAID_CHAR = "[\\x00-\\x1F\\x7F]";
-
     private final static String XML_MEDIA_TYPE = MediaType.APPLICATION_XML_VALUE + UTF_8_SUFFIX;
 
-    private final PostService postService;
+    private final static String TEXT_MEDIA_TYPE = MediaType.TEXT_PLAIN_VALUE + UTF_8_SUFFIX;
 
-    private final CategoryService categoryService;
+    private final PostService postService;
 
-    private final PostCategoryService postCategoryService;
+    private final FeedService feedService;
 
-    private final OptionService optionService;
+    private final SitemapService sitemapService;
 
     private final FreeMarkerConfigurer freeMarker;
 
     public ContentFeedController(PostService postService,
-                                 CategoryService categoryService,
-                                 PostCategoryService postCategoryService,
-                                 OptionService optionService,
+                                 FeedService feedService,
+                                 SitemapService sitemapService,
                                  FreeMarkerConfigurer freeMarker) {
         this.postService = postService;
-        this.categoryService = categoryService;
-        this.postCategoryService = postCategoryService;
-        this.optionService = optionService;
+        this.feedService = feedService;
+        this.sitemapService = sitemapService;
         this.freeMarker = freeMarker;
     }
 
     /**
      * Get post rss
      *
-     * @param model model
-     * @return rss xml content
-     * @throws IOException       throw IOException
-     * @throws TemplateException throw TemplateException
+     * @return rss xml content, or not modified
      */
     @GetMapping(value = {"feed", "feed.xml", "rss", "rss.xml"}, produces = XML_MEDIA_TYPE)
-    @ResponseBody
-    public String feed(Model model) throws IOException, TemplateException {
-        model.addAttribute("posts", buildPosts(buildPostPageable(optionService.getRssPageSize())));
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/rss.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public ResponseEntity<String> feed() {
+        return buildFeedResponse(feedService.getRss(null));
     }
 
     /**
      * Get category post rss.
      *
-     * @param model model
-     * @param slug  slug
-     * @return rss xml content
-     * @throws IOException       throw IOException
-     * @throws TemplateException throw TemplateException
+     * @param slug slug
+     * @return rss xml content, or not modified
      */
     @GetMapping(value = {"feed/categories/{slug}", "feed/categories/{slug}.xml"}, produces = XML_MEDIA_TYPE)
-    @ResponseBody
-    public String feed(Model model, @PathVariable(name = "slug") String slug) throws IOException, TemplateException {
-        Category category = categoryService.getBySlugOfNonNull(slug);
-        CategoryDTO categoryDTO = categoryService.convertTo(category);
-        model.addAttribute("category", categoryDTO);
-        model.addAttribute("posts", buildCategoryPosts(buildPostPageable(optionService.getRssPageSize()), categoryDTO));
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/rss.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public ResponseEntity<String> feed(@PathVariable(name = "slug") String slug) {
+        return buildFeedResponse(feedService.getRss(slug));
     }
 
     /**
      * Get atom.xml
      *
-     * @param model model
-     * @return atom xml content
-     * @throws IOException       IOException
-     * @throws TemplateException TemplateException
+     * @return atom xml content, or not modified
      */
     @GetMapping(value = {"atom", "atom.xml"}, produces = XML_MEDIA_TYPE)
-    @ResponseBody
-    public String atom(Model model) throws IOException, TemplateException {
-        model.addAttribute("posts", buildPosts(buildPostPageable(optionService.getRssPageSize())));
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/atom.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public ResponseEntity<String> atom() {
+        return buildFeedResponse(feedService.getAtom(null));
     }
 
     /**
      * Get category posts atom.xml
      *
-     * @param model model
-     * @param slug  slug
-     * @return atom xml content
-     * @throws IOException       throw IOException
-     * @throws TemplateException throw TemplateException
+     * @param slug slug
+     * @return atom xml content, or not modified
      */
     @GetMapping(value = {"atom/categories/{slug}", "atom/categories/{slug}.xml"}, produces = XML_MEDIA_TYPE)
-    @ResponseBody
-    public String atom(Model model, @PathVariable(name = "slug") String slug) throws IOException, TemplateException {
-        Category category = categoryService.getBySlugOfNonNull(slug);
-        CategoryDTO categoryDTO = categoryService.convertTo(category);
-        model.addAttribute("category", categoryDTO);
-        model.addAttribute("posts", buildCategoryPosts(buildPostPageable(optionService.getRssPageSize()), categoryDTO));
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/atom.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public ResponseEntity<String> atom(@PathVariable(name = "slug") String slug) {
+        return buildFeedResponse(feedService.getAtom(slug));
     }
 
     /**
-     * Get sitemap.xml.
+     * Get sitemap.xml, which is the sitemap index.
      *
-     * @param model model
-     * @return sitemap xml content.
-     * @throws IOException       IOException
-     * @throws TemplateException TemplateException
+     * @return sitemap index xml content
      */
     @GetMapping(value = {"sitemap", "sitemap.xml"}, produces = XML_MEDIA_TYPE)
     @ResponseBody
-    public String sitemapXml(Model model,
-                             @PageableDefault(size = Integer.MAX_VALUE, sort = "createTime", direction = DESC) Pageable pageable) throws IOException, TemplateException {
-        model.addAttribute("posts", buildPosts(pageable));
-        Template template = freeMarker.getConfiguration().getTemplate("common/web/sitemap_xml.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public String sitemapXml() {
+        return sitemapService.getIndex();
+    }
+
+    /**
+     * Get the sitemap of the sheets, categories and tags.
+     *
+     * @return sitemap xml content
+     */
+    @GetMapping(value = "sitemap/pages.xml", produces = XML_MEDIA_TYPE)
+    @ResponseBody
+    public String sitemapPagesXml() {
+        return sitemapService.getPages();
+    }
+
+    /**
+     * Get a sitemap of the posts.
+     *
+     * @param page page number starts from 1
+     * @return sitemap xml content
+     */
+    @GetMapping(value = "sitemap/posts-{page:\\d+}.xml", produces = XML_MEDIA_TYPE)
+    @ResponseBody
+    public String sitemapPostsXml(@PathVariable("page") Integer page) {
+        return sitemapService.getPosts(page);
     }
 
     /**
@@ -168,71 +146,48 @@ public class ContentFeedController {
     @GetMapping(value = "sitemap.html")
     public String sitemapHtml(Model model,
                               @PageableDefault(size = Integer.MAX_VALUE, sort = "createTime", direction = DESC) Pageable pageable) {
-        model.addAttribute("posts", buildPosts(pageable));
+        model.addAttribute("posts", buildSitemapPosts(pageable));
         return "common/web/sitemap_html";
     }
 
     /**
      * Get robots.txt
      *
-     * @param model model
-     * @return robots.txt content
+     * @param model    model
+     * @param response http servlet response
      * @throws IOException       IOException
      * @throws TemplateException TemplateException
      */
     @GetMapping(value = "robots.txt", produces = MediaType.TEXT_PLAIN_VALUE)
-    @ResponseBody
-    public String robots(Model model) throws IOException, TemplateException {
+    public void robots(Model model, HttpServletResponse response) throws IOException, TemplateException {
         Template template = freeMarker.getConfiguration().getTemplate("common/web/robots.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+        FreemarkerUtils.process(template, model, TEXT_MEDIA_TYPE, response);
     }
 
     /**
-     * Builds page info for post.
+     * Builds the feed response, which spring answers with 304 if the feed is not modified since the client
+     * fetched it.
      *
-     * @param size page size
-     * @return page info
+     * @param feed cached feed must not be null
+     * @return feed response
      */
     @NonNull
-    private Pageable buildPostPageable(int size) {
-        return PageRequest.of(0, size, Sort.by(DESC, "createTime"));
+    private ResponseEntity<String> buildFeedResponse(@NonNull CachedFeed feed) {
+        return ResponseEntity.ok()
+            .eTag(feed.getEntityTag())
+            .lastModified(feed.getLastModified())
+            .body(feed.getContent());
     }
 
     /**
-     * Build posts.
+     * Build posts for sitemap, the content is not loaded.
      *
-     * @param pageable pageable
-     * @return list of post detail vo
+     * @param pageable pageable must not be null
+     * @return list of post minimal dto
      */
-    private List<PostDetailVO> buildPosts(@NonNull Pageable pageable) {
+    private List<BasePostMinimalDTO> buildSitemapPosts(@NonNull Pageable pageable) {
         Assert.notNull(pageable, "Pageable must not be null");
 
-        Page<Post> postPage = postService.pageBy(PostStatus.PUBLISHED, pageable);
-        Page<PostDetailVO> posts = postService.convertToDetailVo(postPage);
-        posts.getContent().forEach(postDetailVO -> {
-            postDetailVO.setFormatContent(RegExUtils.replaceAll(postDetailVO.getFormatContent(), XML_INVAID_CHAR, ""));
-            postDetailVO.setSummary(RegExUtils.replaceAll(postDetailVO.getSummary(), XML_INVAID_CHAR, ""));
-        });
-        return posts.getContent();
-    }
-
-    /**
-     * Build category posts.
-     *
-     * @param pageable pageable must not be null.
-     * @param category category
-     * @return list of post detail vo.
-     */
-    private List<PostDetailVO> buildCategoryPosts(@NonNull Pageable pageable, @NonNull CategoryDTO category) {
-        Assert.notNull(pageable, "Pageable must not be null");
-        Assert.notNull(category, "Category slug must not be null");
-
-        Page<Post> postPage = postCategoryService.pagePostBy(category.getId(), PostStatus.PUBLISHED, pageable);
-        Page<PostDetailVO> posts = postService.convertToDetailVo(postPage);
-        posts.getContent().forEach(postDetailVO -> {
-            postDetailVO.setFormatContent(RegExUtils.replaceAll(postDetailVO.getFormatContent(), XML_INVAID_CHAR, ""));
-            postDetailVO.setSummary(RegExUtils.replaceAll(postDetailVO.getSummary(), XML_INVAID_CHAR, ""));
-        });
-        return posts.getContent();
+        return postService.convertToMinimal(postService.pageBriefBy(PostStatus.PUBLISHED, pageable).getContent());
     }
 }
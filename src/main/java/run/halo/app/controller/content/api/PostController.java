@@ -7,6 +7,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.HtmlUtils;
 import run.halo.app.cache.lock.CacheLock;
@@ -54,7 +55,7 @@ public class PostController {
     @GetMapping
     @ApiOperation("Lists posts")
     public Page<PostListVO> pageBy(@PageableDefault(sort = "createTime", direction = DESC) Pageable pageable) {
-        Page<Post> postPage = postService.pageBy(PostStatus.PUBLISHED, pageable);
+        Page<Post> postPage = postService.pageBriefBy(PostStatus.PUBLISHED, pageable);
         return postService.convertToListVo(postPage);
     }
 
@@ -139,4 +140,12 @@ public class PostController {
     public void like(@PathVariable("postId") Integer postId) {
         postService.increaseLike(postId);
     }
+
+    @PostMapping("{postId:\\d+}/visits")
+    @ApiOperation("Reports a visit of a post")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void visit(@PathVariable("postId") Integer postId) {
+        // Visits of missing, draft and recycled ones are dropped while flushing the counters
+        postService.publishVisitEvent(postId);
+    }
 }
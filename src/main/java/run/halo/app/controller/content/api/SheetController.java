@@ -7,6 +7,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.HtmlUtils;
 import run.halo.app.cache.lock.CacheLock;
@@ -52,7 +53,7 @@ public class SheetController {
     @GetMapping
     @ApiOperation("Lists sheets")
     public Page<SheetListVO> pageBy(@PageableDefault(sort = "createTime", direction = DESC) Pageable pageable) {
-        Page<Sheet> sheetPage = sheetService.pageBy(PostStatus.PUBLISHED, pageable);
+        Page<Sheet> sheetPage = sheetService.pageBriefBy(PostStatus.PUBLISHED, pageable);
         return sheetService.convertToListVo(sheetPage);
     }
 
@@ -119,4 +120,12 @@ public class SheetController {
         sheetCommentParam.setContent(HtmlUtils.htmlEscape(sheetCommentParam.getContent(), StandardCharsets.UTF_8.displayName()));
         return sheetCommentService.convertTo(sheetCommentService.createBy(sheetCommentParam));
     }
+
+    @PostMapping("{sheetId:\\d+}/visits")
+    @ApiOperation("Reports a visit of a sheet")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void visit(@PathVariable("sheetId") Integer sheetId) {
+        // Visits of missing, draft and recycled ones are dropped while flushing the counters
+        sheetService.publishVisitEvent(sheetId);
+    }
 }
@@ -8,6 +8,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 import org.springframework.ui.Model;
 import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.config.properties.HaloProperties;
 import run.halo.app.exception.ForbiddenException;
 import run.halo.app.model.entity.Category;
 import run.halo.app.model.entity.Post;
@@ -20,7 +21,7 @@ import run.halo.app.model.vo.AdjacentPostVO;
 import run.halo.app.model.vo.ArchiveYearVO;
 import run.halo.app.model.vo.PostListVO;
 import run.halo.app.service.*;
-import run.halo.app.utils.MarkdownUtils;
+import run.halo.app.service.support.MarkdownRenderer;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -52,6 +53,10 @@ public class PostModel {
 
     private final AbstractStringCacheStore cacheStore;
 
+    private final HaloProperties haloProperties;
+
+    private final MarkdownRenderer markdownRenderer;
+
     public PostModel(PostService postService,
                      ThemeService themeService,
                      PostCategoryService postCategoryService,
@@ -60,7 +65,9 @@ public class PostModel {
                      PostTagService postTagService,
                      TagService tagService,
                      OptionService optionService,
-                     AbstractStringCacheStore cacheStore) {
+                     AbstractStringCacheStore cacheStore,
+                     HaloProperties haloProperties,
+                     MarkdownRenderer markdownRenderer) {
         this.postService = postService;
         this.themeService = themeService;
         this.postCategoryService = postCategoryService;
@@ -70,6 +77,8 @@ public class PostModel {
         this.tagService = tagService;
         this.optionService = optionService;
         this.cacheStore = cacheStore;
+        this.haloProperties = haloProperties;
+        this.markdownRenderer = markdownRenderer;
     }
 
     public String content(Post post, String token, Model model) {
@@ -88,13 +97,18 @@ public class PostModel {
                 throw new ForbiddenException("您没有该文章的访问权限");
             }
             if (post.getEditorType().equals(PostEditorType.MARKDOWN)) {
-                post.setFormatContent(MarkdownUtils.renderHtml(post.getOriginalContent()));
+                post.setFormatContent(markdownRenderer.render(post.getOriginalContent()));
             } else {
                 post.setFormatContent(post.getOriginalContent());
             }
         }
 
-        postService.publishVisitEvent(post.getId());
+        if (haloProperties.isVisitCountedOnRender()) {
+            postService.publishVisitEvent(post.getId());
+        } else {
+            // The visit will be reported by the beacon script in the footer macros
+            model.addAttribute("visit_beacon_url", buildVisitBeaconUrl(post.getId()));
+        }
 
         AdjacentPostVO adjacentPostVO = postService.getAdjacentPosts(post);
         adjacentPostVO.getOptionalPrevPost().ifPresent(prevPost -> model.addAttribute("prevPost", postService.convertToDetailVo(prevPost)));
@@ -137,7 +151,7 @@ public class PostModel {
         Pageable pageable = PageRequest
             .of(page >= 1 ? page - 1 : page, pageSize, postService.getPostDefaultSort());
 
-        Page<Post> postPage = postService.pageBy(PostStatus.PUBLISHED, pageable);
+        Page<Post> postPage = postService.pageBriefBy(PostStatus.PUBLISHED, pageable);
         Page<PostListVO> posts = postService.convertToListVo(postPage);
 
         model.addAttribute("is_index", true);
@@ -152,7 +166,7 @@ public class PostModel {
         Pageable pageable = PageRequest
             .of(page >= 1 ? page - 1 : page, pageSize, Sort.by(Sort.Direction.DESC, "createTime"));
 
-        Page<Post> postPage = postService.pageBy(PostStatus.PUBLISHED, pageable);
+        Page<Post> postPage = postService.pageBriefBy(PostStatus.PUBLISHED, pageable);
 
         Page<PostListVO> posts = postService.convertToListVo(postPage);
 
@@ -165,4 +179,15 @@ public class PostModel {
         model.addAttribute("meta_description", optionService.getSeoDescription());
         return themeService.render("archives");
     }
+
+    /**
+     * Builds the url of the visit beacon of the post.
+     *
+     * @param postId post id
+     * @return visit beacon url
+     */
+    private String buildVisitBeaconUrl(Integer postId) {
+        String prefix = optionService.isEnabledAbsolutePath() ? optionService.getBlogBaseUrl() : "";
+        return prefix + "/api/content/posts/" + postId + "/visits";
+    }
 }
@@ -4,6 +4,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.ui.Model;
 import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.config.properties.HaloProperties;
 import run.halo.app.exception.ForbiddenException;
 import run.halo.app.model.entity.Sheet;
 import run.halo.app.model.entity.SheetMeta;
@@ -15,7 +16,7 @@ import run.halo.app.service.OptionService;
 import run.halo.app.service.SheetMetaService;
 import run.halo.app.service.SheetService;
 import run.halo.app.service.ThemeService;
-import run.halo.app.utils.MarkdownUtils;
+import run.halo.app.service.support.MarkdownRenderer;
 
 import java.util.List;
 
@@ -38,16 +39,24 @@ public class SheetModel {
 
     private final OptionService optionService;
 
+    private final HaloProperties haloProperties;
+
+    private final MarkdownRenderer markdownRenderer;
+
     public SheetModel(SheetService sheetService,
                       SheetMetaService sheetMetaService,
                       AbstractStringCacheStore cacheStore,
                       ThemeService themeService,
-                      OptionService optionService) {
+                      OptionService optionService,
+                      HaloProperties haloProperties,
+                      MarkdownRenderer markdownRenderer) {
         this.sheetService = sheetService;
         this.sheetMetaService = sheetMetaService;
         this.cacheStore = cacheStore;
         this.themeService = themeService;
         this.optionService = optionService;
+        this.haloProperties = haloProperties;
+        this.markdownRenderer = markdownRenderer;
     }
 
     /**
@@ -70,13 +79,18 @@ public class SheetModel {
             }
             // render markdown to html when preview sheet
             if (sheet.getEditorType().equals(PostEditorType.MARKDOWN)) {
-                sheet.setFormatContent(MarkdownUtils.renderHtml(sheet.getOriginalContent()));
+                sheet.setFormatContent(markdownRenderer.render(sheet.getOriginalContent()));
             } else {
                 sheet.setFormatContent(sheet.getOriginalContent());
             }
         }
 
-        sheetService.publishVisitEvent(sheet.getId());
+        if (haloProperties.isVisitCountedOnRender()) {
+            sheetService.publishVisitEvent(sheet.getId());
+        } else {
+            // The visit will be reported by the beacon script in the footer macros
+            model.addAttribute("visit_beacon_url", buildVisitBeaconUrl(sheet.getId()));
+        }
 
         SheetDetailVO sheetDetailVO = sheetService.convertToDetailVo(sheet);
 
@@ -107,4 +121,15 @@ public class SheetModel {
         }
         return themeService.render("sheet");
     }
+
+    /**
+     * Builds the url of the visit beacon of the sheet.
+     *
+     * @param sheetId sheet id
+     * @return visit beacon url
+     */
+    private String buildVisitBeaconUrl(Integer sheetId) {
+        String prefix = optionService.isEnabledAbsolutePath() ? optionService.getBlogBaseUrl() : "";
+        return prefix + "/api/content/sheets/" + sheetId + "/visits";
+    }
 }
@@ -0,0 +1,118 @@
+package run.halo.app.core.freemarker;
+
+import freemarker.template.Configuration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import run.halo.app.event.theme.ThemeActivatedEvent;
+import run.halo.app.handler.theme.config.support.ThemeProperty;
+import run.halo.app.model.support.HaloConst;
+import run.halo.app.model.support.ThemeFile;
+import run.halo.app.service.ThemeService;
+import run.halo.app.theme.ThemeFileScanner;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Template warm up health indicator.
+ * <p>
+ * The templates of the activated theme and the auto imported macros are parsed in parallel into the
+ * template cache after the application is ready and after a theme is activated, so the first visitors do
+ * not pay for parsing them. The health stays out of service until the first warm up is finished, which
+ * keeps a restarted node out of the load balancer in the meantime.
+ * 启动和启用主题时预先解析模板
+ */
+@Slf4j
+@Component
+public class TemplateWarmUpHealthIndicator implements HealthIndicator {
+
+    private final Configuration configuration;
+
+    private final ThemeService themeService;
+
+    private volatile Health health = Health.outOfService().withDetail("reason", "Templates are warming up").build();
+
+    public TemplateWarmUpHealthIndicator(Configuration configuration, ThemeService themeService) {
+        this.configuration = configuration;
+        this.themeService = themeService;
+    }
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    @Async
+    @EventListener
+    public synchronized void onApplicationReady(ApplicationReadyEvent event) {
+        warmUp();
+    }
+
+    @Async
+    @EventListener
+    public synchronized void onThemeActivated(ThemeActivatedEvent event) {
+        warmUp();
+    }
+
+    private void warmUp() {
+        long startTime = System.currentTimeMillis();
+        AtomicInteger failed = new AtomicInteger();
+
+        List<String> templateNames = new ArrayList<>(configuration.getAutoImports().values());
+        try {
+            themeService.fetchActivatedTheme().ifPresent(theme -> collectTemplateNames(theme, templateNames));
+        } catch (Exception e) {
+            log.warn("Failed to list the templates of the activated theme", e);
+        }
+
+        templateNames.parallelStream().forEach(templateName -> {
+            try {
+                // Templates are cached per locale, the views are rendered with the configuration locale
+                configuration.getTemplate(templateName, configuration.getLocale());
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.warn("Failed to warm up template: [{}], {}", templateName, e.getMessage());
+            }
+        });
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        log.info("Warmed up [{}] templates in [{}] ms, [{}] failed", templateNames.size(), elapsed, failed.get());
+
+        health = Health.up()
+            .withDetail("templates", templateNames.size())
+            .withDetail("failed", failed.get())
+            .withDetail("elapsed", elapsed)
+            .build();
+    }
+
+    private void collectTemplateNames(@NonNull ThemeProperty theme, @NonNull List<String> templateNames) {
+        Path themePath = Paths.get(theme.getThemePath());
+        String namePrefix = "themes/" + theme.getFolderName() + "/";
+
+        collectTemplateNames(ThemeFileScanner.INSTANCE.scan(theme.getThemePath()), themePath, namePrefix, templateNames);
+    }
+
+    private void collectTemplateNames(@NonNull List<ThemeFile> themeFiles,
+                                      @NonNull Path themePath,
+                                      @NonNull String namePrefix,
+                                      @NonNull List<String> templateNames) {
+        for (ThemeFile themeFile : themeFiles) {
+            if (themeFile.getNode() != null) {
+                collectTemplateNames(themeFile.getNode(), themePath, namePrefix, templateNames);
+            } else if (themeFile.getIsFile() && themeFile.getName().endsWith(HaloConst.SUFFIX_FTL)) {
+                // Template names are relative to the template folder and separated by '/'
+                String relativePath = themePath.relativize(Paths.get(themeFile.getPath())).toString();
+                templateNames.add(namePrefix + relativePath.replace('\\', '/'));
+            }
+        }
+    }
+}
@@ -47,7 +47,7 @@ public class PostTagDirective implements TemplateDirectiveModel {
             switch (method) {
                 case "latest":
                     int top = Integer.parseInt(params.get("top").toString());
-                    env.setVariable("posts", builder.build().wrap(postService.convertToListVo(postService.listLatest(top))));
+                    env.setVariable("posts", builder.build().wrap(postService.convertToListVo(postService.listLatestBrief(top))));
                     break;
                 case "count":
                     env.setVariable("count", builder.build().wrap(postService.countByStatus(PostStatus.PUBLISHED)));
@@ -0,0 +1,31 @@
+package run.halo.app.core.markdown;
+
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+
+/**
+ * Embed node of a shortcode.
+ */
+public class Embed extends Node {
+
+    private final String html;
+
+    public Embed(BasedSequence chars, String html) {
+        super(chars);
+        this.html = html;
+    }
+
+    /**
+     * Gets the rendered html of the embed.
+     *
+     * @return html of the embed
+     */
+    public String getHtml() {
+        return html;
+    }
+
+    @Override
+    public BasedSequence[] getSegments() {
+        return EMPTY_SEGMENTS;
+    }
+}
@@ -0,0 +1,52 @@
+package run.halo.app.core.markdown;
+
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.data.MutableDataHolder;
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+/**
+ * Flexmark extension rendering the embed shortcodes like {@code [bilibili:aid,width,height]} in the same
+ * parse pass as the rest of the markdown.
+ * 在解析 markdown 时渲染音乐、视频等短代码
+ */
+public class EmbedExtension implements Parser.ParserExtension, HtmlRenderer.HtmlRendererExtension {
+
+    private final EmbedProviderRegistry registry;
+
+    private EmbedExtension(EmbedProviderRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Creates the extension.
+     *
+     * @param registry embed provider registry must not be null, providers may be registered later
+     * @return embed extension
+     */
+    @NonNull
+    public static EmbedExtension create(@NonNull EmbedProviderRegistry registry) {
+        Assert.notNull(registry, "Embed provider registry must not be null");
+
+        return new EmbedExtension(registry);
+    }
+
+    @Override
+    public void parserOptions(MutableDataHolder options) {
+    }
+
+    @Override
+    public void extend(Parser.Builder parserBuilder) {
+        parserBuilder.customInlineParserExtensionFactory(new EmbedInlineParserExtension.Factory(registry));
+    }
+
+    @Override
+    public void rendererOptions(MutableDataHolder options) {
+    }
+
+    @Override
+    public void extend(HtmlRenderer.Builder htmlRendererBuilder, String rendererType) {
+        htmlRendererBuilder.nodeRendererFactory(new EmbedNodeRenderer.Factory());
+    }
+}
@@ -0,0 +1,96 @@
+package run.halo.app.core.markdown;
+
+import com.vladsch.flexmark.parser.InlineParser;
+import com.vladsch.flexmark.parser.InlineParserExtension;
+import com.vladsch.flexmark.parser.InlineParserExtensionFactory;
+import com.vladsch.flexmark.parser.LightInlineParser;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inline parser of the embed shortcodes, which are resolved while parsing instead of rewriting the markdown.
+ * Shortcodes in code spans and code blocks are not parsed as embeds.
+ */
+public class EmbedInlineParserExtension implements InlineParserExtension {
+
+    private final static Pattern SHORTCODE_PATTERN = Pattern.compile("\\[([a-zA-Z][\\w-]*):([^\\]\\r\\n]*)\\]");
+
+    private final EmbedProviderRegistry registry;
+
+    public EmbedInlineParserExtension(EmbedProviderRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void finalizeDocument(InlineParser inlineParser) {
+    }
+
+    @Override
+    public void finalizeBlock(InlineParser inlineParser) {
+    }
+
+    @Override
+    public boolean parse(LightInlineParser inlineParser) {
+        BasedSequence input = inlineParser.getInput();
+        int index = inlineParser.getIndex();
+
+        Matcher matcher = SHORTCODE_PATTERN.matcher(input);
+        matcher.region(index, input.length());
+        if (!matcher.lookingAt()) {
+            return false;
+        }
+
+        EmbedProvider provider = registry.get(matcher.group(1));
+        if (provider == null) {
+            // Leave it to the link parser
+            return false;
+        }
+
+        String html = provider.render(matcher.group(2));
+        if (html == null) {
+            return false;
+        }
+
+        inlineParser.flushTextNode();
+        inlineParser.getBlock().appendChild(new Embed(input.subSequence(matcher.start(), matcher.end()), html));
+        inlineParser.setIndex(matcher.end());
+        return true;
+    }
+
+    public static class Factory implements InlineParserExtensionFactory {
+
+        private final EmbedProviderRegistry registry;
+
+        public Factory(EmbedProviderRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public CharSequence getCharacters() {
+            return "[";
+        }
+
+        @Override
+        public InlineParserExtension apply(LightInlineParser lightInlineParser) {
+            return new EmbedInlineParserExtension(registry);
+        }
+
+        @Override
+        public Set<Class<?>> getAfterDependents() {
+            return null;
+        }
+
+        @Override
+        public Set<Class<?>> getBeforeDependents() {
+            return null;
+        }
+
+        @Override
+        public boolean affectsGlobalScope() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package run.halo.app.core.markdown;
+
+import com.vladsch.flexmark.html.renderer.NodeRenderer;
+import com.vladsch.flexmark.html.renderer.NodeRendererFactory;
+import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.util.data.DataHolder;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Renderer writing the html of the embeds as it is.
+ */
+public class EmbedNodeRenderer implements NodeRenderer {
+
+    @Override
+    public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
+        return Collections.singleton(
+            new NodeRenderingHandler<>(Embed.class, (node, context, html) -> html.raw(node.getHtml())));
+    }
+
+    public static class Factory implements NodeRendererFactory {
+
+        @Override
+        public NodeRenderer apply(DataHolder options) {
+            return new EmbedNodeRenderer();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package run.halo.app.core.markdown;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Provider of the embeds written as {@code [name:arguments]} in markdown.
+ *
+ * @see EmbedProviderRegistry
+ */
+public interface EmbedProvider {
+
+    /**
+     * Gets the name of the shortcode, e.g. music for {@code [music:28391863]}.
+     *
+     * @return shortcode name
+     */
+    @NonNull
+    String getName();
+
+    /**
+     * Renders the embed.
+     *
+     * @param arguments arguments after the colon
+     * @return html of the embed or null if the arguments are invalid, then the shortcode is kept as text
+     */
+    @Nullable
+    String render(@NonNull String arguments);
+}
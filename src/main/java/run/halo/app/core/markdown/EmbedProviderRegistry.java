@@ -0,0 +1,81 @@
+package run.halo.app.core.markdown;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the embed providers, keyed by shortcode name.
+ *
+ * @see EmbedExtension
+ */
+public class EmbedProviderRegistry {
+
+    private final Map<String, EmbedProvider> providers = new ConcurrentHashMap<>();
+
+    private volatile String fingerprint = "";
+
+    /**
+     * Bumped on every change, a provider may be replaced by another one of the same name and type.
+     */
+    private long version;
+
+    /**
+     * Registers the embed provider, replacing the provider of the same name.
+     *
+     * @param provider embed provider must not be null
+     */
+    public void register(@NonNull EmbedProvider provider) {
+        Assert.notNull(provider, "Embed provider must not be null");
+        Assert.hasText(provider.getName(), "Embed provider name must not be blank");
+
+        providers.put(provider.getName(), provider);
+        updateFingerprint();
+    }
+
+    /**
+     * Unregisters the embed provider.
+     *
+     * @param name shortcode name must not be null
+     */
+    public void unregister(@NonNull String name) {
+        Assert.notNull(name, "Embed provider name must not be null");
+
+        providers.remove(name);
+        updateFingerprint();
+    }
+
+    /**
+     * Gets the embed provider.
+     *
+     * @param name shortcode name must not be null
+     * @return embed provider or null if it is not registered
+     */
+    @Nullable
+    public EmbedProvider get(@NonNull String name) {
+        return providers.get(name);
+    }
+
+    /**
+     * Gets the fingerprint of the registered providers, which changes when a provider is registered or
+     * unregistered.
+     *
+     * @return version, names and types of the providers
+     */
+    @NonNull
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    private synchronized void updateFingerprint() {
+        version++;
+        fingerprint = version + ":" + providers.entrySet().stream()
+            .map(entry -> entry.getKey() + '=' + entry.getValue().getClass().getName())
+            .sorted()
+            .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,49 @@
+package run.halo.app.core.markdown;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embed provider rendering a template, in which $n refers to the nth group of the arguments pattern.
+ */
+public class TemplateEmbedProvider implements EmbedProvider {
+
+    private final String name;
+
+    private final Pattern argumentsPattern;
+
+    private final String template;
+
+    public TemplateEmbedProvider(@NonNull String name, @NonNull String argumentsRegex, @NonNull String template) {
+        Assert.hasText(name, "Embed name must not be blank");
+        Assert.hasText(argumentsRegex, "Arguments regex must not be blank");
+        Assert.notNull(template, "Template must not be null");
+
+        this.name = name;
+        this.argumentsPattern = Pattern.compile(argumentsRegex);
+        this.template = template;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @Nullable
+    public String render(@NonNull String arguments) {
+        Matcher matcher = argumentsPattern.matcher(arguments);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        StringBuffer html = new StringBuffer(template.length() + arguments.length());
+        matcher.appendReplacement(html, template);
+        return html.toString();
+    }
+}
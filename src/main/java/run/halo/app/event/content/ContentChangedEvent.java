@@ -0,0 +1,31 @@
+package run.halo.app.event.content;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.lang.NonNull;
+
+/**
+ * Content changed event, published once after the transaction changing the rendered contents commits.
+ */
+public class ContentChangedEvent extends ApplicationEvent {
+
+    /**
+     * Type of the first changed entity.
+     */
+    private final Class<?> contentType;
+
+    /**
+     * Create a new ApplicationEvent.
+     *
+     * @param source      the object on which the event initially occurred (never {@code null})
+     * @param contentType type of the changed entity must not be null
+     */
+    public ContentChangedEvent(Object source, @NonNull Class<?> contentType) {
+        super(source);
+        this.contentType = contentType;
+    }
+
+    @NonNull
+    public Class<?> getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,306 @@
+package run.halo.app.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UriUtils;
+import org.springframework.web.util.UrlPathHelper;
+import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.CacheRegion;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.service.ThemeService;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static run.halo.app.model.support.HaloConst.*;
+import static run.halo.app.utils.HaloUtils.ensureBoth;
+
+/**
+ * Full page cache of the pages rendered for anonymous visitors.
+ * <p>
+ * Only successful html responses of GET requests without any credential or unknown query parameter are
+ * cached, keyed by the activated theme, path and sorted query parameters. Pages are stored as plain strings, decoded with the charset of the
+ * response, instead of as json with a base64 body, and skip the shared deserialized tier, so a cached page
+ * is held once. The cached pages are evicted by
+ * {@link run.halo.app.listener.content.PageCacheInvalidationListener}.
+ * 匿名访问页面的整页缓存
+ */
+@Slf4j
+@Component
+@Order(0)
+public class PageCacheFilter extends OncePerRequestFilter {
+
+    /**
+     * Response header telling whether the page is served from cache.
+     */
+    public final static String CACHE_STATUS_HEADER_NAME = "X-Halo-Cache";
+
+    /**
+     * Query parameter of the one time token to read intimate posts.
+     */
+    private final static String TOKEN_QUERY_NAME = "token";
+
+    /**
+     * Query parameters read by the cached routes, pages requested with any other parameter are not cached.
+     */
+    private final static Set<String> CACHE_KEY_PARAMETER_NAMES = new HashSet<>(Arrays.asList("page", "size", "sort", "keyword"));
+
+    /**
+     * Delimiter of the charset, content type and body of a cached page.
+     */
+    private final static char PAGE_DELIMITER = '\n';
+
+    private final HaloProperties haloProperties;
+
+    private final AbstractStringCacheStore cacheStore;
+
+    private final ThemeService themeService;
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final List<String> excludeUrlPatterns;
+
+    public PageCacheFilter(HaloProperties haloProperties,
+                           AbstractStringCacheStore cacheStore,
+                           ThemeService themeService) {
+        this.haloProperties = haloProperties;
+        this.cacheStore = cacheStore;
+        this.themeService = themeService;
+        this.excludeUrlPatterns = Arrays.asList(
+            ensureBoth(haloProperties.getAdminPath(), URL_SEPARATOR) + "**",
+            ensureBoth(haloProperties.getUploadUrlPrefix(), URL_SEPARATOR) + "**",
+            "/api/**",
+            "/themes/**",
+            "/install",
+            "/version",
+            "/js/**",
+            "/css/**");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!haloProperties.isPageCacheEnabled()
+            || !HttpMethod.GET.matches(request.getMethod())
+            || hasCredential(request)
+            || hasUnknownParameter(request)) {
+            return true;
+        }
+
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return isStaticResource(path)
+            || excludeUrlPatterns.stream().anyMatch(pattern -> antPathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = urlPathHelper.getPathWithinApplication(request);
+
+        long timeout = getTimeout(path);
+        if (timeout <= 0) {
+            // Page cache is disabled for this route
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CacheRegion region = cacheStore.region(CacheRegion.PAGE);
+        String cacheKey = buildCacheKey(request);
+
+        Optional<CachedPage> cachedPageOptional = region.get(cacheKey).flatMap(CachedPage::parse);
+        if (cachedPageOptional.isPresent()) {
+            log.debug("Page cache hit: [{}]", cacheKey);
+            writeCachedPage(cachedPageOptional.get(), response);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+
+        filterChain.doFilter(request, responseWrapper);
+
+        if (!request.isAsyncStarted() && isCacheable(responseWrapper)) {
+            Charset charset = getCharset(responseWrapper);
+            if (charset != null) {
+                String cachedPage = CachedPage.format(charset, responseWrapper.getContentType(), responseWrapper.getContentAsByteArray());
+
+                region.put(cacheKey, cachedPage, timeout, TimeUnit.MILLISECONDS);
+                log.debug("Page cached: [{}], bytes: [{}]", cacheKey, responseWrapper.getContentSize());
+            }
+        }
+
+        if (!responseWrapper.isCommitted()) {
+            responseWrapper.setHeader(CACHE_STATUS_HEADER_NAME, "MISS");
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private boolean hasCredential(@NonNull HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.AUTHORIZATION) != null
+            || request.getHeader(ADMIN_TOKEN_HEADER_NAME) != null
+            || request.getHeader(API_ACCESS_KEY_HEADER_NAME) != null
+            || request.getParameter(ADMIN_TOKEN_QUERY_NAME) != null
+            || request.getParameter(API_ACCESS_KEY_QUERY_NAME) != null
+            || request.getParameter(TOKEN_QUERY_NAME) != null;
+    }
+
+    private boolean hasUnknownParameter(@NonNull HttpServletRequest request) {
+        return !CACHE_KEY_PARAMETER_NAMES.containsAll(request.getParameterMap().keySet());
+    }
+
+    /**
+     * Checks if the path points to a static file, which is not worth buffering.
+     *
+     * @param path request path
+     * @return true if the last segment has an extension other than html
+     */
+    private boolean isStaticResource(@NonNull String path) {
+        String lastSegment = StringUtils.substringAfterLast(path, URL_SEPARATOR);
+        String extension = StringUtils.substringAfterLast(lastSegment, ".");
+        return StringUtils.isNotEmpty(extension)
+            && !"html".equalsIgnoreCase(extension)
+            && !"htm".equalsIgnoreCase(extension);
+    }
+
+    /**
+     * Gets the time to live of the page.
+     *
+     * @param path request path
+     * @return time to live in milliseconds, 0 means the page must not be cached
+     */
+    private long getTimeout(@NonNull String path) {
+        for (Map.Entry<String, Duration> routeTtl : haloProperties.getPageCacheRouteTtls().entrySet()) {
+            if (antPathMatcher.match(routeTtl.getKey(), path)) {
+                return routeTtl.getValue().toMillis();
+            }
+        }
+        return haloProperties.getPageCacheTtl().toMillis();
+    }
+
+    /**
+     * Builds the cache key of the page, the parameters are sorted and encoded, so the same query in another
+     * order or encoding hits the same page.
+     *
+     * @param request http servlet request must not be null
+     * @return cache key
+     */
+    @NonNull
+    private String buildCacheKey(@NonNull HttpServletRequest request) {
+        StringBuilder keyBuilder = new StringBuilder(themeService.getActivatedThemeId())
+            .append(':')
+            .append(request.getRequestURI());
+
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : parameter.getValue()) {
+                keyBuilder.append(separator)
+                    .append(parameter.getKey())
+                    .append('=')
+                    .append(UriUtils.encode(value, StandardCharsets.UTF_8));
+                separator = '&';
+            }
+        }
+        return keyBuilder.toString();
+    }
+
+    private boolean isCacheable(@NonNull ContentCachingResponseWrapper response) {
+        if (response.getStatus() != HttpServletResponse.SC_OK
+            || response.containsHeader(HttpHeaders.SET_COOKIE)
+            || response.getContentSize() == 0) {
+            return false;
+        }
+
+        String contentType = response.getContentType();
+        return contentType != null && contentType.startsWith(MediaType.TEXT_HTML_VALUE);
+    }
+
+    @Nullable
+    private Charset getCharset(@NonNull HttpServletResponse response) {
+        try {
+            return Charset.forName(response.getCharacterEncoding());
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            log.debug("Page is not cached, because of the unsupported charset: [{}]", response.getCharacterEncoding());
+            return null;
+        }
+    }
+
+    private void writeCachedPage(@NonNull CachedPage cachedPage, @NonNull HttpServletResponse response) throws IOException {
+        // Encode the body out of the cached value without copying it into another string
+        ByteBuffer body = cachedPage.charset.encode(CharBuffer.wrap(cachedPage.value, cachedPage.bodyIndex, cachedPage.value.length()));
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cachedPage.contentType);
+        response.setContentLength(body.remaining());
+        response.setHeader(CACHE_STATUS_HEADER_NAME, "HIT");
+        response.getOutputStream().write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+    }
+
+    /**
+     * Cached page, formatted as: {charset}\n{content type}\n{body}.
+     */
+    private static class CachedPage {
+
+        private final Charset charset;
+
+        private final String contentType;
+
+        /**
+         * Formatted cache value.
+         */
+        private final String value;
+
+        /**
+         * Index of the body in the cache value.
+         */
+        private final int bodyIndex;
+
+        private CachedPage(@NonNull Charset charset, @NonNull String contentType, @NonNull String value, int bodyIndex) {
+            this.charset = charset;
+            this.contentType = contentType;
+            this.value = value;
+            this.bodyIndex = bodyIndex;
+        }
+
+        @NonNull
+        private static String format(@NonNull Charset charset, @NonNull String contentType, @NonNull byte[] body) {
+            return charset.name() + PAGE_DELIMITER + contentType + PAGE_DELIMITER + new String(body, charset);
+        }
+
+        @NonNull
+        private static Optional<CachedPage> parse(@NonNull String value) {
+            int charsetEnd = value.indexOf(PAGE_DELIMITER);
+            int contentTypeEnd = charsetEnd < 0 ? -1 : value.indexOf(PAGE_DELIMITER, charsetEnd + 1);
+            if (contentTypeEnd < 0) {
+                return Optional.empty();
+            }
+
+            try {
+                return Optional.of(new CachedPage(Charset.forName(value.substring(0, charsetEnd)),
+                    value.substring(charsetEnd + 1, contentTypeEnd), value, contentTypeEnd + 1));
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                return Optional.empty();
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@ import run.halo.app.model.dto.post.BasePostMinimalDTO;
 import run.halo.app.model.entity.*;
 import run.halo.app.model.properties.CommentProperties;
 import run.halo.app.service.*;
+import run.halo.app.utils.HtmlTextExtractor;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -30,6 +31,11 @@ import java.util.Map;
 @Component
 public class CommentEventListener {
 
+    /**
+     * Max length of the journal text used as the page title.
+     */
+    private final static int JOURNAL_TITLE_LENGTH = 50;
+
     private final MailService mailService;
 
     private final OptionService optionService;
@@ -253,7 +259,7 @@ public class CommentEventListener {
                 .append("/")
                 .append(optionService.getJournalsPrefix());
             data.put("pageFullPath", url);
-            data.put("pageTitle", journal.getContent());
+            data.put("pageTitle", HtmlTextExtractor.extractEscapedText(journal.getContent(), JOURNAL_TITLE_LENGTH));
             data.put("baseAuthor", baseComment.getAuthor());
             data.put("baseContent", baseComment.getContent());
             data.put("replyAuthor", journalComment.getAuthor());
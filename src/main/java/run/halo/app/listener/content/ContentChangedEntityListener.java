@@ -0,0 +1,85 @@
+package run.halo.app.listener.content;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import run.halo.app.event.content.ContentChangedEvent;
+import run.halo.app.model.entity.BaseComment;
+import run.halo.app.model.enums.CommentStatus;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener of the entities shown in the rendered pages.
+ * <p>
+ * Changes in one transaction are collapsed into one {@link ContentChangedEvent} published after the
+ * transaction commits, so the pages rendered before the commit won't be cached as fresh ones.
+ * Bulk updates by queries, like increasing the visits, don't notify the entity listeners.
+ * 实体变更监听器，事务提交之后发布一次内容变更事件
+ */
+@Slf4j
+@Component
+public class ContentChangedEntityListener {
+
+    /**
+     * Key of the transaction resource marking the event has been scheduled.
+     */
+    private final static Object SCHEDULED_KEY = new Object();
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ContentChangedEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onPersisted(Object entity) {
+        if (entity instanceof BaseComment && !CommentStatus.PUBLISHED.equals(((BaseComment) entity).getStatus())) {
+            // Comments under auditing are not shown
+            return;
+        }
+        onChanged(entity);
+    }
+
+    @PostUpdate
+    public void onUpdated(Object entity) {
+        onChanged(entity);
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        onChanged(entity);
+    }
+
+    private void onChanged(@NonNull Object entity) {
+        Class<?> contentType = entity.getClass();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(new ContentChangedEvent(this, contentType));
+            return;
+        }
+
+        if (TransactionSynchronizationManager.hasResource(SCHEDULED_KEY)) {
+            // Published once per transaction
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(SCHEDULED_KEY, contentType);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(SCHEDULED_KEY);
+
+                if (status == STATUS_COMMITTED) {
+                    log.debug("Content: [{}] changed", contentType.getSimpleName());
+                    eventPublisher.publishEvent(new ContentChangedEvent(ContentChangedEntityListener.this, contentType));
+                }
+            }
+        });
+    }
+}
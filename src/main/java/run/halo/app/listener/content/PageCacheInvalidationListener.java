@@ -0,0 +1,56 @@
+package run.halo.app.listener.content;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.CacheRegion;
+import run.halo.app.event.content.ContentChangedEvent;
+import run.halo.app.event.options.OptionUpdatedEvent;
+import run.halo.app.event.theme.ThemeActivatedEvent;
+import run.halo.app.event.theme.ThemeUpdatedEvent;
+import run.halo.app.event.user.UserUpdatedEvent;
+
+/**
+ * Page cache invalidation listener.
+ * <p>
+ * A post may be listed by the index, archives, categories, tags and the sidebar of every page, so the
+ * whole page region is cleared instead of tracking which pages show it.
+ * 内容、选项或主题变更时清空页面缓存
+ */
+@Slf4j
+@Component
+public class PageCacheInvalidationListener {
+
+    private final AbstractStringCacheStore cacheStore;
+
+    public PageCacheInvalidationListener(AbstractStringCacheStore cacheStore) {
+        this.cacheStore = cacheStore;
+    }
+
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        log.debug("Clearing page cache for changed content: [{}]", event.getContentType().getSimpleName());
+        cacheStore.clearRegion(CacheRegion.PAGE);
+    }
+
+    @EventListener
+    public void onOptionUpdated(OptionUpdatedEvent event) {
+        cacheStore.clearRegion(CacheRegion.PAGE);
+    }
+
+    @EventListener
+    public void onThemeActivated(ThemeActivatedEvent event) {
+        cacheStore.clearRegion(CacheRegion.PAGE);
+    }
+
+    @EventListener
+    public void onThemeUpdated(ThemeUpdatedEvent event) {
+        cacheStore.clearRegion(CacheRegion.PAGE);
+    }
+
+    @EventListener
+    public void onUserUpdated(UserUpdatedEvent event) {
+        cacheStore.clearRegion(CacheRegion.PAGE);
+    }
+}
@@ -0,0 +1,176 @@
+package run.halo.app.listener.freemarker;
+
+import freemarker.template.Configuration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerViewResolver;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.event.theme.ThemeActivatedEvent;
+import run.halo.app.event.theme.ThemeUpdatedEvent;
+import run.halo.app.handler.theme.config.support.ThemeProperty;
+import run.halo.app.service.ThemeService;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Template cache invalidation listener.
+ * <p>
+ * In production mode the resolved views and the parsed templates are cached without checking the template
+ * files, so they are cleared when a theme is activated or updated, and the folder of the activated theme is
+ * watched for the templates edited on the disk. In development mode nothing is cached and the templates are
+ * reloaded on every request.
+ * 主题变更或主题文件被修改时清空模板缓存
+ */
+@Slf4j
+@Component
+public class TemplateCacheInvalidationListener {
+
+    /**
+     * Quiet period coalescing the file events of one change, such as a theme being uploaded.
+     */
+    private final static long DEBOUNCE_MILLIS = 500;
+
+    private final Configuration configuration;
+
+    private final FreeMarkerViewResolver viewResolver;
+
+    private final ThemeService themeService;
+
+    private final HaloProperties haloProperties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final List<WatchKey> watchKeys = new ArrayList<>();
+
+    private WatchService watchService;
+
+    private Thread watchThread;
+
+    public TemplateCacheInvalidationListener(Configuration configuration,
+                                             FreeMarkerViewResolver viewResolver,
+                                             ThemeService themeService,
+                                             HaloProperties haloProperties,
+                                             ApplicationEventPublisher eventPublisher) {
+        this.configuration = configuration;
+        this.viewResolver = viewResolver;
+        this.themeService = themeService;
+        this.haloProperties = haloProperties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener
+    public synchronized void onApplicationReady(ApplicationReadyEvent event) {
+        if (!haloProperties.isProductionEnv()) {
+            // The templates are checked on every request
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Failed to create watch service, the templates edited on the disk will not be reloaded", e);
+            return;
+        }
+
+        watchThread = new Thread(this::watch, "theme-template-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        watchActivatedTheme();
+    }
+
+    @EventListener
+    public void onThemeActivated(ThemeActivatedEvent event) {
+        invalidate();
+        watchActivatedTheme();
+    }
+
+    @EventListener
+    public void onThemeUpdated(ThemeUpdatedEvent event) {
+        invalidate();
+        // The theme folder may be replaced by the update
+        watchActivatedTheme();
+    }
+
+    @PreDestroy
+    public synchronized void preDestroy() throws IOException {
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void invalidate() {
+        configuration.clearTemplateCache();
+        viewResolver.clearCache();
+        log.debug("Cleared template cache");
+    }
+
+    private synchronized void watchActivatedTheme() {
+        if (watchService == null) {
+            return;
+        }
+
+        watchKeys.forEach(WatchKey::cancel);
+        watchKeys.clear();
+
+        themeService.fetchActivatedTheme()
+            .map(ThemeProperty::getThemePath)
+            .map(Paths::get)
+            .ifPresent(this::watch);
+    }
+
+    private void watch(@NonNull Path themePath) {
+        try {
+            // A watch service only watches the entries of a directory, so register every sub directory
+            Files.walkFileTree(themePath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    watchKeys.add(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            log.debug("Watching theme folder: [{}]", themePath);
+        } catch (IOException | ClosedWatchServiceException e) {
+            log.warn("Failed to watch theme folder: [{}]", themePath, e);
+        }
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WatchKey watchKey = watchService.take();
+                do {
+                    watchKey.pollEvents();
+                    watchKey.reset();
+                    watchKey = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                } while (watchKey != null);
+
+                log.info("Theme files changed on the disk, reloading the theme");
+
+                // Also clears the theme and page caches and watches the created directories
+                eventPublisher.publishEvent(new ThemeUpdatedEvent(this));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (Exception e) {
+                log.error("Failed to reload the theme", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package run.halo.app.listener.post;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import run.halo.app.event.content.ContentChangedEvent;
+import run.halo.app.event.options.OptionUpdatedEvent;
+import run.halo.app.model.entity.BasePost;
+import run.halo.app.model.properties.PostProperties;
+import run.halo.app.service.OptionService;
+import run.halo.app.service.PostService;
+import run.halo.app.service.SheetService;
+import run.halo.app.service.base.BasePostService;
+
+/**
+ * Keeps the summary, word count and reading time generated at write time up to date.
+ * <p>
+ * The posts written before these fields existed are backfilled after the application is ready, and all
+ * generated summaries are regenerated once the summary length option changes.
+ * 回填和重新生成文章的摘要、字数和阅读时长
+ */
+@Slf4j
+@Component
+public class PostGeneratedFieldsListener {
+
+    private final PostService postService;
+
+    private final SheetService sheetService;
+
+    private final OptionService optionService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Summary length of the generated summaries, null before the backfill.
+     */
+    private Integer summaryLength;
+
+    public PostGeneratedFieldsListener(PostService postService,
+                                       SheetService sheetService,
+                                       OptionService optionService,
+                                       ApplicationEventPublisher eventPublisher) {
+        this.postService = postService;
+        this.sheetService = sheetService;
+        this.optionService = optionService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Async
+    @EventListener
+    public synchronized void onApplicationReady(ApplicationReadyEvent event) {
+        summaryLength = getSummaryLength();
+
+        refresh(false);
+    }
+
+    @Async
+    @EventListener
+    public synchronized void onOptionUpdated(OptionUpdatedEvent event) {
+        Integer currentSummaryLength = getSummaryLength();
+        if (summaryLength == null || summaryLength.equals(currentSummaryLength)) {
+            return;
+        }
+
+        log.info("Summary length changed from [{}] to [{}], regenerating summaries", summaryLength, currentSummaryLength);
+        summaryLength = currentSummaryLength;
+
+        refresh(true);
+    }
+
+    private void refresh(boolean all) {
+        try {
+            boolean refreshed = refresh(postService, all) | refresh(sheetService, all);
+
+            if (refreshed) {
+                // Bulk updates bypass the entity listeners
+                eventPublisher.publishEvent(new ContentChangedEvent(this, BasePost.class));
+            }
+        } catch (Exception e) {
+            log.error("Failed to refresh the generated fields of posts", e);
+        }
+    }
+
+    private boolean refresh(@NonNull BasePostService<?> basePostService, boolean all) {
+        boolean refreshed = false;
+
+        // Every batch is committed on its own, with the summary length read here instead of the snapshot
+        Integer lastId = basePostService.refreshGeneratedFields(null, all, summaryLength);
+        while (lastId != null) {
+            refreshed = true;
+            lastId = basePostService.refreshGeneratedFields(lastId, all, summaryLength);
+        }
+
+        return refreshed;
+    }
+
+    @NonNull
+    private Integer getSummaryLength() {
+        // Read the options instead of the snapshot, which may not be refreshed yet
+        return optionService.getByKey(PostProperties.SUMMARY_LENGTH.getValue(), Integer.class).orElse(150);
+    }
+}
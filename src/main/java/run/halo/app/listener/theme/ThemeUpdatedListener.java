@@ -3,9 +3,9 @@ package run.halo.app.listener.theme;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.CacheRegion;
 import run.halo.app.event.options.OptionUpdatedEvent;
 import run.halo.app.event.theme.ThemeUpdatedEvent;
-import run.halo.app.service.ThemeService;
 
 /**
  * Theme updated listener.
@@ -24,11 +24,11 @@ public class ThemeUpdatedListener {
 
     @EventListener
     public void onApplicationEvent(ThemeUpdatedEvent event) {
-        cacheStore.delete(ThemeService.THEMES_CACHE_KEY);
+        cacheStore.clearRegion(CacheRegion.THEMES);
     }
 
     @EventListener
     public void onOptionUpdatedEvent(OptionUpdatedEvent optionUpdatedEvent) {
-        cacheStore.delete(ThemeService.THEMES_CACHE_KEY);
+        cacheStore.clearRegion(CacheRegion.THEMES);
     }
 }
@@ -0,0 +1,27 @@
+package run.halo.app.model.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * Progress of re-rendering all contents.
+ */
+@Data
+public class RenderProgressDTO {
+
+    private Boolean running;
+
+    /**
+     * Count of the markdown posts, sheets and journals to render.
+     */
+    private Long total;
+
+    private Long rendered;
+
+    private Long failed;
+
+    private Date startTime;
+
+    private Date finishTime;
+}
@@ -30,6 +30,10 @@ public class BasePostSimpleDTO extends BasePostMinimalDTO {
 
     private Long likes;
 
+    private Long wordCount;
+
+    private Integer readingTime;
+
     public boolean isTopped() {
         return this.topPriority != null && this.topPriority > 0;
     }
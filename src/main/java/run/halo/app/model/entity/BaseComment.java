@@ -5,6 +5,7 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.GenericGenerator;
+import run.halo.app.listener.content.ContentChangedEntityListener;
 import run.halo.app.model.enums.CommentStatus;
 import run.halo.app.utils.ServiceUtils;
 
@@ -19,6 +20,7 @@ import javax.persistence.*;
  */
 @Data
 @Entity(name = "BaseComment")
+@EntityListeners(ContentChangedEntityListener.class)
 @Table(name = "comments",
     indexes = {@Index(name = "comments_post_id", columnList = "post_id"),
         @Index(name = "comments_type_status", columnList = "type, status"),
@@ -5,6 +5,7 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.GenericGenerator;
+import run.halo.app.listener.content.ContentChangedEntityListener;
 import run.halo.app.model.enums.PostEditorType;
 import run.halo.app.model.enums.PostStatus;
 
@@ -19,9 +20,11 @@ import java.util.Date;
  */
 @Data
 @Entity(name = "BasePost")
+@EntityListeners(ContentChangedEntityListener.class)
 @Table(name = "posts",
     indexes = {@Index(name = "posts_type_status", columnList = "type, status"),
-        @Index(name = "posts_create_time", columnList = "create_time")})
+        @Index(name = "posts_create_time", columnList = "create_time"),
+        @Index(name = "posts_type_status_top_priority_create_time", columnList = "type, status, top_priority, create_time, id")})
 @DiscriminatorColumn(name = "type", discriminatorType = DiscriminatorType.INTEGER, columnDefinition = "int default 0")
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
@@ -151,6 +154,25 @@ public class BasePost extends BaseEntity {
     @Column(name = "meta_description", length = 1023)
     private String metaDescription;
 
+    /**
+     * Summary generated from the format content, used when the summary is blank.
+     */
+    @Column(name = "generated_summary")
+    @Lob
+    private String generatedSummary;
+
+    /**
+     * Word count of the format content.
+     */
+    @Column(name = "word_count")
+    private Long wordCount;
+
+    /**
+     * Reading time in minutes.
+     */
+    @Column(name = "reading_time")
+    private Integer readingTime;
+
     @Override
     public void prePersist() {
         super.prePersist();
@@ -5,6 +5,7 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.GenericGenerator;
+import run.halo.app.listener.content.ContentChangedEntityListener;
 
 import javax.persistence.*;
 
@@ -17,6 +18,7 @@ import javax.persistence.*;
  */
 @Data
 @Entity
+@EntityListeners(ContentChangedEntityListener.class)
 @Table(name = "categories",
     indexes = {@Index(name = "categories_name", columnList = "name"),
         @Index(name = "categories_parent_id", columnList = "parent_id")})
@@ -5,6 +5,7 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.GenericGenerator;
+import run.halo.app.listener.content.ContentChangedEntityListener;
 import run.halo.app.model.enums.JournalType;
 
 import javax.persistence.*;
@@ -18,6 +19,7 @@ import javax.persistence.*;
  */
 @Data
 @Entity
+@EntityListeners(ContentChangedEntityListener.class)
 @Table(name = "journals")
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
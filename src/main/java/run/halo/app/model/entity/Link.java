@@ -5,6 +5,7 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.GenericGenerator;
+import run.halo.app.listener.content.ContentChangedEntityListener;
 
 import javax.persistence.*;
 
@@ -16,6 +17,7 @@ import javax.persistence.*;
  */
 @Data
 @Entity
+@EntityListeners(ContentChangedEntityListener.class)
 @Table(name = "links", indexes = {@Index(name = "links_name", columnList = "name")})
 @ToString
 @EqualsAndHashCode(callSuper = true)
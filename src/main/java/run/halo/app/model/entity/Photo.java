@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.hibernate.annotations.GenericGenerator;
+import run.halo.app.listener.content.ContentChangedEntityListener;
 
 import javax.persistence.*;
 import java.util.Date;
@@ -16,6 +17,7 @@ import java.util.Date;
  */
 @Data
 @Entity
+@EntityListeners(ContentChangedEntityListener.class)
 @Table(name = "photos",
     indexes = {@Index(name = "photos_team", columnList = "team"),
         @Index(name = "photos_create_time", columnList = "create_time")})
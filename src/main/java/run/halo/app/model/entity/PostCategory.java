@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.annotations.GenericGenerator;
+import run.halo.app.listener.content.ContentChangedEntityListener;
 
 import javax.persistence.*;
 import java.util.Objects;
@@ -19,6 +20,7 @@ import java.util.Objects;
 @ToString(callSuper = true)
 @RequiredArgsConstructor
 @Entity
+@EntityListeners(ContentChangedEntityListener.class)
 @Table(name = "post_categories",
     indexes = {@Index(name = "post_categories_post_id", columnList = "post_id"),
         @Index(name = "post_categories_category_id", columnList = "category_id")})
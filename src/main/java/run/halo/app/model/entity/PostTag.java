@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.annotations.GenericGenerator;
+import run.halo.app.listener.content.ContentChangedEntityListener;
 
 import javax.persistence.*;
 import java.util.Objects;
@@ -20,6 +21,7 @@ import java.util.Objects;
 @ToString(callSuper = true)
 @RequiredArgsConstructor
 @Entity
+@EntityListeners(ContentChangedEntityListener.class)
 @Table(name = "post_tags",
     indexes = {@Index(name = "post_tags_post_id", columnList = "post_id"),
         @Index(name = "post_tags_tag_id", columnList = "tag_id")})
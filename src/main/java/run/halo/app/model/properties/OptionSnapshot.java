@@ -0,0 +1,259 @@
+package run.halo.app.model.properties;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the blog options.
+ * <p>
+ * Values of the known properties are parsed once into arrays indexed by the property, so the typed getters
+ * don't parse, box or hash on every call. Properties out of {@link PropertyEnum#getPropertyEnumClasses()}
+ * are looked up in the option map instead.
+ * 选项的不可变快照，按照属性下标预先解析好各种类型的值
+ */
+public final class OptionSnapshot {
+
+    /**
+     * Index of the first constant of every property enum class.
+     */
+    private final static Map<Class<?>, Integer> OFFSETS = new HashMap<>();
+
+    private final static int PROPERTY_COUNT;
+
+    private final static ClassValue<Integer> PROPERTY_OFFSETS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return OFFSETS.getOrDefault(type, -1);
+        }
+    };
+
+    static {
+        int offset = 0;
+        List<Class<? extends PropertyEnum>> propertyEnumClasses = PropertyEnum.getPropertyEnumClasses();
+        for (Class<? extends PropertyEnum> propertyEnumClass : propertyEnumClasses) {
+            OFFSETS.put(propertyEnumClass, offset);
+            offset += propertyEnumClass.getEnumConstants().length;
+        }
+        PROPERTY_COUNT = offset;
+    }
+
+    private final Map<String, Object> options;
+
+    private final Object[] values;
+
+    private final String[] strings;
+
+    private final boolean[] booleans;
+
+    private final boolean[] intParsed;
+
+    private final int[] ints;
+
+    private final boolean[] longParsed;
+
+    private final long[] longs;
+
+    private final Enum<?>[] enums;
+
+    /**
+     * Configured blog url without the trailing slash, null if it is blank.
+     */
+    private final String blogUrl;
+
+    /**
+     * Creates a snapshot of the option map.
+     *
+     * @param options option map must not be null, it must not be modified any more
+     */
+    public OptionSnapshot(@NonNull Map<String, Object> options) {
+        Assert.notNull(options, "Options must not be null");
+
+        this.options = options;
+        this.values = new Object[PROPERTY_COUNT];
+        this.strings = new String[PROPERTY_COUNT];
+        this.booleans = new boolean[PROPERTY_COUNT];
+        this.intParsed = new boolean[PROPERTY_COUNT];
+        this.ints = new int[PROPERTY_COUNT];
+        this.longParsed = new boolean[PROPERTY_COUNT];
+        this.longs = new long[PROPERTY_COUNT];
+        this.enums = new Enum<?>[PROPERTY_COUNT];
+
+        PropertyEnum.getPropertyEnumClasses().forEach(propertyEnumClass -> {
+            for (PropertyEnum property : propertyEnumClass.getEnumConstants()) {
+                parse(indexOf(property), property);
+            }
+        });
+
+        String url = getString(BlogProperties.BLOG_URL);
+        this.blogUrl = StringUtils.isBlank(url) ? null : StringUtils.removeEnd(url, "/");
+    }
+
+    /**
+     * Checks if the snapshot is created from the given option map.
+     *
+     * @param options option map
+     * @return true if it is the same map instance
+     */
+    public boolean isCreatedFrom(@Nullable Map<String, Object> options) {
+        return this.options == options;
+    }
+
+    /**
+     * Gets the option value as it is in the option map.
+     *
+     * @param property property must not be null
+     * @return option value or null
+     */
+    @Nullable
+    public Object get(@NonNull PropertyEnum property) {
+        int index = indexOf(property);
+        return index < 0 ? options.get(property.getValue()) : values[index];
+    }
+
+    @Nullable
+    public String getString(@NonNull PropertyEnum property) {
+        int index = indexOf(property);
+        if (index < 0) {
+            Object value = options.get(property.getValue());
+            return value == null ? null : value.toString();
+        }
+        return strings[index];
+    }
+
+    @NonNull
+    public String getStringOrDefault(@NonNull PropertyEnum property, @NonNull String defaultValue) {
+        String value = getString(property);
+        return value == null ? defaultValue : value;
+    }
+
+    public boolean getBooleanOrDefault(@NonNull PropertyEnum property, boolean defaultValue) {
+        int index = indexOf(property);
+        if (index < 0) {
+            String value = getString(property);
+            return value == null ? defaultValue : Boolean.parseBoolean(value);
+        }
+        return strings[index] == null ? defaultValue : booleans[index];
+    }
+
+    /**
+     * Gets the option value as an int.
+     *
+     * @param property     property must not be null
+     * @param defaultValue default value
+     * @return int value, or the default value if it is absent or not a number
+     */
+    public int getIntOrDefault(@NonNull PropertyEnum property, int defaultValue) {
+        int index = indexOf(property);
+        if (index < 0) {
+            return (int) parseLong(getString(property), defaultValue, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        return intParsed[index] ? ints[index] : defaultValue;
+    }
+
+    /**
+     * Gets the option value as a long.
+     *
+     * @param property     property must not be null
+     * @param defaultValue default value
+     * @return long value, or the default value if it is absent or not a number
+     */
+    public long getLongOrDefault(@NonNull PropertyEnum property, long defaultValue) {
+        int index = indexOf(property);
+        if (index < 0) {
+            return parseLong(getString(property), defaultValue, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        return longParsed[index] ? longs[index] : defaultValue;
+    }
+
+    /**
+     * Gets the option value as an enum.
+     *
+     * @param property     property must not be null
+     * @param enumType     enum type must not be null
+     * @param defaultValue default value
+     * @param <T>          enum type
+     * @return enum value, or the default value if it is absent or not a constant of the enum type
+     */
+    public <T extends Enum<T>> T getEnumOrDefault(@NonNull PropertyEnum property, @NonNull Class<T> enumType, @Nullable T defaultValue) {
+        int index = indexOf(property);
+        if (index >= 0 && enumType.isInstance(enums[index])) {
+            return enumType.cast(enums[index]);
+        }
+
+        // Not parsed as the enum type in advance
+        String value = getString(property);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        T result = PropertyEnum.convertToEnum(value, enumType);
+        return result == null ? defaultValue : result;
+    }
+
+    /**
+     * Gets the configured blog url without the trailing slash.
+     *
+     * @return blog url or null if it is blank
+     */
+    @Nullable
+    public String getBlogUrl() {
+        return blogUrl;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void parse(int index, @NonNull PropertyEnum property) {
+        Object value = options.get(property.getValue());
+        if (value == null) {
+            return;
+        }
+
+        String string = value.toString();
+        values[index] = value;
+        strings[index] = string;
+        booleans[index] = Boolean.parseBoolean(string);
+
+        try {
+            longs[index] = Long.parseLong(string);
+            longParsed[index] = true;
+        } catch (NumberFormatException e) {
+            // Not a number
+        }
+
+        if (longParsed[index] && longs[index] >= Integer.MIN_VALUE && longs[index] <= Integer.MAX_VALUE) {
+            ints[index] = (int) longs[index];
+            intParsed[index] = true;
+        }
+
+        if (property.getType().isEnum() && StringUtils.isNotEmpty(string)) {
+            enums[index] = PropertyEnum.convertToEnum(string, (Class) property.getType());
+        }
+    }
+
+    private static int indexOf(@NonNull PropertyEnum property) {
+        Assert.notNull(property, "Property must not be null");
+
+        if (!(property instanceof Enum)) {
+            return -1;
+        }
+        Enum<?> propertyEnum = (Enum<?>) property;
+        int offset = PROPERTY_OFFSETS.get(propertyEnum.getDeclaringClass());
+        return offset < 0 ? -1 : offset + propertyEnum.ordinal();
+    }
+
+    private static long parseLong(@Nullable String value, long defaultValue, long min, long max) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long result = Long.parseLong(value);
+            return result < min || result > max ? defaultValue : result;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -143,6 +143,25 @@ public interface PropertyEnum extends ValueEnum<String> {
     }
 
     static Map<String, PropertyEnum> getValuePropertyEnumMap() {
+        Map<String, PropertyEnum> result = new HashMap<>();
+
+        getPropertyEnumClasses().forEach(propertyEnumClass -> {
+            PropertyEnum[] propertyEnums = propertyEnumClass.getEnumConstants();
+
+            for (PropertyEnum propertyEnum : propertyEnums) {
+                result.put(propertyEnum.getValue(), propertyEnum);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Gets the property enum classes of the blog options.
+     *
+     * @return property enum classes in a fixed order
+     */
+    static List<Class<? extends PropertyEnum>> getPropertyEnumClasses() {
         // Get all properties
         List<Class<? extends PropertyEnum>> propertyEnumClasses = new LinkedList<>();
         propertyEnumClasses.add(AliOssProperties.class);
@@ -163,17 +182,7 @@ public interface PropertyEnum extends ValueEnum<String> {
         propertyEnumClasses.add(NetlifyStaticDeployProperties.class);
         propertyEnumClasses.add(PermalinkProperties.class);
 
-        Map<String, PropertyEnum> result = new HashMap<>();
-
-        propertyEnumClasses.forEach(propertyEnumClass -> {
-            PropertyEnum[] propertyEnums = propertyEnumClass.getEnumConstants();
-
-            for (PropertyEnum propertyEnum : propertyEnums) {
-                result.put(propertyEnum.getValue(), propertyEnum);
-            }
-        });
-
-        return result;
+        return propertyEnumClasses;
     }
 
     /**
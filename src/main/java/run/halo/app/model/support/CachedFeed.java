@@ -0,0 +1,70 @@
+package run.halo.app.model.support;
+
+import lombok.Data;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.lang.NonNull;
+
+import java.util.Optional;
+
+/**
+ * Rendered feed with the validators of conditional requests.
+ * <p>
+ * Cached as a plain string, formatted as: {entity tag}\n{last modified}\n{content}.
+ */
+@Data
+public class CachedFeed {
+
+    /**
+     * Delimiter of the entity tag, last modified time and content of a cached feed.
+     */
+    private final static char FEED_DELIMITER = '\n';
+
+    private String content;
+
+    /**
+     * Entity tag, the hash of the content.
+     */
+    private String entityTag;
+
+    /**
+     * Time when the feed was rendered, in milliseconds.
+     */
+    private long lastModified;
+
+    /**
+     * Formats the rendered feed into the cache value.
+     *
+     * @param content      rendered feed must not be null
+     * @param lastModified time when the feed was rendered, in milliseconds
+     * @return cache value
+     */
+    @NonNull
+    public static String format(@NonNull String content, long lastModified) {
+        return DigestUtils.md5Hex(content) + FEED_DELIMITER + lastModified + FEED_DELIMITER + content;
+    }
+
+    /**
+     * Parses the cache value.
+     *
+     * @param value cache value must not be null
+     * @return cached feed, or empty if the value is malformed
+     */
+    @NonNull
+    public static Optional<CachedFeed> parse(@NonNull String value) {
+        int entityTagEnd = value.indexOf(FEED_DELIMITER);
+        int lastModifiedEnd = entityTagEnd < 0 ? -1 : value.indexOf(FEED_DELIMITER, entityTagEnd + 1);
+        if (lastModifiedEnd < 0) {
+            return Optional.empty();
+        }
+
+        CachedFeed feed = new CachedFeed();
+        try {
+            feed.setLastModified(Long.parseLong(value.substring(entityTagEnd + 1, lastModifiedEnd)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        feed.setEntityTag(value.substring(0, entityTagEnd));
+        feed.setContent(value.substring(lastModifiedEnd + 1));
+        return Optional.of(feed);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import run.halo.app.model.entity.BasePost;
+import run.halo.app.model.enums.PostEditorType;
 import run.halo.app.model.enums.PostStatus;
 
 import java.util.Date;
@@ -119,6 +120,14 @@ public interface BasePostRepository<POST extends BasePost> extends BaseRepositor
      */
     long countByStatus(@NonNull PostStatus status);
 
+    /**
+     * Counts posts by editor type.
+     *
+     * @param editorType editor type
+     * @return posts count
+     */
+    long countByEditorType(@NonNull PostEditorType editorType);
+
     /**
      * Determine if the slug exists.
      *
@@ -198,4 +207,20 @@ public interface BasePostRepository<POST extends BasePost> extends BaseRepositor
     @Modifying
     @Query("update BasePost p set p.formatContent = :formatContent where p.id = :postId")
     int updateFormatContent(@Param("formatContent") @NonNull String formatContent, @Param("postId") @NonNull Integer postId);
+
+    /**
+     * Updates the fields generated from the format content by post id.
+     *
+     * @param generatedSummary generated summary must not be null.
+     * @param wordCount        word count must not be null.
+     * @param readingTime      reading time in minutes must not be null.
+     * @param postId           post id must not be null.
+     * @return updated rows.
+     */
+    @Modifying
+    @Query("update BasePost p set p.generatedSummary = :generatedSummary, p.wordCount = :wordCount, p.readingTime = :readingTime where p.id = :postId")
+    int updateGeneratedFields(@Param("generatedSummary") @NonNull String generatedSummary,
+                              @Param("wordCount") @NonNull Long wordCount,
+                              @Param("readingTime") @NonNull Integer readingTime,
+                              @Param("postId") @NonNull Integer postId);
 }
@@ -3,9 +3,11 @@ package run.halo.app.repository.base;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 
 import java.util.Collection;
 import java.util.List;
@@ -50,4 +52,18 @@ public interface BaseRepository<DOMAIN, ID> extends JpaRepository<DOMAIN, ID> {
      */
     long deleteByIdIn(@NonNull Collection<ID> ids);
 
+    /**
+     * Finds domains with only the given attributes selected, without counting the total.
+     * <p>
+     * The returned domains are not managed by the entity manager, and the attributes not selected are null.
+     * They must not be saved.
+     *
+     * @param specification specification, null means all domains
+     * @param pageable      page info must not be null
+     * @param attributes    attribute names to select must not be empty
+     * @return a list of partial domains
+     */
+    @NonNull
+    List<DOMAIN> findAllPartially(@Nullable Specification<DOMAIN> specification, @NonNull Pageable pageable, @NonNull Collection<String> attributes);
+
 }
@@ -1,11 +1,15 @@
 package run.halo.app.repository.base;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.data.repository.support.PageableExecutionUtils;
@@ -15,6 +19,7 @@ import org.springframework.util.Assert;
 import run.halo.app.annotation.SensitiveConceal;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import java.util.ArrayList;
@@ -138,6 +143,47 @@ public class BaseRepositoryImpl<DOMAIN, ID> extends SimpleJpaRepository<DOMAIN,
         return domains.size();
     }
 
+    @Override
+    public List<DOMAIN> findAllPartially(@Nullable Specification<DOMAIN> specification, Pageable pageable, Collection<String> attributes) {
+        Assert.notNull(pageable, "Page info must not be null");
+        Assert.notEmpty(attributes, "Attributes must not be empty");
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<DOMAIN> root = query.from(getDomainClass());
+
+        List<Selection<?>> selections = new ArrayList<>(attributes.size());
+        attributes.forEach(attribute -> selections.add(root.get(attribute).alias(attribute)));
+        query.multiselect(selections);
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Tuple> tuples = typedQuery.getResultList();
+        List<DOMAIN> domains = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            DOMAIN domain = BeanUtils.instantiateClass(getDomainClass());
+            BeanWrapper beanWrapper = new BeanWrapperImpl(domain);
+            attributes.forEach(attribute -> beanWrapper.setPropertyValue(attribute, tuple.get(attribute)));
+            domains.add(domain);
+        }
+        return domains;
+    }
+
     protected <S extends DOMAIN> Page<S> readPage(TypedQuery<S> query, Class<S> domainClass, Pageable pageable, TypedQuery<Long> countQuery) {
 
         if (pageable.isPaged()) {
@@ -51,6 +51,7 @@ public class ApiAuthenticationFilter extends AbstractAuthenticationFilter {
         addExcludeUrlPatterns(
             "/api/content/**/comments",
             "/api/content/**/comments/**",
+            "/api/content/*/*/visits",
             "/api/content/options/comment"
         );
 
@@ -0,0 +1,27 @@
+package run.halo.app.service;
+
+import org.springframework.lang.NonNull;
+import run.halo.app.model.dto.RenderProgressDTO;
+
+/**
+ * Content render service interface.
+ */
+public interface ContentRenderService {
+
+    /**
+     * Starts re-rendering the html of all markdown posts, sheets and journals in the background.
+     *
+     * @return progress of the started job
+     * @throws run.halo.app.exception.BadRequestException if a job is running already
+     */
+    @NonNull
+    RenderProgressDTO rerenderAll();
+
+    /**
+     * Gets the progress of the running or the last job.
+     *
+     * @return render progress
+     */
+    @NonNull
+    RenderProgressDTO getRerenderProgress();
+}
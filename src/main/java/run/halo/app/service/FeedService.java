@@ -0,0 +1,34 @@
+package run.halo.app.service;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import run.halo.app.model.support.CachedFeed;
+
+/**
+ * Feed service interface.
+ * <p>
+ * The rendered feeds are cached until any content or option changes.
+ * 订阅源
+ */
+public interface FeedService {
+
+    /**
+     * Gets the rss feed of the latest posts.
+     *
+     * @param categorySlug slug of the category, null means all posts
+     * @return rendered rss feed
+     * @throws run.halo.app.exception.NotFoundException if the category does not exist
+     */
+    @NonNull
+    CachedFeed getRss(@Nullable String categorySlug);
+
+    /**
+     * Gets the atom feed of the latest posts.
+     *
+     * @param categorySlug slug of the category, null means all posts
+     * @return rendered atom feed
+     * @throws run.halo.app.exception.NotFoundException if the category does not exist
+     */
+    @NonNull
+    CachedFeed getAtom(@Nullable String categorySlug);
+}
@@ -15,6 +15,7 @@ import run.halo.app.model.enums.PostPermalinkType;
 import run.halo.app.model.enums.ValueEnum;
 import run.halo.app.model.params.OptionParam;
 import run.halo.app.model.params.OptionQuery;
+import run.halo.app.model.properties.OptionSnapshot;
 import run.halo.app.model.properties.PropertyEnum;
 import run.halo.app.service.base.CrudService;
 
@@ -99,6 +100,16 @@ public interface OptionService extends CrudService<Option, Integer> {
     @Transactional
     Map<String, Object> listOptions();
 
+    /**
+     * Gets the immutable snapshot of the current options.
+     * <p>
+     * Read several options from one snapshot to get consistent values.
+     *
+     * @return option snapshot
+     */
+    @NonNull
+    OptionSnapshot getSnapshot();
+
     /**
      * Lists options by key list.
      *
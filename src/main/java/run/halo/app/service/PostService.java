@@ -260,6 +260,7 @@ public interface PostService extends BasePostService<Post> {
      * @param currentPost post must not be null
      * @return AdjacentPostVO. it contains prevPost and nextPost.
      * AdjacentPostVO will not be null. But prevPost and nextPost may be null.
+     * The content of prevPost and nextPost is not loaded.
      */
     @NotNull
     AdjacentPostVO getAdjacentPosts(Post currentPost);
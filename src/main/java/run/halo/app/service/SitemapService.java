@@ -0,0 +1,44 @@
+package run.halo.app.service;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Sitemap service interface.
+ * <p>
+ * The sitemap is split into a sitemap index, a sitemap of the sheets, categories and tags, and the
+ * sitemaps of the posts, each of which lists at most {@link #MAX_URLS} urls.
+ * 站点地图
+ */
+public interface SitemapService {
+
+    /**
+     * Max urls of a sitemap, limited by the sitemap protocol.
+     */
+    int MAX_URLS = 50000;
+
+    /**
+     * Gets the sitemap index.
+     *
+     * @return sitemap index xml
+     */
+    @NonNull
+    String getIndex();
+
+    /**
+     * Gets the sitemap of the index, sheets, categories and tags.
+     *
+     * @return sitemap xml
+     */
+    @NonNull
+    String getPages();
+
+    /**
+     * Gets a sitemap of the posts.
+     *
+     * @param page page number starts from 1
+     * @return sitemap xml
+     * @throws run.halo.app.exception.NotFoundException if the page does not exist
+     */
+    @NonNull
+    String getPosts(int page);
+}
@@ -2,6 +2,7 @@ package run.halo.app.service.base;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import run.halo.app.model.dto.post.BasePostDetailDTO;
@@ -158,6 +159,53 @@ public interface BasePostService<POST extends BasePost> extends CrudService<POST
     @NonNull
     Page<POST> pageBy(@NonNull PostStatus status, @NonNull Pageable pageable);
 
+    /**
+     * Pages posts by status without loading the content.
+     * <p>
+     * The returned posts are not managed, the original and formatted content of them are null.
+     * 不加载文章内容，用于列表
+     *
+     * @param status   post status must not be null
+     * @param pageable page info must not be null
+     * @return a page of brief posts
+     */
+    @NonNull
+    Page<POST> pageBriefBy(@NonNull PostStatus status, @NonNull Pageable pageable);
+
+    /**
+     * Lists all posts by status without loading the content.
+     *
+     * @param status post status must not be null
+     * @param sort   sort info must not be null
+     * @return a list of brief posts
+     * @see #pageBriefBy(PostStatus, Pageable)
+     */
+    @NonNull
+    List<POST> listAllBriefBy(@NonNull PostStatus status, @NonNull Sort sort);
+
+    /**
+     * Lists posts by status with only the attributes of their links loaded.
+     * <p>
+     * Only the id, slug, create time and edit time of the returned posts are loaded.
+     * 只加载生成链接所需的字段，用于站点地图
+     *
+     * @param status   post status must not be null
+     * @param pageable page info must not be null
+     * @return a list of posts
+     */
+    @NonNull
+    List<POST> listForSitemapBy(@NonNull PostStatus status, @NonNull Pageable pageable);
+
+    /**
+     * Lists latest published posts without loading the content.
+     *
+     * @param top top number must not be less than 0
+     * @return latest brief posts
+     * @see #pageBriefBy(PostStatus, Pageable)
+     */
+    @NonNull
+    List<POST> listLatestBrief(int top);
+
     /**
      * Increases post visits.
      *
@@ -175,16 +223,17 @@ public interface BasePostService<POST extends BasePost> extends CrudService<POST
     void increaseLike(long likes, @NonNull Integer postId);
 
     /**
-     * Increases post visits (1).
+     * Increases post visits (1), the visit is written to the database in batch later.
      *
      * @param postId post id must not be null
      */
     void increaseVisit(@NonNull Integer postId);
 
     /**
-     * Increases post likes(1).
+     * Increases post likes(1), the like is written to the database in batch later.
      *
      * @param postId post id must not be null
+     * @throws run.halo.app.exception.NotFoundException if the post does not exist
      */
     void increaseLike(@NonNull Integer postId);
 
@@ -316,4 +365,15 @@ public interface BasePostService<POST extends BasePost> extends CrudService<POST
      * @return description
      */
     String generateDescription(@NonNull String content);
+
+    /**
+     * Refreshes the generated summary, word count and reading time of the next batch of posts.
+     *
+     * @param afterId       id after which the posts are refreshed, null means from the first post
+     * @param all           true to refresh all posts, false to refresh the posts never generated only
+     * @param summaryLength length of the summaries, null means the summary length option
+     * @return id of the last refreshed post or null if there is no post to refresh
+     */
+    @Nullable
+    Integer refreshGeneratedFields(@Nullable Integer afterId, boolean all, @Nullable Integer summaryLength);
 }
@@ -48,10 +48,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
@@ -200,19 +197,28 @@ public class AdminServiceImpl implements AdminService {
         // Get current user
         User user = authentication.getDetail().getUser();
 
+        // Get access token and refresh token in a batch
+        String accessTokenKey = SecurityUtils.buildAccessTokenKey(user);
+        String refreshTokenKey = SecurityUtils.buildRefreshTokenKey(user);
+        Map<String, String> tokens = cacheStore.getAllAny(Arrays.asList(accessTokenKey, refreshTokenKey), String.class);
+
+        List<String> keysToDelete = new LinkedList<>();
+
         // Clear access token
-        cacheStore.getAny(SecurityUtils.buildAccessTokenKey(user), String.class).ifPresent(accessToken -> {
-            // Delete token TODO 顶层接口中的delete方法没有具体的实现 delete 在此时就是壳子方法
-            cacheStore.delete(SecurityUtils.buildTokenAccessKey(accessToken));
-            cacheStore.delete(SecurityUtils.buildAccessTokenKey(user));
+        Optional.ofNullable(tokens.get(accessTokenKey)).ifPresent(accessToken -> {
+            keysToDelete.add(SecurityUtils.buildTokenAccessKey(accessToken));
+            keysToDelete.add(accessTokenKey);
         });
 
         // Clear refresh token
-        cacheStore.getAny(SecurityUtils.buildRefreshTokenKey(user), String.class).ifPresent(refreshToken -> {
-            cacheStore.delete(SecurityUtils.buildTokenRefreshKey(refreshToken));
-            cacheStore.delete(SecurityUtils.buildRefreshTokenKey(user));
+        Optional.ofNullable(tokens.get(refreshTokenKey)).ifPresent(refreshToken -> {
+            keysToDelete.add(SecurityUtils.buildTokenRefreshKey(refreshToken));
+            keysToDelete.add(refreshTokenKey);
         });
 
+        // Delete tokens in a batch
+        cacheStore.deleteAll(keysToDelete);
+
         eventPublisher.publishEvent(new LogEvent(this, user.getUsername(), LogType.LOGGED_OUT, user.getNickname()));
 
         log.info("You have been logged out, looking forward to your next visit!");
@@ -335,12 +341,14 @@ public class AdminServiceImpl implements AdminService {
         // Get user info
         User user = userService.getById(userId);
 
-        // Remove all token
+        // Remove all token in a batch
+        List<String> keysToDelete = new LinkedList<>();
         cacheStore.getAny(SecurityUtils.buildAccessTokenKey(user), String.class)
-            .ifPresent(accessToken -> cacheStore.delete(SecurityUtils.buildTokenAccessKey(accessToken)));
-        cacheStore.delete(SecurityUtils.buildTokenRefreshKey(refreshToken));
-        cacheStore.delete(SecurityUtils.buildAccessTokenKey(user));
-        cacheStore.delete(SecurityUtils.buildRefreshTokenKey(user));
+            .ifPresent(accessToken -> keysToDelete.add(SecurityUtils.buildTokenAccessKey(accessToken)));
+        keysToDelete.add(SecurityUtils.buildTokenRefreshKey(refreshToken));
+        keysToDelete.add(SecurityUtils.buildAccessTokenKey(user));
+        keysToDelete.add(SecurityUtils.buildRefreshTokenKey(user));
+        cacheStore.deleteAll(keysToDelete);
 
         return buildAuthToken(user);
     }
@@ -458,13 +466,17 @@ public class AdminServiceImpl implements AdminService {
         token.setExpiredIn(ACCESS_TOKEN_EXPIRED_SECONDS);
         token.setRefreshToken(HaloUtils.randomUUIDWithoutDash());
 
-        // Cache those tokens, just for clearing
-        cacheStore.putAny(SecurityUtils.buildAccessTokenKey(user), token.getAccessToken(), ACCESS_TOKEN_EXPIRED_SECONDS, TimeUnit.SECONDS);
-        cacheStore.putAny(SecurityUtils.buildRefreshTokenKey(user), token.getRefreshToken(), REFRESH_TOKEN_EXPIRED_DAYS, TimeUnit.DAYS);
-
-        // Cache those tokens with user id
-        cacheStore.putAny(SecurityUtils.buildTokenAccessKey(token.getAccessToken()), user.getId(), ACCESS_TOKEN_EXPIRED_SECONDS, TimeUnit.SECONDS);
-        cacheStore.putAny(SecurityUtils.buildTokenRefreshKey(token.getRefreshToken()), user.getId(), REFRESH_TOKEN_EXPIRED_DAYS, TimeUnit.DAYS);
+        // Cache access tokens in a batch, one for clearing and one with user id
+        Map<String, Object> accessTokens = new HashMap<>(2);
+        accessTokens.put(SecurityUtils.buildAccessTokenKey(user), token.getAccessToken());
+        accessTokens.put(SecurityUtils.buildTokenAccessKey(token.getAccessToken()), user.getId());
+        cacheStore.putAllAny(accessTokens, ACCESS_TOKEN_EXPIRED_SECONDS, TimeUnit.SECONDS);
+
+        // Cache refresh tokens in a batch, one for clearing and one with user id
+        Map<String, Object> refreshTokens = new HashMap<>(2);
+        refreshTokens.put(SecurityUtils.buildRefreshTokenKey(user), token.getRefreshToken());
+        refreshTokens.put(SecurityUtils.buildTokenRefreshKey(token.getRefreshToken()), user.getId());
+        cacheStore.putAllAny(refreshTokens, REFRESH_TOKEN_EXPIRED_DAYS, TimeUnit.DAYS);
 
         return token;
     }
@@ -6,6 +6,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.lang.NonNull;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
@@ -25,14 +27,15 @@ import run.halo.app.repository.base.BasePostRepository;
 import run.halo.app.service.OptionService;
 import run.halo.app.service.base.AbstractCrudService;
 import run.halo.app.service.base.BasePostService;
+import run.halo.app.service.support.MarkdownRenderer;
+import run.halo.app.service.support.PostCounterAccumulator;
 import run.halo.app.utils.DateUtils;
 import run.halo.app.utils.HaloUtils;
-import run.halo.app.utils.MarkdownUtils;
+import run.halo.app.utils.HtmlTextExtractor;
 import run.halo.app.utils.ServiceUtils;
 
+import javax.persistence.criteria.Predicate;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.springframework.data.domain.Sort.Direction.ASC;
@@ -48,17 +51,47 @@ import static org.springframework.data.domain.Sort.Direction.DESC;
 @Slf4j
 public abstract class BasePostServiceImpl<POST extends BasePost> extends AbstractCrudService<POST, Integer> implements BasePostService<POST> {
 
+    /**
+     * Attributes of the brief posts, the content is not loaded.
+     */
+    protected final static List<String> BRIEF_POST_ATTRIBUTES = Collections.unmodifiableList(Arrays.asList(
+        "id", "title", "status", "url", "slug", "editorType", "summary", "thumbnail", "visits", "disallowComment",
+        "template", "topPriority", "likes", "createTime", "updateTime", "editTime", "metaKeywords", "metaDescription",
+        "generatedSummary", "wordCount", "readingTime"));
+
+    /**
+     * Attributes of the posts listed in the sitemap.
+     */
+    private final static List<String> SITEMAP_POST_ATTRIBUTES = Collections.unmodifiableList(Arrays.asList(
+        "id", "slug", "createTime", "editTime"));
+
+    /**
+     * Words read per minute, used to estimate the reading time.
+     */
+    private final static int WORDS_PER_MINUTE = 300;
+
+    /**
+     * Size of the batches in which the generated fields are refreshed.
+     */
+    private final static int REFRESH_BATCH_SIZE = 100;
+
     private final BasePostRepository<POST> basePostRepository;
 
     private final OptionService optionService;
 
-    private final Pattern summaryPattern = Pattern.compile("\\s*|\t|\r|\n");
+    private final PostCounterAccumulator postCounterAccumulator;
+
+    private final MarkdownRenderer markdownRenderer;
 
     public BasePostServiceImpl(BasePostRepository<POST> basePostRepository,
-                               OptionService optionService) {
+                               OptionService optionService,
+                               PostCounterAccumulator postCounterAccumulator,
+                               MarkdownRenderer markdownRenderer) {
         super(basePostRepository);
         this.basePostRepository = basePostRepository;
         this.optionService = optionService;
+        this.postCounterAccumulator = postCounterAccumulator;
+        this.markdownRenderer = markdownRenderer;
     }
 
     @Override
@@ -186,6 +219,40 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
         return basePostRepository.findAllByStatus(status, pageable);
     }
 
+    @Override
+    public Page<POST> pageBriefBy(PostStatus status, Pageable pageable) {
+        Assert.notNull(status, "Post status must not be null");
+        Assert.notNull(pageable, "Page info must not be null");
+
+        List<POST> posts = listBriefBy(status, pageable);
+        return PageableExecutionUtils.getPage(posts, pageable, () -> basePostRepository.countByStatus(status));
+    }
+
+    @Override
+    public List<POST> listAllBriefBy(PostStatus status, Sort sort) {
+        Assert.notNull(status, "Post status must not be null");
+        Assert.notNull(sort, "Sort info must not be null");
+
+        return listBriefBy(status, PageRequest.of(0, Integer.MAX_VALUE, sort));
+    }
+
+    @Override
+    public List<POST> listForSitemapBy(PostStatus status, Pageable pageable) {
+        Assert.notNull(status, "Post status must not be null");
+        Assert.notNull(pageable, "Page info must not be null");
+
+        return basePostRepository.findAllPartially(
+            (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("status"), status),
+            pageable, SITEMAP_POST_ATTRIBUTES);
+    }
+
+    @Override
+    public List<POST> listLatestBrief(int top) {
+        Assert.isTrue(top > 0, "Top number must not be less than 0");
+
+        return listBriefBy(PostStatus.PUBLISHED, PageRequest.of(0, top, Sort.by(DESC, "createTime")));
+    }
+
     @Override
     @Transactional
     public void increaseVisit(long visits, Integer postId) {
@@ -215,15 +282,19 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
     }
 
     @Override
-    @Transactional
     public void increaseVisit(Integer postId) {
-        increaseVisit(1L, postId);
+        postCounterAccumulator.increaseVisit(postId);
     }
 
     @Override
-    @Transactional
     public void increaseLike(Integer postId) {
-        increaseLike(1L, postId);
+        Assert.notNull(postId, "Post id must not be null");
+
+        if (!existsById(postId)) {
+            throw new NotFoundException("查询不到该文章的信息").setErrorData(postId);
+        }
+
+        postCounterAccumulator.increaseLike(postId);
     }
 
     @Override
@@ -233,11 +304,14 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
 
         // Render content
         if (post.getEditorType().equals(PostEditorType.MARKDOWN)) {
-            post.setFormatContent(MarkdownUtils.renderHtml(post.getOriginalContent()));
+            post.setFormatContent(markdownRenderer.render(post.getOriginalContent()));
         } else {
             post.setFormatContent(post.getOriginalContent());
         }
 
+        // Generate summary, word count and reading time once instead of on every read
+        fillGeneratedFields(post);
+
         // if password is not empty,change status to intimate
         if (StringUtils.isNotEmpty(post.getPassword()) && post.getStatus() != PostStatus.DRAFT) {
             post.setStatus(PostStatus.INTIMATE);
@@ -303,9 +377,7 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
         BasePostSimpleDTO basePostSimpleDTO = new BasePostSimpleDTO().convertFrom(post);
 
         // Set summary
-        if (StringUtils.isBlank(basePostSimpleDTO.getSummary())) {
-            basePostSimpleDTO.setSummary(generateSummary(post.getFormatContent()));
-        }
+        basePostSimpleDTO.setSummary(resolveSummary(post));
 
         return basePostSimpleDTO;
     }
@@ -381,7 +453,7 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
         // Sync content
         if (PostStatus.PUBLISHED.equals(status)) {
             // If publish this post, then convert the formatted content
-            String formatContent = MarkdownUtils.renderHtml(post.getOriginalContent());
+            String formatContent = markdownRenderer.render(post.getOriginalContent());
             int updatedRows = basePostRepository.updateFormatContent(formatContent, postId);
 
             if (updatedRows != 1) {
@@ -389,6 +461,9 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
             }
 
             post.setFormatContent(formatContent);
+
+            fillGeneratedFields(post);
+            basePostRepository.updateGeneratedFields(post.getGeneratedSummary(), post.getWordCount(), post.getReadingTime(), postId);
         }
 
         return post;
@@ -418,6 +493,7 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
             }
             if (StringUtils.isNotEmpty(post.getFormatContent())) {
                 post.setFormatContent(post.getFormatContent().replaceAll(oldUrl, newUrl));
+                fillGeneratedFields(post);
             }
             replaced.add(post);
         });
@@ -429,15 +505,39 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
     public String generateDescription(String content) {
         Assert.notNull(content, "html content must not be null");
 
-        String text = HaloUtils.cleanHtmlTag(content);
+        return HtmlTextExtractor.extractEscapedText(content, getSummaryLength());
+    }
+
+    @Override
+    @Transactional
+    public Integer refreshGeneratedFields(Integer afterId, boolean all, Integer summaryLength) {
+        Specification<POST> specification = (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new LinkedList<>();
+            if (afterId != null) {
+                predicates.add(criteriaBuilder.greaterThan(root.get("id"), afterId));
+            }
+            if (!all) {
+                predicates.add(criteriaBuilder.isNull(root.get("generatedSummary")));
+            }
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+
+        List<POST> posts = basePostRepository.findAllPartially(specification,
+            PageRequest.of(0, REFRESH_BATCH_SIZE, Sort.by(ASC, "id")), Arrays.asList("id", "formatContent"));
 
-        Matcher matcher = summaryPattern.matcher(text);
-        text = matcher.replaceAll("");
+        if (posts.isEmpty()) {
+            return null;
+        }
+
+        int length = summaryLength == null ? getSummaryLength() : Math.max(0, summaryLength);
+        posts.forEach(post -> {
+            fillGeneratedFields(post, length);
+            basePostRepository.updateGeneratedFields(post.getGeneratedSummary(), post.getWordCount(), post.getReadingTime(), post.getId());
+        });
 
-        // Get summary length
-        Integer summaryLength = optionService.getByPropertyOrDefault(PostProperties.SUMMARY_LENGTH, Integer.class, 150);
+        log.debug("Refreshed generated fields of [{}] posts after id: [{}]", posts.size(), afterId);
 
-        return StringUtils.substring(text, 0, summaryLength);
+        return posts.get(posts.size() - 1).getId();
     }
 
     @Override
@@ -456,6 +556,48 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
         return super.update(post);
     }
 
+    /**
+     * Lists posts by status without loading the content.
+     *
+     * @param status   post status must not be null
+     * @param pageable page info must not be null
+     * @return a list of brief posts
+     */
+    @NonNull
+    protected List<POST> listBriefBy(@NonNull PostStatus status, @NonNull Pageable pageable) {
+        List<POST> posts = basePostRepository.findAllPartially(
+            (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("status"), status),
+            pageable, BRIEF_POST_ATTRIBUTES);
+
+        fillBlankSummaries(posts);
+        return posts;
+    }
+
+    /**
+     * Generates the blank summaries not persisted yet from the formatted content, which is loaded for these
+     * posts only.
+     *
+     * @param posts brief posts must not be null
+     */
+    private void fillBlankSummaries(@NonNull List<POST> posts) {
+        Map<Integer, POST> blankSummaryPosts = posts.stream()
+            .filter(post -> StringUtils.isBlank(post.getSummary()) && post.getGeneratedSummary() == null)
+            .collect(Collectors.toMap(POST::getId, post -> post));
+
+        if (blankSummaryPosts.isEmpty()) {
+            return;
+        }
+
+        basePostRepository.findAllPartially(
+            (root, query, criteriaBuilder) -> root.get("id").in(blankSummaryPosts.keySet()),
+            Pageable.unpaged(), Arrays.asList("id", "formatContent"))
+            .forEach(post -> {
+                if (post.getFormatContent() != null) {
+                    blankSummaryPosts.get(post.getId()).setSummary(generateSummary(post.getFormatContent()));
+                }
+            });
+    }
+
     /**
      * Check if the slug is exist.
      *
@@ -484,14 +626,58 @@ public abstract class BasePostServiceImpl<POST extends BasePost> extends Abstrac
     protected String generateSummary(@NonNull String htmlContent) {
         Assert.notNull(htmlContent, "html content must not be null");
 
-        String text = HaloUtils.cleanHtmlTag(htmlContent);
+        return HtmlTextExtractor.extractEscapedText(htmlContent, getSummaryLength());
+    }
+
+    /**
+     * Resolves the summary to show, the manual summary takes precedence over the generated one.
+     *
+     * @param post post must not be null
+     * @return summary of the post
+     */
+    @NonNull
+    protected String resolveSummary(@NonNull POST post) {
+        Assert.notNull(post, "Post must not be null");
+
+        if (StringUtils.isNotBlank(post.getSummary())) {
+            return post.getSummary();
+        }
+
+        if (post.getGeneratedSummary() != null) {
+            return post.getGeneratedSummary();
+        }
+
+        // The generated fields of the post have not been backfilled yet
+        return post.getFormatContent() == null ? "" : generateSummary(post.getFormatContent());
+    }
 
-        Matcher matcher = summaryPattern.matcher(text);
-        text = matcher.replaceAll("");
+    /**
+     * Generates the summary, word count and reading time from the format content.
+     * 根据格式化内容生成摘要、字数和阅读时长
+     *
+     * @param post post must not be null
+     */
+    protected void fillGeneratedFields(@NonNull POST post) {
+        fillGeneratedFields(post, getSummaryLength());
+    }
+
+    /**
+     * Generates the summary, word count and reading time from the format content.
+     *
+     * @param post          post must not be null
+     * @param summaryLength length of the summary
+     */
+    private void fillGeneratedFields(@NonNull POST post, int summaryLength) {
+        Assert.notNull(post, "Post must not be null");
+
+        long wordCount = HaloUtils.countWords(HaloUtils.cleanHtmlTag(post.getFormatContent()));
 
-        // Get summary length
-        Integer summaryLength = optionService.getByPropertyOrDefault(PostProperties.SUMMARY_LENGTH, Integer.class, 150);
+        post.setGeneratedSummary(HtmlTextExtractor.extractEscapedText(post.getFormatContent(), summaryLength));
+        post.setWordCount(wordCount);
+        post.setReadingTime((int) ((wordCount + WORDS_PER_MINUTE - 1) / WORDS_PER_MINUTE));
+    }
 
-        return StringUtils.substring(text, 0, summaryLength);
+    private int getSummaryLength() {
+        return Math.max(0, optionService.getByPropertyOrDefault(PostProperties.SUMMARY_LENGTH, Integer.class, 150));
     }
 }
@@ -0,0 +1,323 @@
+package run.halo.app.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.event.content.ContentChangedEvent;
+import run.halo.app.exception.BadRequestException;
+import run.halo.app.model.dto.RenderProgressDTO;
+import run.halo.app.model.entity.BaseEntity;
+import run.halo.app.model.entity.BasePost;
+import run.halo.app.model.entity.Journal;
+import run.halo.app.model.enums.PostEditorType;
+import run.halo.app.repository.JournalRepository;
+import run.halo.app.repository.PostRepository;
+import run.halo.app.repository.SheetRepository;
+import run.halo.app.repository.base.BasePostRepository;
+import run.halo.app.service.ContentRenderService;
+import run.halo.app.service.PostService;
+import run.halo.app.service.SheetService;
+import run.halo.app.service.base.BasePostService;
+import run.halo.app.utils.MarkdownUtils;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.criteria.Predicate;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.domain.Sort.Direction.ASC;
+
+/**
+ * Content render service implementation.
+ * <p>
+ * Contents are loaded in batches ordered by id, rendered on a bounded pool and written back in one jdbc
+ * batch each. A content changed while the job runs is not overwritten, because the update is conditional
+ * on the update time read with the source.
+ * 重新渲染所有文章、页面和日志
+ */
+@Slf4j
+@Service
+public class ContentRenderServiceImpl implements ContentRenderService {
+
+    private final static int BATCH_SIZE = 100;
+
+    /**
+     * Posts and sheets are stored in the same table.
+     */
+    private final static String UPDATE_POST_SQL = "update posts set format_content = ? where id = ? and update_time = ?";
+
+    private final static String UPDATE_JOURNAL_SQL = "update journals set content = ? where id = ? and update_time = ?";
+
+    private final PostRepository postRepository;
+
+    private final SheetRepository sheetRepository;
+
+    private final JournalRepository journalRepository;
+
+    private final PostService postService;
+
+    private final SheetService sheetService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int parallelism;
+
+    private final ExecutorService jobExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Progress of the running or the last job, null if no job has been started.
+     */
+    private volatile Progress progress;
+
+    public ContentRenderServiceImpl(PostRepository postRepository,
+                                    SheetRepository sheetRepository,
+                                    JournalRepository journalRepository,
+                                    PostService postService,
+                                    SheetService sheetService,
+                                    JdbcTemplate jdbcTemplate,
+                                    ApplicationEventPublisher eventPublisher,
+                                    HaloProperties haloProperties) {
+        this.postRepository = postRepository;
+        this.sheetRepository = sheetRepository;
+        this.journalRepository = journalRepository;
+        this.postService = postService;
+        this.sheetService = sheetService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.parallelism = haloProperties.getContentRenderParallelism();
+        Assert.isTrue(parallelism > 0, "Content render parallelism must be greater than 0");
+
+        this.jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "content-render-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public RenderProgressDTO rerenderAll() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("内容正在重新渲染中，请稍后再试");
+        }
+
+        Progress currentProgress = new Progress();
+        progress = currentProgress;
+
+        try {
+            jobExecutor.execute(() -> run(currentProgress));
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+
+        return currentProgress.convertToDto();
+    }
+
+    @Override
+    public RenderProgressDTO getRerenderProgress() {
+        Progress currentProgress = progress;
+        if (currentProgress == null) {
+            RenderProgressDTO progressDTO = new RenderProgressDTO();
+            progressDTO.setRunning(false);
+            progressDTO.setTotal(0L);
+            progressDTO.setRendered(0L);
+            progressDTO.setFailed(0L);
+            return progressDTO;
+        }
+        return currentProgress.convertToDto();
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        jobExecutor.shutdownNow();
+    }
+
+    private void run(@NonNull Progress progress) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService renderPool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "content-render-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            progress.total.set(postRepository.countByEditorType(PostEditorType.MARKDOWN)
+                + sheetRepository.countByEditorType(PostEditorType.MARKDOWN)
+                + journalRepository.count());
+
+            log.info("Started re-rendering [{}] contents with [{}] threads", progress.total.get(), parallelism);
+
+            rerenderPosts(postRepository, renderPool, progress);
+            rerenderPosts(sheetRepository, renderPool, progress);
+            rerenderJournals(renderPool, progress);
+
+            // The summaries and word counts are generated from the format content
+            refreshGeneratedFields(postService);
+            refreshGeneratedFields(sheetService);
+
+            log.info("Re-rendered [{}] contents, [{}] failed", progress.rendered.get(), progress.failed.get());
+        } catch (InterruptedException e) {
+            log.warn("Re-rendering contents was interrupted");
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Failed to re-render contents", e);
+        } finally {
+            renderPool.shutdownNow();
+            progress.finishTime = new Date();
+            running.set(false);
+
+            // Bulk updates bypass the entity listeners
+            eventPublisher.publishEvent(new ContentChangedEvent(this, BasePost.class));
+        }
+    }
+
+    private <POST extends BasePost> void rerenderPosts(@NonNull BasePostRepository<POST> repository,
+                                                       @NonNull ExecutorService renderPool,
+                                                       @NonNull Progress progress) throws InterruptedException {
+        Integer lastId = null;
+        while (true) {
+            Integer afterId = lastId;
+            Specification<POST> specification = (root, query, criteriaBuilder) -> {
+                Predicate markdown = criteriaBuilder.equal(root.get("editorType"), PostEditorType.MARKDOWN);
+                return afterId == null ? markdown : criteriaBuilder.and(markdown, criteriaBuilder.greaterThan(root.get("id"), afterId));
+            };
+
+            List<POST> posts = repository.findAllPartially(specification, buildBatchPageable(),
+                Arrays.asList("id", "originalContent", "updateTime"));
+
+            if (posts.isEmpty()) {
+                return;
+            }
+
+            renderInBatch(posts, BasePost::getId, BasePost::getOriginalContent, UPDATE_POST_SQL, renderPool, progress);
+            lastId = posts.get(posts.size() - 1).getId();
+        }
+    }
+
+    private void rerenderJournals(@NonNull ExecutorService renderPool, @NonNull Progress progress) throws InterruptedException {
+        Integer lastId = null;
+        while (true) {
+            Integer afterId = lastId;
+            Specification<Journal> specification = afterId == null ? null
+                : (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("id"), afterId);
+
+            List<Journal> journals = journalRepository.findAllPartially(specification, buildBatchPageable(),
+                Arrays.asList("id", "sourceContent", "updateTime"));
+
+            if (journals.isEmpty()) {
+                return;
+            }
+
+            renderInBatch(journals, Journal::getId, Journal::getSourceContent, UPDATE_JOURNAL_SQL, renderPool, progress);
+            lastId = journals.get(journals.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Renders the contents in parallel and writes them in one batch.
+     *
+     * @param contents       contents with id, source and update time loaded
+     * @param idGetter       id getter
+     * @param sourceGetter   markdown source getter
+     * @param updateSql      sql updating html by id and update time
+     * @param renderPool     render pool
+     * @param progress       progress to report
+     * @param <CONTENT>      content type
+     * @throws InterruptedException if the job is interrupted
+     */
+    private <CONTENT extends BaseEntity> void renderInBatch(@NonNull List<CONTENT> contents,
+                                                            @NonNull Function<CONTENT, Integer> idGetter,
+                                                            @NonNull Function<CONTENT, String> sourceGetter,
+                                                            @NonNull String updateSql,
+                                                            @NonNull ExecutorService renderPool,
+                                                            @NonNull Progress progress) throws InterruptedException {
+        // Render without the render cache, which would be flooded by the whole site
+        List<Future<String>> futures = contents.stream()
+            .map(content -> renderPool.submit(() -> MarkdownUtils.renderHtml(sourceGetter.apply(content))))
+            .collect(Collectors.toList());
+
+        List<Object[]> batchArgs = new ArrayList<>(contents.size());
+        for (int i = 0; i < contents.size(); i++) {
+            CONTENT content = contents.get(i);
+            try {
+                batchArgs.add(new Object[] {futures.get(i).get(), idGetter.apply(content), content.getUpdateTime()});
+            } catch (ExecutionException e) {
+                progress.failed.incrementAndGet();
+                log.warn("Failed to render content with id: [{}]", idGetter.apply(content), e.getCause());
+            }
+        }
+
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        // Contents updated since they were loaded are skipped by the update time guard, the update renders them
+        int[] affectedRows = jdbcTemplate.batchUpdate(updateSql, batchArgs);
+        progress.rendered.addAndGet(Arrays.stream(affectedRows)
+            .filter(rows -> rows > 0 || rows == Statement.SUCCESS_NO_INFO)
+            .count());
+    }
+
+    private void refreshGeneratedFields(@NonNull BasePostService<?> basePostService) {
+        Integer lastId = basePostService.refreshGeneratedFields(null, true, null);
+        while (lastId != null) {
+            lastId = basePostService.refreshGeneratedFields(lastId, true, null);
+        }
+    }
+
+    @NonNull
+    private Pageable buildBatchPageable() {
+        return PageRequest.of(0, BATCH_SIZE, Sort.by(ASC, "id"));
+    }
+
+    /**
+     * Progress of a job.
+     */
+    private static class Progress {
+
+        private final AtomicLong total = new AtomicLong();
+
+        private final AtomicLong rendered = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        private final Date startTime = new Date();
+
+        @Nullable
+        private volatile Date finishTime;
+
+        @NonNull
+        private RenderProgressDTO convertToDto() {
+            RenderProgressDTO progressDTO = new RenderProgressDTO();
+            progressDTO.setRunning(finishTime == null);
+            progressDTO.setTotal(total.get());
+            progressDTO.setRendered(rendered.get());
+            progressDTO.setFailed(failed.get());
+            progressDTO.setStartTime(startTime);
+            progressDTO.setFinishTime(finishTime);
+            return progressDTO;
+        }
+    }
+}
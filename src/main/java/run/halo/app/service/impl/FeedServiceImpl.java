@@ -0,0 +1,145 @@
+package run.halo.app.service.impl;
+
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.ui.ModelMap;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
+import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.CacheRegion;
+import run.halo.app.exception.ServiceException;
+import run.halo.app.model.dto.CategoryDTO;
+import run.halo.app.model.entity.Post;
+import run.halo.app.model.enums.PostStatus;
+import run.halo.app.model.support.CachedFeed;
+import run.halo.app.model.vo.PostDetailVO;
+import run.halo.app.service.*;
+import run.halo.app.utils.HtmlTextExtractor;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+/**
+ * Feed service implementation.
+ * <p>
+ * The feeds are cached in the page region, which is cleared once any content, option or theme changes, so
+ * the feed readers polling them only cost a cache lookup.
+ * 订阅源渲染后缓存到内容或选项变更为止
+ */
+@Service
+public class FeedServiceImpl implements FeedService {
+
+    private final static String CACHE_KEY_PREFIX = "feed:";
+
+    private final static String RSS_TEMPLATE = "common/web/rss.ftl";
+
+    private final static String ATOM_TEMPLATE = "common/web/atom.ftl";
+
+    private final PostService postService;
+
+    private final CategoryService categoryService;
+
+    private final PostCategoryService postCategoryService;
+
+    private final OptionService optionService;
+
+    private final FreeMarkerConfigurer freeMarker;
+
+    private final AbstractStringCacheStore cacheStore;
+
+    public FeedServiceImpl(PostService postService,
+                           CategoryService categoryService,
+                           PostCategoryService postCategoryService,
+                           OptionService optionService,
+                           FreeMarkerConfigurer freeMarker,
+                           AbstractStringCacheStore cacheStore) {
+        this.postService = postService;
+        this.categoryService = categoryService;
+        this.postCategoryService = postCategoryService;
+        this.optionService = optionService;
+        this.freeMarker = freeMarker;
+        this.cacheStore = cacheStore;
+    }
+
+    @Override
+    public CachedFeed getRss(String categorySlug) {
+        return getFeed("rss", RSS_TEMPLATE, categorySlug);
+    }
+
+    @Override
+    public CachedFeed getAtom(String categorySlug) {
+        return getFeed("atom", ATOM_TEMPLATE, categorySlug);
+    }
+
+    @NonNull
+    private CachedFeed getFeed(@NonNull String type, @NonNull String templateName, @Nullable String categorySlug) {
+        String cacheKey = CACHE_KEY_PREFIX + type + (categorySlug == null ? "" : ":categories:" + categorySlug);
+
+        Supplier<String> loader = () -> {
+            ModelMap model = new ModelMap();
+            Pageable pageable = PageRequest.of(0, optionService.getRssPageSize(), Sort.by(DESC, "createTime"));
+
+            if (categorySlug == null) {
+                model.addAttribute("posts", buildPosts(postService.pageBy(PostStatus.PUBLISHED, pageable)));
+            } else {
+                CategoryDTO category = categoryService.convertTo(categoryService.getBySlugOfNonNull(categorySlug));
+                model.addAttribute("category", category);
+                model.addAttribute("posts", buildPosts(postCategoryService.pagePostBy(category.getId(), PostStatus.PUBLISHED, pageable)));
+            }
+
+            // Http dates are precise to seconds
+            return CachedFeed.format(render(templateName, model),
+                TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
+        };
+
+        // Cached as a plain string, so the feed is neither escaped into json nor kept deserialized on the heap
+        CacheRegion region = cacheStore.region(CacheRegion.PAGE);
+        Optional<CachedFeed> feed = CachedFeed.parse(region.getString(cacheKey, loader));
+        if (!feed.isPresent()) {
+            // Cached as json by the previous versions
+            region.delete(cacheKey);
+            feed = CachedFeed.parse(region.getString(cacheKey, loader));
+        }
+        return feed.orElseThrow(() -> new ServiceException("生成订阅源失败"));
+    }
+
+    /**
+     * Converts the posts, and removes the characters invalid in xml from the content and summary.
+     *
+     * @param postPage post page must not be null
+     * @return list of post detail vo
+     */
+    @NonNull
+    private List<PostDetailVO> buildPosts(@NonNull Page<Post> postPage) {
+        Page<PostDetailVO> posts = postService.convertToDetailVo(postPage);
+        posts.getContent().forEach(postDetailVO -> {
+            postDetailVO.setFormatContent(HtmlTextExtractor.stripInvalidXmlChars(postDetailVO.getFormatContent()));
+            postDetailVO.setSummary(HtmlTextExtractor.stripInvalidXmlChars(postDetailVO.getSummary()));
+        });
+        return posts.getContent();
+    }
+
+    @NonNull
+    private String render(@NonNull String templateName, @NonNull ModelMap model) {
+        StringWriter writer = new StringWriter();
+        try {
+            Template template = freeMarker.getConfiguration().getTemplate(templateName);
+            template.process(model, writer);
+        } catch (IOException | TemplateException e) {
+            throw new ServiceException("生成订阅源失败", e);
+        }
+        return writer.toString();
+    }
+}
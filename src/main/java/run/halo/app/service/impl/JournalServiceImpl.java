@@ -21,7 +21,7 @@ import run.halo.app.repository.JournalRepository;
 import run.halo.app.service.JournalCommentService;
 import run.halo.app.service.JournalService;
 import run.halo.app.service.base.AbstractCrudService;
-import run.halo.app.utils.MarkdownUtils;
+import run.halo.app.service.support.MarkdownRenderer;
 import run.halo.app.utils.ServiceUtils;
 
 import javax.persistence.criteria.Predicate;
@@ -43,11 +43,15 @@ public class JournalServiceImpl extends AbstractCrudService<Journal, Integer> im
 
     private final JournalCommentService journalCommentService;
 
+    private final MarkdownRenderer markdownRenderer;
+
     public JournalServiceImpl(JournalRepository journalRepository,
-                              JournalCommentService journalCommentService) {
+                              JournalCommentService journalCommentService,
+                              MarkdownRenderer markdownRenderer) {
         super(journalRepository);
         this.journalRepository = journalRepository;
         this.journalCommentService = journalCommentService;
+        this.markdownRenderer = markdownRenderer;
     }
 
     @Override
@@ -55,7 +59,7 @@ public class JournalServiceImpl extends AbstractCrudService<Journal, Integer> im
         Assert.notNull(journalParam, "Journal param must not be null");
 
         Journal journal = journalParam.convertTo();
-        journal.setContent(MarkdownUtils.renderHtml(journal.getSourceContent()));
+        journal.setContent(markdownRenderer.render(journal.getSourceContent()));
 
         return create(journal);
     }
@@ -64,7 +68,7 @@ public class JournalServiceImpl extends AbstractCrudService<Journal, Integer> im
     public Journal updateBy(Journal journal) {
         Assert.notNull(journal, "Journal must not be null");
 
-        journal.setContent(MarkdownUtils.renderHtml(journal.getSourceContent()));
+        journal.setContent(markdownRenderer.render(journal.getSourceContent()));
 
         return update(journal);
     }
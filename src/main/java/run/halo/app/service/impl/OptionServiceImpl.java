@@ -6,6 +6,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -36,6 +39,7 @@ import run.halo.app.utils.ValidationUtils;
 
 import javax.persistence.criteria.Predicate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -49,6 +53,11 @@ import java.util.stream.Collectors;
 @Service
 public class OptionServiceImpl extends AbstractCrudService<Option, Integer> implements OptionService {
 
+    /**
+     * Interval of checking whether the cached options are changed by the other nodes. (ms)
+     */
+    private final static long SNAPSHOT_CHECK_INTERVAL = 1000;
+
     private final OptionRepository optionRepository;
     private final ApplicationContext applicationContext;
     private final AbstractStringCacheStore cacheStore;
@@ -56,6 +65,11 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer> impl
     private final ApplicationEventPublisher eventPublisher;
     private final HaloProperties haloProperties;
 
+    /**
+     * Snapshot of the current options, it is swapped as a whole.
+     */
+    private final AtomicReference<SnapshotHolder> snapshotHolder = new AtomicReference<>(new SnapshotHolder(0, null, 0));
+
     public OptionServiceImpl(HaloProperties haloProperties,
                              OptionRepository optionRepository,
                              ApplicationContext applicationContext,
@@ -168,10 +182,45 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer> impl
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Map<String, Object> listOptions() {
-        // Get options from cache
-        return cacheStore.getAny(OPTIONS_KEY, Map.class).orElseGet(() -> {
+        // The cached map is shared so expose it as read-only
+        return Collections.unmodifiableMap(loadOptions());
+    }
+
+    @Override
+    @NonNull
+    public OptionSnapshot getSnapshot() {
+        SnapshotHolder holder = snapshotHolder.get();
+        OptionSnapshot currentSnapshot = holder.snapshot;
+        long now = System.currentTimeMillis();
+        if (currentSnapshot != null && now - holder.checkedAt < SNAPSHOT_CHECK_INTERVAL) {
+            return currentSnapshot;
+        }
+
+        // The cached options may be evicted by the other nodes sharing the cache store
+        Map<String, Object> options = loadOptions();
+        if (currentSnapshot == null || !currentSnapshot.isCreatedFrom(options)) {
+            currentSnapshot = new OptionSnapshot(options);
+        }
+
+        // Not published if the snapshot is reset meanwhile, since the options may be loaded before updated
+        snapshotHolder.compareAndSet(holder, new SnapshotHolder(holder.version, currentSnapshot, now));
+        return currentSnapshot;
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOptionUpdated(OptionUpdatedEvent event) {
+        // Options may be updated without evicting the cache, by importing a backup for example
+        cleanCache();
+        resetSnapshot();
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> loadOptions() {
+        // Get options from cache, concurrent misses are collapsed into one load
+        return cacheStore.get(OPTIONS_KEY, Map.class, () -> {
             List<Option> options = listAll();
 
             Set<String> keys = ServiceUtils.fetchProperty(options, Option::getKey);
@@ -204,9 +253,6 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer> impl
                     result.put(key, PropertyEnum.convertTo(propertyEnum.defaultValue(), propertyEnum));
                 });
 
-            // Cache the result
-            cacheStore.putAny(OPTIONS_KEY, result);
-
             return result;
         });
     }
@@ -312,24 +358,39 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer> impl
     public Optional<Object> getByProperty(PropertyEnum property) {
         Assert.notNull(property, "Blog property must not be null");
 
-        return getByKey(property.getValue());
+        return Optional.ofNullable(getSnapshot().get(property));
     }
 
     @Override
     public <T> T getByPropertyOrDefault(PropertyEnum property, Class<T> propertyType, T defaultValue) {
         Assert.notNull(property, "Blog property must not be null");
 
-        return getByProperty(property, propertyType).orElse(defaultValue);
+        T value = getTypedProperty(property, propertyType);
+        return value == null ? defaultValue : value;
     }
 
     @Override
     public <T> T getByPropertyOrDefault(PropertyEnum property, Class<T> propertyType) {
-        return getByProperty(property, propertyType).orElse(property.defaultValue(propertyType));
+        T value = getTypedProperty(property, propertyType);
+        return value == null ? property.defaultValue(propertyType) : value;
     }
 
     @Override
     public <T> Optional<T> getByProperty(PropertyEnum property, Class<T> propertyType) {
-        return getByProperty(property).map(propertyValue -> PropertyEnum.convertTo(propertyValue.toString(), propertyType));
+        return Optional.ofNullable(getTypedProperty(property, propertyType));
+    }
+
+    @Nullable
+    private <T> T getTypedProperty(@NonNull PropertyEnum property, @NonNull Class<T> propertyType) {
+        Object value = getSnapshot().get(property);
+        if (value == null) {
+            return null;
+        }
+        if (value.getClass() == propertyType) {
+            // Converted while loading already
+            return propertyType.cast(value);
+        }
+        return PropertyEnum.convertTo(value.toString(), propertyType);
     }
 
     @Override
@@ -364,42 +425,26 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer> impl
 
     @Override
     public int getPostPageSize() {
-        try {
-            return getByPropertyOrDefault(PostProperties.INDEX_PAGE_SIZE, Integer.class, DEFAULT_POST_PAGE_SIZE);
-        } catch (NumberFormatException e) {
-            log.error(PostProperties.INDEX_PAGE_SIZE.getValue() + " option is not a number format", e);
-            return DEFAULT_POST_PAGE_SIZE;
-        }
+        // Falls back to the default page size if it is not a number
+        return getSnapshot().getIntOrDefault(PostProperties.INDEX_PAGE_SIZE, DEFAULT_POST_PAGE_SIZE);
     }
 
     @Override
     public int getArchivesPageSize() {
-        try {
-            return getByPropertyOrDefault(PostProperties.ARCHIVES_PAGE_SIZE, Integer.class, DEFAULT_ARCHIVES_PAGE_SIZE);
-        } catch (NumberFormatException e) {
-            log.error(PostProperties.ARCHIVES_PAGE_SIZE.getValue() + " option is not a number format", e);
-            return DEFAULT_POST_PAGE_SIZE;
-        }
+        // Falls back to the default page size if it is not a number
+        return getSnapshot().getIntOrDefault(PostProperties.ARCHIVES_PAGE_SIZE, DEFAULT_ARCHIVES_PAGE_SIZE);
     }
 
     @Override
     public int getCommentPageSize() {
-        try {
-            return getByPropertyOrDefault(CommentProperties.PAGE_SIZE, Integer.class, DEFAULT_COMMENT_PAGE_SIZE);
-        } catch (NumberFormatException e) {
-            log.error(CommentProperties.PAGE_SIZE.getValue() + " option is not a number format", e);
-            return DEFAULT_COMMENT_PAGE_SIZE;
-        }
+        // Falls back to the default page size if it is not a number
+        return getSnapshot().getIntOrDefault(CommentProperties.PAGE_SIZE, DEFAULT_COMMENT_PAGE_SIZE);
     }
 
     @Override
     public int getRssPageSize() {
-        try {
-            return getByPropertyOrDefault(PostProperties.RSS_PAGE_SIZE, Integer.class, DEFAULT_RSS_PAGE_SIZE);
-        } catch (NumberFormatException e) {
-            log.error(PostProperties.RSS_PAGE_SIZE.getValue() + " setting is not a number format", e);
-            return DEFAULT_RSS_PAGE_SIZE;
-        }
+        // Falls back to the default page size if it is not a number
+        return getSnapshot().getIntOrDefault(PostProperties.RSS_PAGE_SIZE, DEFAULT_RSS_PAGE_SIZE);
     }
 
     @Override
@@ -475,14 +520,11 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer> impl
 
     @Override
     public String getBlogBaseUrl() {
-        // Get server port
-        String serverPort = applicationContext.getEnvironment().getProperty("server.port", "8080");
+        String blogUrl = getSnapshot().getBlogUrl();
 
-        String blogUrl = getByProperty(BlogProperties.BLOG_URL).orElse("").toString();
-
-        if (StringUtils.isNotBlank(blogUrl)) {
-            blogUrl = StringUtils.removeEnd(blogUrl, "/");
-        } else {
+        if (blogUrl == null) {
+            // Get server port
+            String serverPort = applicationContext.getEnvironment().getProperty("server.port", "8080");
             blogUrl = String.format("http://%s:%s", "127.0.0.1", serverPort);
         }
 
@@ -491,17 +533,17 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer> impl
 
     @Override
     public String getBlogTitle() {
-        return getByProperty(BlogProperties.BLOG_TITLE).orElse("").toString();
+        return getSnapshot().getStringOrDefault(BlogProperties.BLOG_TITLE, "");
     }
 
     @Override
     public String getSeoKeywords() {
-        return getByProperty(SeoProperties.KEYWORDS).orElse("").toString();
+        return getSnapshot().getStringOrDefault(SeoProperties.KEYWORDS, "");
     }
 
     @Override
     public String getSeoDescription() {
-        return getByProperty(SeoProperties.DESCRIPTION).orElse("").toString();
+        return getSnapshot().getStringOrDefault(SeoProperties.DESCRIPTION, "");
     }
 
     @Override
@@ -515,52 +557,52 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer> impl
 
     @Override
     public PostPermalinkType getPostPermalinkType() {
-        return getEnumByPropertyOrDefault(PermalinkProperties.POST_PERMALINK_TYPE, PostPermalinkType.class, PostPermalinkType.DEFAULT);
+        return getSnapshot().getEnumOrDefault(PermalinkProperties.POST_PERMALINK_TYPE, PostPermalinkType.class, PostPermalinkType.DEFAULT);
     }
 
     @Override
     public String getSheetPrefix() {
-        return getByPropertyOrDefault(PermalinkProperties.SHEET_PREFIX, String.class, PermalinkProperties.SHEET_PREFIX.defaultValue());
+        return getSnapshot().getStringOrDefault(PermalinkProperties.SHEET_PREFIX, PermalinkProperties.SHEET_PREFIX.defaultValue());
     }
 
     @Override
     public String getLinksPrefix() {
-        return getByPropertyOrDefault(PermalinkProperties.LINKS_PREFIX, String.class, PermalinkProperties.LINKS_PREFIX.defaultValue());
+        return getSnapshot().getStringOrDefault(PermalinkProperties.LINKS_PREFIX, PermalinkProperties.LINKS_PREFIX.defaultValue());
     }
 
     @Override
     public String getPhotosPrefix() {
-        return getByPropertyOrDefault(PermalinkProperties.PHOTOS_PREFIX, String.class, PermalinkProperties.PHOTOS_PREFIX.defaultValue());
+        return getSnapshot().getStringOrDefault(PermalinkProperties.PHOTOS_PREFIX, PermalinkProperties.PHOTOS_PREFIX.defaultValue());
     }
 
     @Override
     public String getJournalsPrefix() {
-        return getByPropertyOrDefault(PermalinkProperties.JOURNALS_PREFIX, String.class, PermalinkProperties.JOURNALS_PREFIX.defaultValue());
+        return getSnapshot().getStringOrDefault(PermalinkProperties.JOURNALS_PREFIX, PermalinkProperties.JOURNALS_PREFIX.defaultValue());
     }
 
     @Override
     public String getArchivesPrefix() {
-        return getByPropertyOrDefault(PermalinkProperties.ARCHIVES_PREFIX, String.class, PermalinkProperties.ARCHIVES_PREFIX.defaultValue());
+        return getSnapshot().getStringOrDefault(PermalinkProperties.ARCHIVES_PREFIX, PermalinkProperties.ARCHIVES_PREFIX.defaultValue());
     }
 
     @Override
     public String getCategoriesPrefix() {
-        return getByPropertyOrDefault(PermalinkProperties.CATEGORIES_PREFIX, String.class, PermalinkProperties.CATEGORIES_PREFIX.defaultValue());
+        return getSnapshot().getStringOrDefault(PermalinkProperties.CATEGORIES_PREFIX, PermalinkProperties.CATEGORIES_PREFIX.defaultValue());
     }
 
     @Override
     public String getTagsPrefix() {
-        return getByPropertyOrDefault(PermalinkProperties.TAGS_PREFIX, String.class, PermalinkProperties.TAGS_PREFIX.defaultValue());
+        return getSnapshot().getStringOrDefault(PermalinkProperties.TAGS_PREFIX, PermalinkProperties.TAGS_PREFIX.defaultValue());
     }
 
     @Override
     public String getPathSuffix() {
-        return getByPropertyOrDefault(PermalinkProperties.PATH_SUFFIX, String.class, PermalinkProperties.PATH_SUFFIX.defaultValue());
+        return getSnapshot().getStringOrDefault(PermalinkProperties.PATH_SUFFIX, PermalinkProperties.PATH_SUFFIX.defaultValue());
     }
 
     @Override
     public Boolean isEnabledAbsolutePath() {
-        return getByPropertyOrDefault(OtherProperties.GLOBAL_ABSOLUTE_PATH_ENABLED, Boolean.class, true);
+        return getSnapshot().getBooleanOrDefault(OtherProperties.GLOBAL_ABSOLUTE_PATH_ENABLED, true);
     }
 
     @Override
@@ -589,10 +631,44 @@ public class OptionServiceImpl extends AbstractCrudService<Option, Integer> impl
         cacheStore.delete(OPTIONS_KEY);
     }
 
+    /**
+     * Drops the snapshot, the next getter rebuilds it from the current options.
+     */
+    private void resetSnapshot() {
+        // Bump the version, so the snapshots being built from the previous options are dropped
+        snapshotHolder.updateAndGet(holder -> new SnapshotHolder(holder.version + 1, null, 0));
+    }
+
     private void publishOptionUpdatedEvent() {
         flush();
         cleanCache();
+        // The listeners of the event must read the updated options
+        resetSnapshot();
         eventPublisher.publishEvent(new OptionUpdatedEvent(this));
     }
-}
 
+    /**
+     * Snapshot with the version of the options it is built from.
+     */
+    private static class SnapshotHolder {
+
+        /**
+         * Version of the options, incremented once the options are updated.
+         */
+        private final long version;
+
+        @Nullable
+        private final OptionSnapshot snapshot;
+
+        /**
+         * Last time of checking whether the cached options are changed by the other nodes.
+         */
+        private final long checkedAt;
+
+        private SnapshotHolder(long version, @Nullable OptionSnapshot snapshot, long checkedAt) {
+            this.version = version;
+            this.snapshot = snapshot;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package run.halo.app.service.impl;
 import cn.hutool.core.date.DateUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -31,11 +33,14 @@ import run.halo.app.model.vo.*;
 import run.halo.app.repository.PostRepository;
 import run.halo.app.repository.base.BasePostRepository;
 import run.halo.app.service.*;
+import run.halo.app.service.support.MarkdownRenderer;
+import run.halo.app.service.support.PostCounterAccumulator;
 import run.halo.app.utils.DateUtils;
 import run.halo.app.utils.MarkdownUtils;
 import run.halo.app.utils.ServiceUtils;
 import run.halo.app.utils.SlugUtils;
 
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
@@ -43,6 +48,7 @@ import javax.validation.constraints.NotNull;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.domain.Sort.Direction.ASC;
 import static org.springframework.data.domain.Sort.Direction.DESC;
 import static run.halo.app.model.support.HaloConst.URL_SEPARATOR;
 
@@ -86,8 +92,10 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
                            PostCategoryService postCategoryService,
                            PostCommentService postCommentService,
                            ApplicationEventPublisher eventPublisher,
-                           PostMetaService postMetaService) {
-        super(basePostRepository, optionService);
+                           PostMetaService postMetaService,
+                           PostCounterAccumulator postCounterAccumulator,
+                           MarkdownRenderer markdownRenderer) {
+        super(basePostRepository, optionService, postCounterAccumulator, markdownRenderer);
         this.postRepository = postRepository;
         this.tagService = tagService;
         this.categoryService = categoryService;
@@ -237,8 +245,7 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
     @Override
     public List<ArchiveYearVO> listYearArchives() {
         // Get all posts
-        List<Post> posts = postRepository
-            .findAllByStatus(PostStatus.PUBLISHED, Sort.by(DESC, "createTime"));
+        List<Post> posts = listAllBriefBy(PostStatus.PUBLISHED, Sort.by(DESC, "createTime"));
 
         return convertToYearArchives(posts);
     }
@@ -246,8 +253,7 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
     @Override
     public List<ArchiveMonthVO> listMonthArchives() {
         // Get all posts
-        List<Post> posts = postRepository
-            .findAllByStatus(PostStatus.PUBLISHED, Sort.by(DESC, "createTime"));
+        List<Post> posts = listAllBriefBy(PostStatus.PUBLISHED, Sort.by(DESC, "createTime"));
 
         return convertToMonthArchives(posts);
     }
@@ -519,9 +525,7 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
         return postPage.map(post -> {
             PostListVO postListVO = new PostListVO().convertFrom(post);
 
-            if (StringUtils.isBlank(postListVO.getSummary())) {
-                postListVO.setSummary(generateSummary(post.getFormatContent()));
-            }
+            postListVO.setSummary(resolveSummary(post));
 
             Optional.ofNullable(tagListMap.get(post.getId())).orElseGet(LinkedList::new);
 
@@ -577,9 +581,7 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
         return posts.stream().map(post -> {
             PostListVO postListVO = new PostListVO().convertFrom(post);
 
-            if (StringUtils.isBlank(postListVO.getSummary())) {
-                postListVO.setSummary(generateSummary(post.getFormatContent()));
-            }
+            postListVO.setSummary(resolveSummary(post));
 
             Optional.ofNullable(tagListMap.get(post.getId())).orElseGet(LinkedList::new);
 
@@ -647,9 +649,7 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
         BasePostSimpleDTO basePostSimpleDTO = new BasePostSimpleDTO().convertFrom(post);
 
         // Set summary
-        if (StringUtils.isBlank(basePostSimpleDTO.getSummary())) {
-            basePostSimpleDTO.setSummary(generateSummary(post.getFormatContent()));
-        }
+        basePostSimpleDTO.setSummary(resolveSummary(post));
 
         basePostSimpleDTO.setFullPath(buildFullPath(post));
 
@@ -673,9 +673,7 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
         // Convert to base detail vo
         PostDetailVO postDetailVO = new PostDetailVO().convertFrom(post);
 
-        if (StringUtils.isBlank(postDetailVO.getSummary())) {
-            postDetailVO.setSummary(generateSummary(post.getFormatContent()));
-        }
+        postDetailVO.setSummary(resolveSummary(post));
 
         // Extract ids
         Set<Integer> tagIds = ServiceUtils.fetchProperty(tags, Tag::getId);
@@ -794,65 +792,63 @@ public class PostServiceImpl extends BasePostServiceImpl<Post> implements PostSe
     public @NotNull AdjacentPostVO getAdjacentPosts(Post currentPost) {
         Assert.notNull(currentPost, "Post must not be null");
 
-        // get pageable post list
-        List<Post> postList = new ArrayList<>();
-        // init fist page && default page size
-        int page = 1;
-        int defaultPageSize = 500;
-        boolean needNext = true;
-
-        // get custom sort type
         Sort sort = getPostDefaultSort();
-        Pageable pageable = null;
-        PostStatus postStatus = PostStatus.PUBLISHED;
-        long totalCount = countByStatus(postStatus);
-
-        while (needNext && totalCount > postList.size()) {
-            pageable = PageRequest
-                .of(page >= 1 ? page - 1 : page, defaultPageSize, sort);
-
-            Page<Post> postPage = pageBy(postStatus, pageable);
-            List<Post> pageablePostList = postPage.getContent();
-            if (pageablePostList.size() == 0) {
-                break;
-            }
-            postList.addAll(postPage.getContent());
-            if (postList.stream().filter(it -> it.getId().equals(currentPost.getId())).count() == 1
-                && !postList.stream().reduce((first, second) -> second).get().getId()
-                .equals(currentPost.getId())) {
-                // contains the post && the post is not in the end
-                needNext = false;
-            }
 
-            page++;
-        }
+        // Columns needed by links only
+        Set<String> attributes = new LinkedHashSet<>(BRIEF_POST_ATTRIBUTES);
+        sort.forEach(order -> attributes.add(order.getProperty()));
 
-        if (CollectionUtils.isEmpty(postList)) {
-            // if post list is empty, return empty object
-            return AdjacentPostVO.builder().build();
-        }
+        // The previous post is the first one before the current post, which is the last one in the reversed order
+        Sort reversedSort = Sort.by(sort.stream()
+            .map(order -> order.with(order.isAscending() ? DESC : ASC))
+            .collect(Collectors.toList()));
 
-        // get current post index in post list
-        List<Integer> idList = postList.stream().map(Post::getId).collect(Collectors.toList());
-        int index = idList.indexOf(currentPost.getId());
+        AdjacentPostVO adjacentPostVO = new AdjacentPostVO();
+        postRepository.findAllPartially(buildAfterSpecification(currentPost, reversedSort), PageRequest.of(0, 1, reversedSort), attributes)
+            .stream().findFirst().ifPresent(adjacentPostVO::setPrevPost);
+        postRepository.findAllPartially(buildAfterSpecification(currentPost, sort), PageRequest.of(0, 1, sort), attributes)
+            .stream().findFirst().ifPresent(adjacentPostVO::setNextPost);
+        return adjacentPostVO;
+    }
 
-        if (index == -1) {
-            // if not found, return empty object
-            return AdjacentPostVO.builder().build();
-        }
+    /**
+     * Builds the keyset specification of the published posts after the current post in the given order.
+     *
+     * @param currentPost current post must not be null
+     * @param sort        sort must not be null
+     * @return keyset specification
+     */
+    @NonNull
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Specification<Post> buildAfterSpecification(@NonNull Post currentPost, @NonNull Sort sort) {
+        BeanWrapper currentPostWrapper = new BeanWrapperImpl(currentPost);
+
+        return (root, query, criteriaBuilder) -> {
+            // (a > ?) or (a = ? and b > ?) or (a = ? and b = ? and c > ?)
+            List<Predicate> afterPredicates = new LinkedList<>();
+            List<Predicate> equalPredicates = new LinkedList<>();
+            for (Sort.Order order : sort) {
+                Path path = root.get(order.getProperty());
+                Comparable value = (Comparable) currentPostWrapper.getPropertyValue(order.getProperty());
+                if (value == null) {
+                    // Rows with null values are never after the current post
+                    break;
+                }
 
-        AdjacentPostVO adjacentPostVO = new AdjacentPostVO();
+                Predicate afterPredicate = order.isAscending() ?
+                    criteriaBuilder.greaterThan(path, value) : criteriaBuilder.lessThan(path, value);
 
-        // setup pre
-        if (index > 0) {
-            adjacentPostVO.setPrevPost(postList.get(index - 1));
-        }
-        // setup next
-        if (index < postList.size() - 1) {
-            adjacentPostVO.setNextPost(postList.get(index + 1));
-        }
+                List<Predicate> predicates = new LinkedList<>(equalPredicates);
+                predicates.add(afterPredicate);
+                afterPredicates.add(criteriaBuilder.and(predicates.toArray(new Predicate[0])));
 
-        return adjacentPostVO;
+                equalPredicates.add(criteriaBuilder.equal(path, value));
+            }
+
+            return criteriaBuilder.and(
+                criteriaBuilder.equal(root.get("status"), PostStatus.PUBLISHED),
+                criteriaBuilder.or(afterPredicates.toArray(new Predicate[0])));
+        };
     }
 
     @Override
@@ -1,7 +1,6 @@
 package run.halo.app.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -24,6 +23,8 @@ import run.halo.app.model.vo.SheetDetailVO;
 import run.halo.app.model.vo.SheetListVO;
 import run.halo.app.repository.SheetRepository;
 import run.halo.app.service.*;
+import run.halo.app.service.support.MarkdownRenderer;
+import run.halo.app.service.support.PostCounterAccumulator;
 import run.halo.app.utils.MarkdownUtils;
 import run.halo.app.utils.ServiceUtils;
 
@@ -61,8 +62,10 @@ public class SheetServiceImpl extends BasePostServiceImpl<Sheet> implements Shee
                             SheetCommentService sheetCommentService,
                             SheetMetaService sheetMetaService,
                             ThemeService themeService,
-                            OptionService optionService) {
-        super(sheetRepository, optionService);
+                            OptionService optionService,
+                            PostCounterAccumulator postCounterAccumulator,
+                            MarkdownRenderer markdownRenderer) {
+        super(sheetRepository, optionService, postCounterAccumulator, markdownRenderer);
         this.sheetRepository = sheetRepository;
         this.eventPublisher = eventPublisher;
         this.sheetCommentService = sheetCommentService;
@@ -312,9 +315,7 @@ public class SheetServiceImpl extends BasePostServiceImpl<Sheet> implements Shee
         sheetDetailVO.setMetaIds(metaIds);
         sheetDetailVO.setMetas(sheetMetaService.convertTo(metas));
 
-        if (StringUtils.isBlank(sheetDetailVO.getSummary())) {
-            sheetDetailVO.setSummary(generateSummary(sheet.getFormatContent()));
-        }
+        sheetDetailVO.setSummary(resolveSummary(sheet));
 
         sheetDetailVO.setCommentCount(sheetCommentService.countByPostId(sheet.getId()));
 
@@ -0,0 +1,155 @@
+package run.halo.app.service.impl;
+
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.ui.ModelMap;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
+import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.CacheRegion;
+import run.halo.app.exception.NotFoundException;
+import run.halo.app.exception.ServiceException;
+import run.halo.app.model.dto.post.BasePostMinimalDTO;
+import run.halo.app.model.enums.PostStatus;
+import run.halo.app.service.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.springframework.data.domain.Sort.Direction.ASC;
+
+/**
+ * Sitemap service implementation.
+ * <p>
+ * Only the attributes building the links are loaded, and the posts are loaded in batches while the
+ * sitemap is being written, so a sitemap of the posts never holds more than one batch. The generated
+ * sitemaps are cached in the page region, which is cleared once any content changes. A sitemap is written
+ * into a string rather than streamed into the response, since the string cache store can only keep it as a
+ * whole, and it is cached as it is, so it is neither escaped into json nor kept deserialized.
+ * 站点地图按需分批加载文章，生成后缓存到内容变更为止
+ */
+@Service
+public class SitemapServiceImpl implements SitemapService {
+
+    /**
+     * Number of the posts loaded at a time, must divide {@link #MAX_URLS}.
+     */
+    private final static int BATCH_SIZE = 1000;
+
+    private final static String CACHE_KEY_PREFIX = "sitemap:";
+
+    private final PostService postService;
+
+    private final SheetService sheetService;
+
+    private final CategoryService categoryService;
+
+    private final TagService tagService;
+
+    private final OptionService optionService;
+
+    private final FreeMarkerConfigurer freeMarker;
+
+    private final AbstractStringCacheStore cacheStore;
+
+    public SitemapServiceImpl(PostService postService,
+                              SheetService sheetService,
+                              CategoryService categoryService,
+                              TagService tagService,
+                              OptionService optionService,
+                              FreeMarkerConfigurer freeMarker,
+                              AbstractStringCacheStore cacheStore) {
+        this.postService = postService;
+        this.sheetService = sheetService;
+        this.categoryService = categoryService;
+        this.tagService = tagService;
+        this.optionService = optionService;
+        this.freeMarker = freeMarker;
+        this.cacheStore = cacheStore;
+    }
+
+    @Override
+    public String getIndex() {
+        return getCached("index", () -> {
+            String blogBaseUrl = optionService.getBlogBaseUrl();
+
+            List<String> sitemaps = new ArrayList<>();
+            sitemaps.add(blogBaseUrl + "/sitemap/pages.xml");
+            int postPages = getPostPages(postService.countByStatus(PostStatus.PUBLISHED));
+            for (int page = 1; page <= postPages; page++) {
+                sitemaps.add(blogBaseUrl + "/sitemap/posts-" + page + ".xml");
+            }
+
+            ModelMap model = new ModelMap();
+            model.addAttribute("sitemaps", sitemaps);
+            return render("common/web/sitemap_index_xml.ftl", model);
+        });
+    }
+
+    @Override
+    public String getPages() {
+        return getCached("pages", () -> {
+            ModelMap model = new ModelMap();
+            model.addAttribute("sheets", sheetService.convertToMinimal(
+                sheetService.listForSitemapBy(PostStatus.PUBLISHED, PageRequest.of(0, MAX_URLS, Sort.by(ASC, "id")))));
+            model.addAttribute("categories", categoryService.convertTo(categoryService.listAll()));
+            model.addAttribute("tags", tagService.convertTo(tagService.listAll()));
+            return render("common/web/sitemap_pages_xml.ftl", model);
+        });
+    }
+
+    @Override
+    public String getPosts(int page) {
+        long count = postService.countByStatus(PostStatus.PUBLISHED);
+        if (page < 1 || page > getPostPages(count)) {
+            throw new NotFoundException("站点地图不存在").setErrorData(page);
+        }
+
+        return getCached("posts:" + page, () -> {
+            long firstIndex = (long) (page - 1) * MAX_URLS;
+            int urls = (int) Math.min(MAX_URLS, count - firstIndex);
+            int firstBatch = (int) (firstIndex / BATCH_SIZE);
+            int batches = (urls + BATCH_SIZE - 1) / BATCH_SIZE;
+
+            // Loads the next batch only when the template reaches it
+            Iterator<BasePostMinimalDTO> posts = IntStream.range(firstBatch, firstBatch + batches)
+                .mapToObj(batch -> postService.listForSitemapBy(PostStatus.PUBLISHED,
+                    PageRequest.of(batch, BATCH_SIZE, Sort.by(ASC, "id"))))
+                .flatMap(batchPosts -> postService.convertToMinimal(batchPosts).stream())
+                .iterator();
+
+            ModelMap model = new ModelMap();
+            model.addAttribute("posts", posts);
+            return render("common/web/sitemap_posts_xml.ftl", model);
+        });
+    }
+
+    private int getPostPages(long count) {
+        return (int) ((count + MAX_URLS - 1) / MAX_URLS);
+    }
+
+    @NonNull
+    private String getCached(@NonNull String key, @NonNull Supplier<String> loader) {
+        return cacheStore.region(CacheRegion.PAGE).getString(CACHE_KEY_PREFIX + key, loader);
+    }
+
+    @NonNull
+    private String render(@NonNull String templateName, @NonNull ModelMap model) {
+        StringWriter writer = new StringWriter();
+        try {
+            Template template = freeMarker.getConfiguration().getTemplate(templateName);
+            template.process(model, writer);
+        } catch (IOException | TemplateException e) {
+            throw new ServiceException("生成站点地图失败", e);
+        }
+        return writer.toString();
+    }
+}
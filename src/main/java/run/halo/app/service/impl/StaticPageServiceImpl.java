@@ -1,7 +1,6 @@
 package run.halo.app.service.impl;
 
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.io.file.FileWriter;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.PageUtil;
 import freemarker.template.Template;
@@ -15,7 +14,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.ui.ModelMap;
-import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
 import org.springframework.util.Assert;
 import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
 import run.halo.app.config.properties.HaloProperties;
@@ -37,8 +35,8 @@ import run.halo.app.model.vo.SheetDetailVO;
 import run.halo.app.service.*;
 import run.halo.app.utils.DateTimeUtils;
 import run.halo.app.utils.FileUtils;
+import run.halo.app.utils.FreemarkerUtils;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
@@ -46,6 +44,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.LinkedList;
 import java.util.List;
@@ -240,7 +239,7 @@ public class StaticPageServiceImpl implements StaticPageService {
         String indexSort = optionService.getByPropertyOfNonNull(PostProperties.INDEX_SORT).toString();
         int pageSize = optionService.getPostPageSize();
         Pageable pageable = PageRequest.of(page >= 1 ? page - 1 : page, pageSize, Sort.by(DESC, "topPriority").and(Sort.by(DESC, indexSort)));
-        Page<Post> postPage = postService.pageBy(PostStatus.PUBLISHED, pageable);
+        Page<Post> postPage = postService.pageBriefBy(PostStatus.PUBLISHED, pageable);
         Page<PostListVO> posts = postService.convertToListVo(postPage);
         int[] rainbow = PageUtil.rainbow(page, posts.getTotalPages(), 3);
 
@@ -249,18 +248,13 @@ public class StaticPageServiceImpl implements StaticPageService {
         model.addAttribute("rainbow", rainbow);
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("index"));
-        String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-
-        FileWriter fileWriter;
 
         if (page == 1) {
-            fileWriter = new FileWriter(getPageFile("index.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("index.html"));
         } else {
-            fileWriter = new FileWriter(getPageFile("page/" + page + "/index.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("page/" + page + "/index.html"));
         }
 
-        fileWriter.write(html);
-
         if (postPage.hasNext()) {
             generateIndex(postPage.getNumber() + 2);
             log.info("Generate page/{}/index.html", postPage.getNumber() + 2);
@@ -285,7 +279,7 @@ public class StaticPageServiceImpl implements StaticPageService {
 
         Pageable pageable = PageRequest.of(page - 1, optionService.getPostPageSize(), Sort.by(DESC, "topPriority"));
 
-        Page<Post> postPage = postService.pageBy(PostStatus.PUBLISHED, pageable);
+        Page<Post> postPage = postService.pageBriefBy(PostStatus.PUBLISHED, pageable);
         Page<PostListVO> postListVos = postService.convertToListVo(postPage);
         int[] pageRainbow = PageUtil.rainbow(page, postListVos.getTotalPages(), 3);
 
@@ -294,18 +288,13 @@ public class StaticPageServiceImpl implements StaticPageService {
         model.addAttribute("posts", postListVos);
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("archives"));
-        String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-
-        FileWriter fileWriter;
 
         if (page == 1) {
-            fileWriter = new FileWriter(getPageFile("archives/index.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("archives/index.html"));
         } else {
-            fileWriter = new FileWriter(getPageFile("archives/page/" + page + "/index.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("archives/page/" + page + "/index.html"));
         }
 
-        fileWriter.write(html);
-
         if (postPage.hasNext()) {
             generateArchives(postPage.getNumber() + 2);
             log.info("Generate page/{}/index.html", postPage.getNumber() + 2);
@@ -346,10 +335,7 @@ public class StaticPageServiceImpl implements StaticPageService {
             model.addAttribute("metas", postMetaService.convertToMap(metas));
 
             Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("post"));
-            String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-
-            FileWriter fileWriter = new FileWriter(getPageFile("archives/" + post.getSlug() + "/index.html"), "UTF-8");
-            fileWriter.write(html);
+            FreemarkerUtils.process(template, model, getPagePath("archives/" + post.getSlug() + "/index.html"));
             log.info("Generate archives/{}/index.html succeed.", post.getSlug());
         }
     }
@@ -383,10 +369,7 @@ public class StaticPageServiceImpl implements StaticPageService {
             }
 
             Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix(templateName));
-            String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-
-            FileWriter fileWriter = new FileWriter(getPageFile("s/" + sheet.getSlug() + "/index.html"), "UTF-8");
-            fileWriter.write(html);
+            FreemarkerUtils.process(template, model, getPagePath("s/" + sheet.getSlug() + "/index.html"));
 
             log.info("Generate s/{}/index.html succeed.", sheet.getSlug());
         }
@@ -407,9 +390,7 @@ public class StaticPageServiceImpl implements StaticPageService {
         }
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("links"));
-        String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, null);
-        FileWriter fileWriter = new FileWriter(getPageFile("links/index.html"), "UTF-8");
-        fileWriter.write(html);
+        FreemarkerUtils.process(template, null, getPagePath("links/index.html"));
 
         log.info("Generate links.html succeed.");
     }
@@ -435,18 +416,14 @@ public class StaticPageServiceImpl implements StaticPageService {
 
         model.addAttribute("photos", photos);
 
-        FileWriter fileWriter;
+        Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("photos"));
 
         if (page == 1) {
-            fileWriter = new FileWriter(getPageFile("photos/index.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("photos/index.html"));
         } else {
-            fileWriter = new FileWriter(getPageFile("photos/page/" + page + "/photos.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("photos/page/" + page + "/photos.html"));
         }
 
-        Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("photos"));
-        String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-        fileWriter.write(html);
-
         log.info("Generate photos.html succeed.");
 
         if (photos.hasNext()) {
@@ -473,9 +450,7 @@ public class StaticPageServiceImpl implements StaticPageService {
 
         model.addAttribute("is_categories", true);
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("categories"));
-        String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-        FileWriter fileWriter = new FileWriter(getPageFile("categories/index.html"), "UTF-8");
-        fileWriter.write(html);
+        FreemarkerUtils.process(template, model, getPagePath("categories/index.html"));
 
         List<Category> categories = categoryService.listAll();
         for (Category category : categories) {
@@ -512,18 +487,13 @@ public class StaticPageServiceImpl implements StaticPageService {
         model.addAttribute("category", category);
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("category"));
-        String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-
-        FileWriter fileWriter;
 
         if (page == 1) {
-            fileWriter = new FileWriter(getPageFile("categories/" + category.getSlug() + "/index.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("categories/" + category.getSlug() + "/index.html"));
         } else {
-            fileWriter = new FileWriter(getPageFile("categories/" + category.getSlug() + "/page/" + page + "/index.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("categories/" + category.getSlug() + "/page/" + page + "/index.html"));
         }
 
-        fileWriter.write(html);
-
         if (postPage.hasNext()) {
             generateCategory(postPage.getNumber() + 2, category);
             log.info("Generate categories/{}/page/{}/index.html", category.getSlug(), postPage.getNumber() + 2);
@@ -557,18 +527,13 @@ public class StaticPageServiceImpl implements StaticPageService {
         model.addAttribute("tag", tag);
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("tag"));
-        String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-
-        FileWriter fileWriter;
 
         if (page == 1) {
-            fileWriter = new FileWriter(getPageFile("tags/" + tag.getSlug() + "/index.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("tags/" + tag.getSlug() + "/index.html"));
         } else {
-            fileWriter = new FileWriter(getPageFile("tags/" + tag.getSlug() + "/page/" + page + "/index.html"), "UTF-8");
+            FreemarkerUtils.process(template, model, getPagePath("tags/" + tag.getSlug() + "/page/" + page + "/index.html"));
         }
 
-        fileWriter.write(html);
-
         if (postPage.hasNext()) {
             generateTag(postPage.getNumber() + 2, tag);
             log.info("Generate tags/{}/page/{}/index.html", tag.getSlug(), postPage.getNumber() + 2);
@@ -593,9 +558,7 @@ public class StaticPageServiceImpl implements StaticPageService {
 
         model.addAttribute("is_tags", true);
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate(themeService.renderWithSuffix("tags"));
-        String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-        FileWriter fileWriter = new FileWriter(getPageFile("tags/index.html"), "UTF-8");
-        fileWriter.write(html);
+        FreemarkerUtils.process(template, model, getPagePath("tags/index.html"));
 
         log.info("Generate tags.html succeed.");
 
@@ -619,12 +582,8 @@ public class StaticPageServiceImpl implements StaticPageService {
         model.addAttribute("posts", buildPosts(buildPostPageable(optionService.getRssPageSize())));
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate("common/web/rss.ftl");
-        String xml = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-        FileWriter rssWriter = new FileWriter(getPageFile("rss.xml"), "UTF-8");
-        rssWriter.write(xml);
-
-        FileWriter feedWriter = new FileWriter(getPageFile("feed.xml"), "UTF-8");
-        feedWriter.write(xml);
+        FreemarkerUtils.process(template, model, getPagePath("rss.xml"));
+        Files.copy(getPagePath("rss.xml"), getPagePath("feed.xml"), StandardCopyOption.REPLACE_EXISTING);
 
         log.info("Generate rss.xml/feed.xml succeed.");
     }
@@ -643,9 +602,7 @@ public class StaticPageServiceImpl implements StaticPageService {
         model.addAttribute("posts", buildPosts(buildPostPageable(optionService.getRssPageSize())));
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate("common/web/atom.ftl");
-        String xml = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-        FileWriter fileWriter = new FileWriter(getPageFile("atom.xml"), "UTF-8");
-        fileWriter.write(xml);
+        FreemarkerUtils.process(template, model, getPagePath("atom.xml"));
 
         log.info("Generate atom.xml succeed.");
     }
@@ -661,12 +618,10 @@ public class StaticPageServiceImpl implements StaticPageService {
 
         ModelMap model = new ModelMap();
 
-        model.addAttribute("posts", buildPosts(buildPostPageable(optionService.getRssPageSize())));
+        model.addAttribute("posts", postService.convertToMinimal(postService.pageBriefBy(PostStatus.PUBLISHED, buildPostPageable(optionService.getRssPageSize())).getContent()));
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate("common/web/sitemap_html.ftl");
-        String html = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-        FileWriter fileWriter = new FileWriter(getPageFile("sitemap.html"), "UTF-8");
-        fileWriter.write(html);
+        FreemarkerUtils.process(template, model, getPagePath("sitemap.html"));
 
         log.info("Generate sitemap.html succeed.");
     }
@@ -682,12 +637,10 @@ public class StaticPageServiceImpl implements StaticPageService {
 
         ModelMap model = new ModelMap();
 
-        model.addAttribute("posts", buildPosts(buildPostPageable(optionService.getRssPageSize())));
+        model.addAttribute("posts", postService.convertToMinimal(postService.pageBriefBy(PostStatus.PUBLISHED, buildPostPageable(optionService.getRssPageSize())).getContent()));
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate("common/web/sitemap_xml.ftl");
-        String xml = FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
-        FileWriter fileWriter = new FileWriter(getPageFile("sitemap.xml"), "UTF-8");
-        fileWriter.write(xml);
+        FreemarkerUtils.process(template, model, getPagePath("sitemap.xml"));
 
         log.info("Generate sitemap.xml succeed.");
     }
@@ -702,9 +655,7 @@ public class StaticPageServiceImpl implements StaticPageService {
         log.info("Generate robots.txt");
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate("common/web/robots.ftl");
-        String txt = FreeMarkerTemplateUtils.processTemplateIntoString(template, null);
-        FileWriter fileWriter = new FileWriter(getPageFile("robots.txt"), "UTF-8");
-        fileWriter.write(txt);
+        FreemarkerUtils.process(template, null, getPagePath("robots.txt"));
 
         log.info("Generate robots.txt succeed.");
     }
@@ -719,9 +670,7 @@ public class StaticPageServiceImpl implements StaticPageService {
         log.info("Generate readme.md");
 
         Template template = freeMarkerConfigurer.getConfiguration().getTemplate("common/web/readme.ftl");
-        String txt = FreeMarkerTemplateUtils.processTemplateIntoString(template, null);
-        FileWriter fileWriter = new FileWriter(getPageFile("README.md"), "UTF-8");
-        fileWriter.write(txt);
+        FreemarkerUtils.process(template, null, getPagePath("README.md"));
 
         log.info("Generate readme.md succeed.");
     }
@@ -821,9 +770,8 @@ public class StaticPageServiceImpl implements StaticPageService {
         return PageRequest.of(0, size, Sort.by(DESC, "createTime"));
     }
 
-    private File getPageFile(String subPath) {
-        Path path = Paths.get(pagesDir.toString(), subPath);
-        return path.toFile();
+    private Path getPagePath(String subPath) {
+        return Paths.get(pagesDir.toString(), subPath);
     }
 
     /**
@@ -22,6 +22,7 @@ import org.springframework.util.Assert;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.CacheRegion;
 import run.halo.app.config.properties.HaloProperties;
 import run.halo.app.event.theme.ThemeActivatedEvent;
 import run.halo.app.event.theme.ThemeUpdatedEvent;
@@ -131,13 +132,13 @@ public class ThemeServiceImpl implements ThemeService {
     @Override
     @NonNull
     public List<ThemeProperty> getThemes() {
-        ThemeProperty[] themeProperties = cacheStore.getAny(THEMES_CACHE_KEY, ThemeProperty[].class).orElseGet(() -> {
+        // Concurrent misses are collapsed into one scan
+        ThemeProperty[] themeProperties = cacheStore.region(CacheRegion.THEMES).get(THEMES_CACHE_KEY, ThemeProperty[].class, () -> {
             List<ThemeProperty> properties = ThemePropertyScanner.INSTANCE.scan(getBasePath(), getActivatedThemeId());
-            // Cache the themes
-            cacheStore.putAny(THEMES_CACHE_KEY, properties);
             return properties.toArray(new ThemeProperty[0]);
         });
-        return Arrays.asList(themeProperties);
+        // The cached array is shared, so expose it as read-only
+        return Collections.unmodifiableList(Arrays.asList(themeProperties));
     }
 
     @Override
@@ -242,6 +243,9 @@ public class ThemeServiceImpl implements ThemeService {
         } catch (IOException e) {
             throw new ServiceException("保存模板内容失败 " + absolutePath, e);
         }
+
+        // Invalidate the cached templates even if the theme folder is not watched
+        eventPublisher.publishEvent(new ThemeUpdatedEvent(this));
     }
 
     @Override
@@ -256,6 +260,9 @@ public class ThemeServiceImpl implements ThemeService {
         } catch (IOException e) {
             throw new ServiceException("保存模板内容失败 " + absolutePath, e);
         }
+
+        // Invalidate the cached templates even if the theme folder is not watched
+        eventPublisher.publishEvent(new ThemeUpdatedEvent(this));
     }
 
     @Override
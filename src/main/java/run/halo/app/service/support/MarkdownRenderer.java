@@ -0,0 +1,46 @@
+package run.halo.app.service.support;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.cache.CacheRegion;
+import run.halo.app.utils.MarkdownUtils;
+
+/**
+ * Markdown renderer caching the rendered html in the render region.
+ * <p>
+ * The cache key is the hash of the markdown plus the fingerprint of the render options, so the same
+ * markdown saved, published or previewed again is rendered only once, and changed options never hit the
+ * html rendered with the previous ones.
+ * 以内容哈希和渲染选项为key缓存markdown渲染结果
+ */
+@Component
+public class MarkdownRenderer {
+
+    private final AbstractStringCacheStore cacheStore;
+
+    public MarkdownRenderer(AbstractStringCacheStore cacheStore) {
+        this.cacheStore = cacheStore;
+    }
+
+    /**
+     * Renders the markdown to html.
+     *
+     * @param markdown markdown document
+     * @return html document
+     */
+    @NonNull
+    public String render(@Nullable String markdown) {
+        if (StringUtils.isBlank(markdown)) {
+            return StringUtils.EMPTY;
+        }
+
+        String cacheKey = MarkdownUtils.getRenderFingerprint() + ':' + DigestUtils.sha256Hex(markdown);
+
+        // Cached as it is, the html is neither escaped into json nor kept deserialized on the heap
+        return cacheStore.region(CacheRegion.RENDER).getString(cacheKey, () -> MarkdownUtils.renderHtml(markdown));
+    }
+}
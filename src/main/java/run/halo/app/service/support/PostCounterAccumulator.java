@@ -0,0 +1,171 @@
+package run.halo.app.service.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.model.enums.PostStatus;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulator of the visits and likes of posts and sheets.
+ * <p>
+ * Increments are added to striped counters in memory, and a single flusher writes the accumulated deltas
+ * in one jdbc batch periodically and once more on shutdown. The batch is written in one transaction, and
+ * deltas are subtracted from the counters only after it is committed, so increments racing with a flush are
+ * not lost and a failed flush is retried without counting any row twice.
+ * 文章访问量和点赞数的内存累加器，定期批量写入数据库
+ */
+@Slf4j
+@Component
+public class PostCounterAccumulator {
+
+    /**
+     * Posts and sheets are stored in the same table. Only the visits of the published and intimate ones are
+     * counted, since the visits are reported by anyone without checking the post.
+     */
+    private final static String UPDATE_COUNTERS_SQL = "update posts set"
+        + " visits = visits + case when status in (" + PostStatus.PUBLISHED.getValue() + ", " + PostStatus.INTIMATE.getValue() + ") then ? else 0 end,"
+        + " likes = likes + ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Integer, Counters> countersMap = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flusher;
+
+    public PostCounterAccumulator(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  HaloProperties haloProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        long interval = haloProperties.getPostCounterFlushInterval().toMillis();
+        Assert.isTrue(interval > 0, "Post counter flush interval must be greater than 0");
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-counter-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                // Keep the following executions alive, the deltas will be written next time
+                log.error("Failed to flush post counters", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Increases the visits of the post by 1.
+     *
+     * @param postId post id must not be null
+     */
+    public void increaseVisit(@NonNull Integer postId) {
+        Assert.notNull(postId, "Post id must not be null");
+
+        getCounters(postId).visits.increment();
+    }
+
+    /**
+     * Increases the likes of the post by 1.
+     *
+     * @param postId post id must not be null
+     */
+    public void increaseLike(@NonNull Integer postId) {
+        Assert.notNull(postId, "Post id must not be null");
+
+        getCounters(postId).likes.increment();
+    }
+
+    /**
+     * Writes the accumulated deltas in one batch.
+     *
+     * @return count of the posts written
+     */
+    public synchronized int flush() {
+        List<Integer> postIds = new ArrayList<>();
+        List<long[]> deltas = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+
+        countersMap.forEach((postId, counters) -> {
+            long visits = counters.visits.sum();
+            long likes = counters.likes.sum();
+            if (visits == 0 && likes == 0) {
+                return;
+            }
+            postIds.add(postId);
+            deltas.add(new long[] {visits, likes});
+            batchArgs.add(new Object[] {visits, likes, postId});
+        });
+
+        if (batchArgs.isEmpty()) {
+            return 0;
+        }
+
+        // A partially applied batch is rolled back, since its deltas are kept for the next flush
+        int[] affectedRows = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_COUNTERS_SQL, batchArgs));
+        Assert.notNull(affectedRows, "Affected rows must not be null");
+
+        for (int i = 0; i < postIds.size(); i++) {
+            Integer postId = postIds.get(i);
+            Counters counters = countersMap.get(postId);
+            counters.visits.add(-deltas.get(i)[0]);
+            counters.likes.add(-deltas.get(i)[1]);
+
+            if (i < affectedRows.length && affectedRows[i] == 0) {
+                // The post has been deleted
+                countersMap.remove(postId);
+            }
+        }
+
+        log.debug("Flushed counters of [{}] posts", postIds.size());
+        return postIds.size();
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Drain the rest deltas
+        flush();
+    }
+
+    @NonNull
+    private Counters getCounters(@NonNull Integer postId) {
+        Counters counters = countersMap.get(postId);
+        return counters != null ? counters : countersMap.computeIfAbsent(postId, id -> new Counters());
+    }
+
+    /**
+     * Counters of a post, kept after flushing to avoid losing increments on stale instances.
+     */
+    private static class Counters {
+
+        private final LongAdder visits = new LongAdder();
+
+        private final LongAdder likes = new LongAdder();
+    }
+}
@@ -0,0 +1,102 @@
+package run.halo.app.utils;
+
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Freemarker utilities.
+ * <p>
+ * Templates are processed straight into the response or the file through a buffered utf-8 writer,
+ * instead of being built into a string and encoded again.
+ * 将模板直接输出到响应或文件
+ */
+public class FreemarkerUtils {
+
+    private final static int BUFFER_SIZE = 8 * 1024;
+
+    private FreemarkerUtils() {
+    }
+
+    /**
+     * Processes the template into the response.
+     * <p>
+     * If the template fails before the response is committed, the partial output is discarded so that
+     * the error can still be handled as usual. Once the response is committed, the failure can only
+     * abort it.
+     *
+     * @param template    template must not be null
+     * @param model       model
+     * @param contentType content type with utf-8 charset
+     * @param response    http servlet response must not be null
+     * @throws IOException       if writing to the response fails
+     * @throws TemplateException if processing the template fails
+     */
+    public static void process(@NonNull Template template,
+                               @Nullable Object model,
+                               @NonNull String contentType,
+                               @NonNull HttpServletResponse response) throws IOException, TemplateException {
+        Assert.notNull(template, "Template must not be null");
+        Assert.hasText(contentType, "Content type must not be blank");
+        Assert.notNull(response, "Http servlet response must not be null");
+
+        response.setContentType(contentType);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            template.process(model, writer);
+            writer.flush();
+        } catch (IOException | TemplateException | RuntimeException e) {
+            if (!response.isCommitted()) {
+                // Nothing has been sent yet
+                response.resetBuffer();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Processes the template into the file.
+     * <p>
+     * The output is written into a temporary file beside the target first, which replaces the target
+     * only when the template is processed completely, so a failure never leaves a partial file behind.
+     *
+     * @param template template must not be null
+     * @param model    model
+     * @param path     target file path must not be null
+     * @throws IOException       if writing the file fails
+     * @throws TemplateException if processing the template fails
+     */
+    public static void process(@NonNull Template template,
+                               @Nullable Object model,
+                               @NonNull Path path) throws IOException, TemplateException {
+        Assert.notNull(template, "Template must not be null");
+        Assert.notNull(path, "Path must not be null");
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                template.process(model, writer);
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | TemplateException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+    }
+}
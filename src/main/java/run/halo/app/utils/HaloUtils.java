@@ -25,7 +25,6 @@ import static run.halo.app.model.support.HaloConst.FILE_SEPARATOR;
 public class HaloUtils {
 
     public static final String URL_SEPARATOR = "/";
-    private static final String RE_HTML_MARK = "(<[^<]*?>)|(<[\\s]*?/[^<]*?>)|(<[^<]*?/[\\s]*?>)";
 
     @NonNull
     public static String ensureBoth(@NonNull String string, @NonNull String bothfix) {
@@ -271,9 +270,52 @@ public class HaloUtils {
      * Clean all html tag
      *
      * @param content html document
-     * @return text before cleaned
+     * @return plain text with entities decoded and whitespace collapsed
+     * @see HtmlTextExtractor#extractText(String, int)
      */
     public static String cleanHtmlTag(String content) {
-        return content.replaceAll(RE_HTML_MARK, "");
+        return HtmlTextExtractor.extractText(content, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Counts the words of the plain text. Every CJK character is counted as a word and consecutive letters
+     * or digits of other scripts are counted as one word.
+     *
+     * @param text plain text
+     * @return word count
+     */
+    public static long countWords(@Nullable String text) {
+        if (StringUtils.isBlank(text)) {
+            return 0;
+        }
+
+        long count = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (isCjk(codePoint)) {
+                count++;
+                inWord = false;
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                if (!inWord) {
+                    count++;
+                    inWord = true;
+                }
+            } else if (codePoint != '\'' && codePoint != '-') {
+                // Apostrophes and hyphens do not break words, e.g. don't and e-mail
+                inWord = false;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
     }
 }
@@ -0,0 +1,404 @@
+package run.halo.app.utils;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single pass html to plain text extractor.
+ * <p>
+ * Tags, comments, scripts and styles are skipped, entities are decoded, whitespace is collapsed and the
+ * characters invalid in xml are dropped while scanning, and the scan stops as soon as the requested length
+ * is reached, so a short snippet of a large document costs no full size copy.
+ * 从 html 中提取纯文本，达到指定长度即停止扫描
+ */
+public class HtmlTextExtractor {
+
+    /**
+     * Elements separating the text around them.
+     */
+    private final static String[] BLOCK_TAGS = {"address", "article", "aside", "blockquote", "br", "dd", "div",
+        "dl", "dt", "figcaption", "figure", "footer", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "li",
+        "ol", "p", "pre", "section", "table", "td", "th", "tr", "ul"};
+
+    /**
+     * Elements whose content is not text.
+     */
+    private final static String[] RAW_TEXT_TAGS = {"script", "style"};
+
+    private final static Map<String, Character> NAMED_ENTITIES = new HashMap<>();
+
+    /**
+     * Length of the longest named entity between '&' and ';'.
+     */
+    private final static int MAX_ENTITY_NAME_LENGTH = 8;
+
+    static {
+        NAMED_ENTITIES.put("amp", '&');
+        NAMED_ENTITIES.put("lt", '<');
+        NAMED_ENTITIES.put("gt", '>');
+        NAMED_ENTITIES.put("quot", '"');
+        NAMED_ENTITIES.put("apos", '\'');
+        NAMED_ENTITIES.put("nbsp", ' ');
+        NAMED_ENTITIES.put("ensp", ' ');
+        NAMED_ENTITIES.put("emsp", ' ');
+        NAMED_ENTITIES.put("thinsp", ' ');
+        NAMED_ENTITIES.put("copy", '©');
+        NAMED_ENTITIES.put("reg", '®');
+        NAMED_ENTITIES.put("trade", '™');
+        NAMED_ENTITIES.put("middot", '·');
+        NAMED_ENTITIES.put("bull", '•');
+        NAMED_ENTITIES.put("hellip", '…');
+        NAMED_ENTITIES.put("ndash", '–');
+        NAMED_ENTITIES.put("mdash", '—');
+        NAMED_ENTITIES.put("lsquo", '‘');
+        NAMED_ENTITIES.put("rsquo", '’');
+        NAMED_ENTITIES.put("ldquo", '“');
+        NAMED_ENTITIES.put("rdquo", '”');
+        NAMED_ENTITIES.put("laquo", '«');
+        NAMED_ENTITIES.put("raquo", '»');
+        NAMED_ENTITIES.put("times", '×');
+        NAMED_ENTITIES.put("divide", '÷');
+        NAMED_ENTITIES.put("deg", '°');
+        NAMED_ENTITIES.put("yen", '¥');
+        NAMED_ENTITIES.put("euro", '€');
+    }
+
+    private HtmlTextExtractor() {
+    }
+
+    /**
+     * Extracts the plain text of the html.
+     *
+     * @param html      html document
+     * @param maxLength max length of the text must not be less than 0
+     * @return plain text, never null
+     */
+    @NonNull
+    public static String extractText(@Nullable String html, int maxLength) {
+        return extract(html, maxLength, false);
+    }
+
+    /**
+     * Extracts the plain text of the html and escapes it again, so that it is safe to be written into html
+     * content or attributes. The max length applies to the text before escaping.
+     *
+     * @param html      html document
+     * @param maxLength max length of the text must not be less than 0
+     * @return escaped plain text, never null
+     */
+    @NonNull
+    public static String extractEscapedText(@Nullable String html, int maxLength) {
+        return extract(html, maxLength, true);
+    }
+
+    /**
+     * Removes the characters invalid in xml 1.0 documents.
+     *
+     * @param text text
+     * @return the same text if there is no invalid character
+     */
+    @Nullable
+    public static String stripInvalidXmlChars(@Nullable String text) {
+        if (text == null) {
+            return null;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (!isValidXmlChar(codePoint)) {
+                break;
+            }
+            i += Character.charCount(codePoint);
+        }
+
+        if (i == length) {
+            return text;
+        }
+
+        StringBuilder builder = new StringBuilder(length).append(text, 0, i);
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isValidXmlChar(codePoint)) {
+                builder.appendCodePoint(codePoint);
+            }
+            i += Character.charCount(codePoint);
+        }
+        return builder.toString();
+    }
+
+    @NonNull
+    private static String extract(@Nullable String html, int maxLength, boolean escape) {
+        Assert.isTrue(maxLength >= 0, "Max length must not be less than 0");
+
+        if (html == null || html.isEmpty() || maxLength == 0) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder(Math.min(html.length(), maxLength) + 16);
+        int textLength = 0;
+        boolean pendingSpace = false;
+
+        int length = html.length();
+        int i = 0;
+        while (i < length) {
+            char c = html.charAt(i);
+
+            if (c == '<' && i + 1 < length && isTagStart(html.charAt(i + 1))) {
+                int tagEnd = skipTag(html, i);
+                if (isTagNamed(html, i, BLOCK_TAGS)) {
+                    pendingSpace = true;
+                }
+                i = tagEnd;
+                continue;
+            }
+
+            int codePoint;
+            // Named entity unknown here, which is copied through as one character
+            String unknownEntity = null;
+            if (c == '&') {
+                int entityEnd = findEntityEnd(html, i);
+                codePoint = entityEnd < 0 ? -1 : decodeEntity(html, i + 1, entityEnd);
+                if (codePoint >= 0) {
+                    i = entityEnd + 1;
+                } else if (escape && isEntityName(html, i + 1, entityEnd)) {
+                    // Escaping its '&' would show the entity itself
+                    unknownEntity = html.substring(i, entityEnd + 1);
+                    codePoint = c;
+                    i = entityEnd + 1;
+                } else {
+                    // Not an entity, keep the '&' as it is
+                    codePoint = c;
+                    i++;
+                }
+            } else {
+                codePoint = html.codePointAt(i);
+                i += Character.charCount(codePoint);
+            }
+
+            if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+                pendingSpace = true;
+                continue;
+            }
+
+            if (!isValidXmlChar(codePoint)) {
+                continue;
+            }
+
+            int charCount = Character.charCount(codePoint);
+            if (pendingSpace && textLength > 0) {
+                if (maxLength - textLength < charCount + 1) {
+                    break;
+                }
+                builder.append(' ');
+                textLength++;
+            }
+            pendingSpace = false;
+
+            if (maxLength - textLength < charCount) {
+                break;
+            }
+            if (unknownEntity != null) {
+                builder.append(unknownEntity);
+            } else {
+                append(builder, codePoint, escape);
+            }
+            textLength += charCount;
+
+            if (textLength == maxLength) {
+                // Stop scanning the rest of the document
+                break;
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private static boolean isTagStart(char c) {
+        return Character.isLetter(c) || c == '/' || c == '!' || c == '?';
+    }
+
+    /**
+     * Skips the tag, comment or raw text element starting at the index.
+     *
+     * @param html  html document
+     * @param start index of '<'
+     * @return index after the skipped part
+     */
+    private static int skipTag(@NonNull String html, int start) {
+        if (html.startsWith("<!--", start)) {
+            int commentEnd = html.indexOf("-->", start + 4);
+            return commentEnd < 0 ? html.length() : commentEnd + 3;
+        }
+
+        int tagEnd = findTagEnd(html, start);
+
+        if (html.charAt(start + 1) != '/') {
+            for (String rawTextTag : RAW_TEXT_TAGS) {
+                if (isTagNamed(html, start, rawTextTag)) {
+                    int closeStart = indexOfIgnoreCase(html, "</" + rawTextTag, tagEnd);
+                    return closeStart < 0 ? html.length() : findTagEnd(html, closeStart);
+                }
+            }
+        }
+
+        return tagEnd;
+    }
+
+    private static int findTagEnd(@NonNull String html, int start) {
+        char quote = 0;
+        for (int i = start + 1; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+        return html.length();
+    }
+
+    private static boolean isTagNamed(@NonNull String html, int start, @NonNull String[] names) {
+        for (String name : names) {
+            if (isTagNamed(html, start, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTagNamed(@NonNull String html, int start, @NonNull String name) {
+        int nameStart = html.charAt(start + 1) == '/' ? start + 2 : start + 1;
+        int nameEnd = nameStart + name.length();
+        return html.regionMatches(true, nameStart, name, 0, name.length())
+            && (nameEnd == html.length() || !Character.isLetterOrDigit(html.charAt(nameEnd)));
+    }
+
+    private static int indexOfIgnoreCase(@NonNull String html, @NonNull String target, int fromIndex) {
+        for (int i = fromIndex; i <= html.length() - target.length(); i++) {
+            if (html.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the ';' ending the entity without scanning further than the longest entity.
+     *
+     * @param html  html document
+     * @param start index of '&'
+     * @return index of ';' or -1 if it is not found
+     */
+    private static int findEntityEnd(@NonNull String html, int start) {
+        int limit = Math.min(html.length(), start + MAX_ENTITY_NAME_LENGTH + 2);
+        for (int i = start + 2; i < limit; i++) {
+            if (html.charAt(i) == ';') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the part between '&' and ';' is a well formed entity name.
+     *
+     * @param html  html document
+     * @param start index after '&'
+     * @param end   index of ';', or -1 if it is not found
+     * @return true if it starts with a letter followed by letters and digits only
+     */
+    private static boolean isEntityName(@NonNull String html, int start, int end) {
+        if (end <= start || !isAsciiLetter(html.charAt(start))) {
+            return false;
+        }
+        for (int i = start + 1; i < end; i++) {
+            char c = html.charAt(i);
+            if (!isAsciiLetter(c) && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Decodes the entity between '&' and ';'.
+     *
+     * @param html  html document
+     * @param start index after '&'
+     * @param end   index of ';'
+     * @return decoded code point or -1 if it is not a known entity
+     */
+    private static int decodeEntity(@NonNull String html, int start, int end) {
+        if (html.charAt(start) != '#') {
+            Character character = NAMED_ENTITIES.get(html.substring(start, end));
+            return character == null ? -1 : character;
+        }
+
+        int radix = 10;
+        int digitStart = start + 1;
+        if (digitStart < end && (html.charAt(digitStart) == 'x' || html.charAt(digitStart) == 'X')) {
+            radix = 16;
+            digitStart++;
+        }
+        if (digitStart == end) {
+            return -1;
+        }
+
+        int codePoint = 0;
+        for (int i = digitStart; i < end; i++) {
+            int digit = Character.digit(html.charAt(i), radix);
+            if (digit < 0) {
+                return -1;
+            }
+            codePoint = codePoint * radix + digit;
+        }
+        return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+    }
+
+    private static boolean isValidXmlChar(int codePoint) {
+        return codePoint == 0x9 || codePoint == 0xA || codePoint == 0xD
+            || (codePoint >= 0x20 && codePoint < 0x7F)
+            || (codePoint > 0x7F && codePoint <= 0xD7FF)
+            || (codePoint >= 0xE000 && codePoint <= 0xFFFD)
+            || (codePoint >= 0x10000 && codePoint <= 0x10FFFF);
+    }
+
+    private static void append(@NonNull StringBuilder builder, int codePoint, boolean escape) {
+        if (escape) {
+            switch (codePoint) {
+                case '&':
+                    builder.append("&amp;");
+                    return;
+                case '<':
+                    builder.append("&lt;");
+                    return;
+                case '>':
+                    builder.append("&gt;");
+                    return;
+                case '"':
+                    builder.append("&quot;");
+                    return;
+                case '\'':
+                    builder.append("&#39;");
+                    return;
+                default:
+                    break;
+            }
+        }
+        builder.appendCodePoint(codePoint);
+    }
+}
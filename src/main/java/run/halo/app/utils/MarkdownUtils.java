@@ -21,12 +21,20 @@ import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import run.halo.app.core.markdown.EmbedExtension;
+import run.halo.app.core.markdown.EmbedProvider;
+import run.halo.app.core.markdown.EmbedProviderRegistry;
+import run.halo.app.core.markdown.TemplateEmbedProvider;
 import run.halo.app.model.support.HaloConst;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Markdown utils.
@@ -36,6 +44,17 @@ import java.util.Map;
  */
 public class MarkdownUtils {
 
+    private static final EmbedProviderRegistry EMBED_PROVIDERS = new EmbedProviderRegistry();
+
+    static {
+        // Netease music: [music:id]
+        EMBED_PROVIDERS.register(new TemplateEmbedProvider("music", "(\\d+)", HaloConst.NETEASE_MUSIC_IFRAME));
+        // Bilibili video: [bilibili:aid,width,height]
+        EMBED_PROVIDERS.register(new TemplateEmbedProvider("bilibili", "(\\d+),(\\d+),(\\d+)", HaloConst.BILIBILI_VIDEO_IFRAME));
+        // YouTube video: [youtube:id,width,height]
+        EMBED_PROVIDERS.register(new TemplateEmbedProvider("youtube", "(\\w+),(\\d+),(\\d+)", HaloConst.YOUTUBE_VIDEO_IFRAME));
+    }
+
     private static final DataHolder OPTIONS = new MutableDataSet()
         .set(Parser.EXTENSIONS, Arrays.asList(
             AttributesExtension.create(),
@@ -50,7 +69,8 @@ public class MarkdownUtils {
             TocExtension.create(),
             SuperscriptExtension.create(),
             YamlFrontMatterExtension.create(),
-            GitLabExtension.create())
+            GitLabExtension.create(),
+            EmbedExtension.create(EMBED_PROVIDERS))
         )
         .set(TocExtension.LEVELS, 255)
         .set(TablesExtension.WITH_CAPTION, false)
@@ -65,10 +85,43 @@ public class MarkdownUtils {
         .set(EmojiExtension.USE_IMAGE_TYPE, EmojiImageType.UNICODE_ONLY)
         .set(HtmlRenderer.SOFT_BREAK, "<br />\n");
 
+    /**
+     * Fingerprint of the extensions and options, the same markdown renders to the same html with it.
+     */
+    private static final String OPTIONS_FINGERPRINT = fingerprint(OPTIONS);
+
     private static final Parser PARSER = Parser.builder(OPTIONS).build();
 
     private static final HtmlRenderer RENDERER = HtmlRenderer.builder(OPTIONS).build();
 
+    /**
+     * Registers the embed provider of a shortcode, replacing the provider of the same name.
+     *
+     * @param provider embed provider must not be null
+     */
+    public static void registerEmbedProvider(@NonNull EmbedProvider provider) {
+        EMBED_PROVIDERS.register(provider);
+    }
+
+    /**
+     * Unregisters the embed provider of a shortcode.
+     *
+     * @param name shortcode name must not be null
+     */
+    public static void unregisterEmbedProvider(@NonNull String name) {
+        EMBED_PROVIDERS.unregister(name);
+    }
+
+    /**
+     * Gets the fingerprint of the render options and embed providers, which is a part of the render cache key.
+     *
+     * @return render fingerprint
+     */
+    @NonNull
+    public static String getRenderFingerprint() {
+        return DigestUtils.md5Hex(OPTIONS_FINGERPRINT + EMBED_PROVIDERS.getFingerprint());
+    }
+
     /**
      * Render Markdown content
      *
@@ -80,21 +133,7 @@ public class MarkdownUtils {
             return StringUtils.EMPTY;
         }
 
-        // Render netease music short url.
-        if (markdown.contains(HaloConst.NETEASE_MUSIC_PREFIX)) {
-            markdown = markdown.replaceAll(HaloConst.NETEASE_MUSIC_REG_PATTERN, HaloConst.NETEASE_MUSIC_IFRAME);
-        }
-
-        // Render bilibili video short url.
-        if (markdown.contains(HaloConst.BILIBILI_VIDEO_PREFIX)) {
-            markdown = markdown.replaceAll(HaloConst.BILIBILI_VIDEO_REG_PATTERN, HaloConst.BILIBILI_VIDEO_IFRAME);
-        }
-
-        // Render youtube video short url.
-        if (markdown.contains(HaloConst.YOUTUBE_VIDEO_PREFIX)) {
-            markdown = markdown.replaceAll(HaloConst.YOUTUBE_VIDEO_REG_PATTERN, HaloConst.YOUTUBE_VIDEO_IFRAME);
-        }
-
+        // Embed shortcodes are rendered while parsing
         Node document = PARSER.parse(markdown);
 
         return RENDERER.render(document);
@@ -110,6 +149,25 @@ public class MarkdownUtils {
 //        return FlexmarkHtmlParser.parse(html);
 //    }
 
+    @NonNull
+    private static String fingerprint(@NonNull DataHolder options) {
+        return options.getAll().entrySet().stream()
+            .map(entry -> entry.getKey().getName() + '=' + describe(entry.getValue()))
+            .sorted()
+            .collect(Collectors.joining(";"));
+    }
+
+    @NonNull
+    private static String describe(Object value) {
+        if (value instanceof Collection) {
+            // Extensions are described by their types
+            return ((Collection<?>) value).stream()
+                .map(element -> element.getClass().getName())
+                .collect(Collectors.joining(",", "[", "]"));
+        }
+        return String.valueOf(value);
+    }
+
     /**
      * Get front-matter
      *
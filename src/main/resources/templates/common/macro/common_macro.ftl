@@ -50,7 +50,15 @@
     <@favicon />
 </#macro>
 
+<#-- 访问统计 -->
+<#macro visit_beacon>
+    <#if visit_beacon_url??>
+        <script>(function(u){if(navigator.sendBeacon&&navigator.sendBeacon(u)){return}var x=new XMLHttpRequest();x.open("POST",u,true);x.send()})("${visit_beacon_url?js_string}");</script>
+    </#if>
+</#macro>
+
 <#macro globalFooter>
     <@footer_info />
     <@statistics />
+    <@visit_beacon />
 </#macro>
\ No newline at end of file
@@ -52,10 +52,18 @@
     <@custom_content_head />
 </#macro>
 
+<#-- visit beacon -->
+<#macro visit_beacon>
+    <#if visit_beacon_url??>
+        <script>(function(u){if(navigator.sendBeacon&&navigator.sendBeacon(u)){return}var x=new XMLHttpRequest();x.open("POST",u,true);x.send()})("${visit_beacon_url?js_string}");</script>
+    </#if>
+</#macro>
+
 <#-- global footer -->
 <#macro footer>
     <@footer_info />
     <@statistics />
+    <@visit_beacon />
 </#macro>
 
 <#-- comment module -->
@@ -0,0 +1,22 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<urlset xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+    <url>
+        <loc>${blog_url!}/</loc>
+    </url>
+    <#list sheets as sheet>
+        <url>
+            <loc><#if !globalAbsolutePathEnabled!true>${blog_url!}</#if>${sheet.fullPath!}</loc>
+            <lastmod>${(sheet.editTime!sheet.createTime)?iso_local}</lastmod>
+        </url>
+    </#list>
+    <#list categories as category>
+        <url>
+            <loc><#if !globalAbsolutePathEnabled!true>${blog_url!}</#if>${category.fullPath!}</loc>
+        </url>
+    </#list>
+    <#list tags as tag>
+        <url>
+            <loc><#if !globalAbsolutePathEnabled!true>${blog_url!}</#if>${tag.fullPath!}</loc>
+        </url>
+    </#list>
+</urlset>
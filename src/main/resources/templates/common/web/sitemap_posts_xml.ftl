@@ -0,0 +1,9 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<urlset xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+    <#list posts as post>
+        <url>
+            <loc><#if !globalAbsolutePathEnabled!true>${blog_url!}</#if>${post.fullPath!}</loc>
+            <lastmod>${(post.editTime!post.createTime)?iso_local}</lastmod>
+        </url>
+    </#list>
+</urlset>
@@ -0,0 +1,85 @@
+package run.halo.app.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BoundedInMemoryCacheStoreTest.
+ */
+class BoundedInMemoryCacheStoreTest {
+
+    BoundedInMemoryCacheStore cacheStore;
+
+    List<String> evictedKeys;
+
+    @BeforeEach
+    void setUp() {
+        cacheStore = new BoundedInMemoryCacheStore(10, 0);
+        evictedKeys = new LinkedList<>();
+        cacheStore.setEvictionListener((key, value) -> evictedKeys.add(key));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheStore.preDestroy();
+    }
+
+    @Test
+    void entryLimitTest() {
+        for (int i = 0; i < 15; i++) {
+            cacheStore.put("key_" + i, "value_" + i);
+        }
+
+        assertEquals(10, cacheStore.size());
+        assertEquals(5, cacheStore.getEvictionCount());
+        assertEquals(5, evictedKeys.size());
+        assertFalse(cacheStore.get("key_0").isPresent());
+        assertTrue(cacheStore.get("key_14").isPresent());
+    }
+
+    @Test
+    void hotKeySurvivesScanTest() {
+        cacheStore.put("hot_key", "hot_value");
+        // Read it again to promote it
+        assertTrue(cacheStore.get("hot_key").isPresent());
+
+        for (int i = 0; i < 100; i++) {
+            cacheStore.put("key_" + i, "value_" + i);
+        }
+
+        assertTrue(cacheStore.get("hot_key").isPresent());
+        assertFalse(evictedKeys.contains("hot_key"));
+    }
+
+    @Test
+    void weightLimitTest() {
+        BoundedInMemoryCacheStore weightedStore = new BoundedInMemoryCacheStore(0, 1024);
+        try {
+            for (int i = 0; i < 100; i++) {
+                weightedStore.put("key_" + i, "value_" + i);
+            }
+
+            assertTrue(weightedStore.weight() <= 1024);
+            assertTrue(weightedStore.getEvictionCount() > 0);
+        } finally {
+            weightedStore.preDestroy();
+        }
+    }
+
+    @Test
+    void putIfAbsentTest() {
+        assertTrue(cacheStore.putIfAbsent("lock_key", "locked", 5, TimeUnit.SECONDS));
+        assertFalse(cacheStore.putIfAbsent("lock_key", "locked", 5, TimeUnit.SECONDS));
+
+        cacheStore.delete("lock_key");
+
+        assertTrue(cacheStore.putIfAbsent("lock_key", "locked", 5, TimeUnit.SECONDS));
+    }
+}
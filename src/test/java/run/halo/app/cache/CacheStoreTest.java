@@ -2,8 +2,15 @@ package run.halo.app.cache;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -88,4 +95,144 @@ class CacheStoreTest {
         // Assertion
         assertFalse(valueOptional.isPresent());
     }
+
+    @Test
+    void getAnySharedTest() {
+        String key = "test_shared_key";
+
+        cacheStore.putAny(key, Collections.singletonMap("name", "halo"));
+
+        Map<?, ?> first = cacheStore.getAnyShared(key, Map.class).orElse(null);
+        Map<?, ?> second = cacheStore.getAnyShared(key, Map.class).orElse(null);
+
+        // Same json must not be parsed again
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals("halo", first.get("name"));
+
+        // Changing the backing value invalidates the shared value
+        cacheStore.putAny(key, Collections.singletonMap("name", "ryan"));
+        Map<?, ?> third = cacheStore.getAnyShared(key, Map.class).orElse(null);
+        assertNotNull(third);
+        assertNotSame(first, third);
+        assertEquals("ryan", third.get("name"));
+
+        // Deleting the backing value drops the shared value
+        cacheStore.delete(key);
+        assertEquals(0, cacheStore.sharedKeyCount());
+        assertFalse(cacheStore.getAnyShared(key, Map.class).isPresent());
+    }
+
+    @Test
+    void batchTest() {
+        Map<String, String> values = new HashMap<>(2);
+        values.put("test_batch_key1", "value1");
+        values.put("test_batch_key2", "value2");
+
+        cacheStore.putAll(values, 1, TimeUnit.MINUTES);
+
+        Map<String, String> result = cacheStore.getAll(Arrays.asList("test_batch_key1", "test_batch_key2", "test_batch_absent"));
+        assertEquals(values, result);
+
+        cacheStore.deleteAll(values.keySet());
+
+        assertTrue(cacheStore.getAll(values.keySet()).isEmpty());
+    }
+
+    @Test
+    void singleFlightLoadTest() throws InterruptedException {
+        String key = "test_single_flight_key";
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch startLatch = new CountDownLatch(1);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<String>> futures = new LinkedList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                return cacheStore.get(key, String.class, () -> {
+                    loadCount.incrementAndGet();
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "loaded";
+                });
+            }));
+        }
+
+        startLatch.countDown();
+        futures.forEach(future -> {
+            try {
+                assertEquals("loaded", future.get());
+            } catch (Exception e) {
+                fail(e);
+            }
+        });
+        executorService.shutdown();
+
+        assertEquals(1, loadCount.get());
+        assertEquals("loaded", cacheStore.getAny(key, String.class).orElse(null));
+
+        cacheStore.delete(key);
+    }
+
+    @Test
+    void getStringTest() {
+        String key = "test_get_string_key";
+        AtomicInteger loadCount = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("<xml/>", cacheStore.getString(key, () -> {
+                loadCount.incrementAndGet();
+                return "<xml/>";
+            }, 0, null));
+        }
+
+        assertEquals(1, loadCount.get());
+        // Stored as it is instead of as json
+        assertEquals(Optional.of("<xml/>"), cacheStore.get(key));
+
+        cacheStore.delete(key);
+    }
+
+    @Test
+    void clearRegionTest() {
+        CacheRegion region = cacheStore.registerRegion("test_clear_region", 0, TimeUnit.MILLISECONDS, 10);
+        CacheRegion otherRegion = cacheStore.registerRegion("test_other_region", 0, TimeUnit.MILLISECONDS, 10);
+
+        region.put("key", "value");
+        otherRegion.put("key", "other_value");
+        long generation = region.getGeneration();
+
+        cacheStore.clearRegion("test_clear_region");
+
+        assertEquals(generation + 1, region.getGeneration());
+        assertFalse(region.get("key").isPresent());
+        assertEquals(Optional.of("other_value"), otherRegion.get("key"));
+
+        region.put("key", "value2");
+        assertEquals(Optional.of("value2"), region.get("key"));
+
+        otherRegion.clear();
+        region.clear();
+    }
+
+    @Test
+    void regionMaxEntriesTest() {
+        CacheRegion region = cacheStore.registerRegion("test_bounded_region", 0, TimeUnit.MILLISECONDS, 2);
+
+        region.put("key1", "value1");
+        region.put("key2", "value2");
+        region.get("key1");
+        region.put("key3", "value3");
+
+        // key2 is the least recently used
+        assertTrue(region.get("key1").isPresent());
+        assertFalse(region.get("key2").isPresent());
+        assertTrue(region.get("key3").isPresent());
+
+        region.clear();
+    }
 }
@@ -0,0 +1,126 @@
+package run.halo.app.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapCacheStoreTest.
+ */
+class OffHeapCacheStoreTest {
+
+    OffHeapCacheStore cacheStore;
+
+    @BeforeEach
+    void setUp() {
+        // One slab only
+        cacheStore = new OffHeapCacheStore(OffHeapCacheStore.SLAB_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheStore.preDestroy();
+    }
+
+    @Test
+    void putAndGetTest() {
+        String value = "中文 value";
+
+        cacheStore.put("test_key", value);
+        assertEquals(Optional.of(value), cacheStore.get("test_key"));
+
+        // Put a larger value to the same key
+        String largerValue = repeat('a', 1000);
+        cacheStore.put("test_key", largerValue);
+        assertEquals(Optional.of(largerValue), cacheStore.get("test_key"));
+        assertEquals(1, cacheStore.size());
+
+        cacheStore.delete("test_key");
+        assertFalse(cacheStore.get("test_key").isPresent());
+        assertEquals(0, cacheStore.size());
+    }
+
+    @Test
+    void evictLeastRecentlyUsedTest() {
+        // Chunks of 512 KB, the only slab holds 2 of them
+        String value = repeat('a', 300 * 1024);
+
+        cacheStore.put("key1", value);
+        cacheStore.put("key2", value);
+        assertTrue(cacheStore.get("key1").isPresent());
+        cacheStore.put("key3", value);
+
+        assertTrue(cacheStore.get("key1").isPresent());
+        assertFalse(cacheStore.get("key2").isPresent());
+        assertTrue(cacheStore.get("key3").isPresent());
+        assertEquals(1, cacheStore.getEvictionCount());
+        assertEquals(OffHeapCacheStore.SLAB_SIZE, cacheStore.allocated());
+    }
+
+    @Test
+    void evictSharedValueTest() {
+        // Chunks of 512 KB, the only slab holds 2 of them
+        String value = repeat('a', 300 * 1024);
+
+        cacheStore.putAny("key1", value);
+        cacheStore.putAny("key2", value);
+        assertTrue(cacheStore.getAnyShared("key1", String.class).isPresent());
+        assertTrue(cacheStore.getAnyShared("key2", String.class).isPresent());
+        assertEquals(2, cacheStore.sharedKeyCount());
+
+        cacheStore.putAny("key3", value);
+
+        // The shared value of the evicted key is dropped as well
+        assertEquals(1, cacheStore.getEvictionCount());
+        assertEquals(1, cacheStore.sharedKeyCount());
+    }
+
+    @Test
+    void reassignSlabTest() {
+        // The only slab is assigned to the size class of 64 bytes
+        cacheStore.put("small_key", "value");
+
+        // The size class of 1 KB takes the slab over
+        String largerValue = repeat('a', 1000);
+        cacheStore.put("large_key", largerValue);
+
+        assertFalse(cacheStore.get("small_key").isPresent());
+        assertEquals(Optional.of(largerValue), cacheStore.get("large_key"));
+        assertEquals(1, cacheStore.getEvictionCount());
+        assertEquals(OffHeapCacheStore.SLAB_SIZE, cacheStore.allocated());
+
+        // And gives it back
+        cacheStore.delete("large_key");
+        cacheStore.put("small_key", "value");
+        assertEquals(Optional.of("value"), cacheStore.get("small_key"));
+    }
+
+    @Test
+    void tooLargeValueTest() {
+        cacheStore.put("test_key", repeat('a', OffHeapCacheStore.SLAB_SIZE + 1));
+
+        assertFalse(cacheStore.get("test_key").isPresent());
+    }
+
+    @Test
+    void expireTest() throws InterruptedException {
+        cacheStore.put("test_key", "value", 100, TimeUnit.MILLISECONDS);
+        assertTrue(cacheStore.get("test_key").isPresent());
+
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertFalse(cacheStore.get("test_key").isPresent());
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
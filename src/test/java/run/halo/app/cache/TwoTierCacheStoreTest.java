@@ -0,0 +1,105 @@
+package run.halo.app.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TwoTierCacheStoreTest.
+ * <p>
+ * In-memory cache stores share one container, so they stand in for the shared redis of two nodes.
+ */
+class TwoTierCacheStoreTest {
+
+    InMemoryCacheStore sharedCacheStore;
+
+    InMemoryCacheInvalidationBus invalidationBus;
+
+    TwoTierCacheStore node1;
+
+    TwoTierCacheStore node2;
+
+    @BeforeEach
+    void setUp() {
+        sharedCacheStore = new InMemoryCacheStore();
+        invalidationBus = new InMemoryCacheInvalidationBus();
+        node1 = new TwoTierCacheStore(new InMemoryCacheStore(), invalidationBus, 100, 60 * 1000);
+        node2 = new TwoTierCacheStore(new InMemoryCacheStore(), invalidationBus, 100, 60 * 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sharedCacheStore.preDestroy();
+    }
+
+    @Test
+    void readFromLocalCacheTest() {
+        String key = "test_two_tier_key";
+
+        node1.put(key, "value1");
+        assertEquals(Optional.of("value1"), node2.get(key));
+
+        // Write to the shared cache store directly, no invalidation message is published
+        sharedCacheStore.put(key, "value2");
+
+        assertEquals(Optional.of("value1"), node2.get(key));
+    }
+
+    @Test
+    void invalidatePeerLocalCacheTest() {
+        String key = "test_two_tier_key";
+
+        node1.put(key, "value1");
+        assertEquals(Optional.of("value1"), node2.get(key));
+
+        node1.put(key, "value2");
+        assertEquals(Optional.of("value2"), node2.get(key));
+
+        node1.delete(key);
+        assertFalse(node2.get(key).isPresent());
+    }
+
+    @Test
+    void localCopyExpiresTest() throws InterruptedException {
+        String key = "test_two_tier_key";
+        TwoTierCacheStore shortLivedNode = new TwoTierCacheStore(new InMemoryCacheStore(), new InMemoryCacheInvalidationBus(), 100, 100);
+
+        node1.put(key, "value1");
+        assertEquals(Optional.of("value1"), shortLivedNode.get(key));
+
+        sharedCacheStore.put(key, "value2");
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertEquals(Optional.of("value2"), shortLivedNode.get(key));
+    }
+
+    @Test
+    void putIfAbsentTest() {
+        String key = "test_two_tier_lock";
+
+        assertTrue(node1.putIfAbsent(key, "locked", 5, TimeUnit.SECONDS));
+        assertFalse(node2.putIfAbsent(key, "locked", 5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void closeSharedCacheStoreTest() {
+        AtomicBoolean closed = new AtomicBoolean();
+        InMemoryCacheStore closingCacheStore = new InMemoryCacheStore() {
+            @Override
+            void close() {
+                closed.set(true);
+            }
+        };
+
+        new TwoTierCacheStore(closingCacheStore, invalidationBus, 100, 60 * 1000).preDestroy();
+
+        assertTrue(closed.get());
+        closingCacheStore.preDestroy();
+    }
+}
@@ -0,0 +1,81 @@
+package run.halo.app.controller.content;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
+import run.halo.app.model.support.CachedFeed;
+import run.halo.app.service.FeedService;
+import run.halo.app.service.PostService;
+import run.halo.app.service.SitemapService;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Content feed controller test.
+ */
+class ContentFeedControllerTest {
+
+    static final String FEED_CONTENT = "<rss></rss>";
+
+    static final long LAST_MODIFIED = 1590000000000L;
+
+    MockMvc mvc;
+
+    CachedFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = CachedFeed.parse(CachedFeed.format(FEED_CONTENT, LAST_MODIFIED)).orElseThrow(IllegalStateException::new);
+
+        FeedService feedService = Mockito.mock(FeedService.class);
+        Mockito.when(feedService.getRss(null)).thenReturn(feed);
+        Mockito.when(feedService.getAtom("default")).thenReturn(feed);
+
+        mvc = MockMvcBuilders.standaloneSetup(new ContentFeedController(Mockito.mock(PostService.class),
+            feedService,
+            Mockito.mock(SitemapService.class),
+            Mockito.mock(FreeMarkerConfigurer.class)))
+            .build();
+    }
+
+    @Test
+    void parseTest() {
+        Assertions.assertEquals(FEED_CONTENT, feed.getContent());
+        Assertions.assertEquals(LAST_MODIFIED, feed.getLastModified());
+        Assertions.assertFalse(CachedFeed.parse("{\"content\":\"<rss></rss>\"}").isPresent());
+    }
+
+    @Test
+    void feedTest() throws Exception {
+        mvc.perform(get("/feed.xml"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + feed.getEntityTag() + "\""))
+            .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED))
+            .andExpect(content().string(FEED_CONTENT));
+    }
+
+    @Test
+    void notModifiedTest() throws Exception {
+        mvc.perform(get("/feed.xml").header(HttpHeaders.IF_NONE_MATCH, "\"" + feed.getEntityTag() + "\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        mvc.perform(get("/atom/categories/default").header(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void modifiedTest() throws Exception {
+        mvc.perform(get("/feed.xml").header(HttpHeaders.IF_NONE_MATCH, "\"outdated\""))
+            .andExpect(status().isOk())
+            .andExpect(content().string(FEED_CONTENT));
+    }
+}
@@ -0,0 +1,144 @@
+package run.halo.app.filter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import run.halo.app.cache.CacheRegion;
+import run.halo.app.cache.InMemoryCacheStore;
+import run.halo.app.config.properties.HaloProperties;
+import run.halo.app.service.ThemeService;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static run.halo.app.filter.PageCacheFilter.CACHE_STATUS_HEADER_NAME;
+
+/**
+ * Page cache filter test.
+ */
+class PageCacheFilterTest {
+
+    static final String PAGE_CONTENT = "<html><body>页面</body></html>";
+
+    InMemoryCacheStore cacheStore;
+
+    PageCacheFilter pageCacheFilter;
+
+    AtomicInteger renderCount;
+
+    @BeforeEach
+    void setUp() {
+        HaloProperties haloProperties = new HaloProperties();
+        haloProperties.setPageCacheEnabled(true);
+
+        ThemeService themeService = mock(ThemeService.class);
+        given(themeService.getActivatedThemeId()).willReturn("page-cache-test-theme");
+
+        cacheStore = new InMemoryCacheStore();
+        pageCacheFilter = new PageCacheFilter(haloProperties, cacheStore, themeService);
+        renderCount = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheStore.clearRegion(CacheRegion.PAGE);
+        cacheStore.preDestroy();
+    }
+
+    @Test
+    void missAndHitTest() throws Exception {
+        MockHttpServletResponse response = perform(request("/archives"));
+        assertEquals("MISS", response.getHeader(CACHE_STATUS_HEADER_NAME));
+        assertEquals(PAGE_CONTENT, response.getContentAsString());
+
+        response = perform(request("/archives"));
+        assertEquals("HIT", response.getHeader(CACHE_STATUS_HEADER_NAME));
+        assertEquals("text/html;charset=UTF-8", response.getContentType());
+        assertEquals(PAGE_CONTENT, response.getContentAsString());
+        assertEquals(1, renderCount.get());
+    }
+
+    @Test
+    void sortedParametersTest() throws Exception {
+        MockHttpServletRequest request = request("/search");
+        request.addParameter("keyword", "halo");
+        request.addParameter("page", "2");
+        assertEquals("MISS", perform(request).getHeader(CACHE_STATUS_HEADER_NAME));
+
+        request = request("/search");
+        request.addParameter("page", "2");
+        request.addParameter("keyword", "halo");
+        assertEquals("HIT", perform(request).getHeader(CACHE_STATUS_HEADER_NAME));
+
+        // The parameters are encoded, so the values can't be mixed up with the other parameters
+        request = request("/search");
+        request.addParameter("keyword", "halo&page=2");
+        assertEquals("MISS", perform(request).getHeader(CACHE_STATUS_HEADER_NAME));
+        assertEquals(2, renderCount.get());
+    }
+
+    @Test
+    void bypassTest() throws Exception {
+        MockHttpServletRequest request = request("/archives");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer token");
+        assertBypassed(request);
+
+        request = request("/archives");
+        request.addParameter("utm_source", "feed");
+        assertBypassed(request);
+
+        request = request("/archives");
+        request.setMethod("POST");
+        assertBypassed(request);
+
+        assertBypassed(request("/api/content/posts"));
+        assertBypassed(request("/admin/index.html"));
+        assertEquals(5, renderCount.get());
+    }
+
+    @Test
+    void invalidationTest() throws Exception {
+        assertEquals("MISS", perform(request("/archives")).getHeader(CACHE_STATUS_HEADER_NAME));
+        assertEquals("HIT", perform(request("/archives")).getHeader(CACHE_STATUS_HEADER_NAME));
+
+        cacheStore.clearRegion(CacheRegion.PAGE);
+
+        assertEquals("MISS", perform(request("/archives")).getHeader(CACHE_STATUS_HEADER_NAME));
+        assertEquals(2, renderCount.get());
+    }
+
+    private void assertBypassed(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = perform(request);
+        assertNull(response.getHeader(CACHE_STATUS_HEADER_NAME));
+        assertEquals(PAGE_CONTENT, response.getContentAsString());
+    }
+
+    private MockHttpServletRequest request(String requestUri) {
+        return new MockHttpServletRequest("GET", requestUri);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        pageCacheFilter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+                renderCount.incrementAndGet();
+                resp.setContentType("text/html;charset=UTF-8");
+                resp.getWriter().write(PAGE_CONTENT);
+            }
+        }));
+        return response;
+    }
+}
@@ -0,0 +1,47 @@
+package run.halo.app.model.properties;
+
+import org.junit.jupiter.api.Test;
+import run.halo.app.model.enums.PostPermalinkType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OptionSnapshotTest.
+ */
+class OptionSnapshotTest {
+
+    @Test
+    void typedGettersTest() {
+        Map<String, Object> options = new HashMap<>();
+        options.put(PostProperties.INDEX_PAGE_SIZE.getValue(), 15);
+        options.put(PostProperties.RSS_PAGE_SIZE.getValue(), "not a number");
+        options.put(OtherProperties.GLOBAL_ABSOLUTE_PATH_ENABLED.getValue(), false);
+        options.put(PermalinkProperties.POST_PERMALINK_TYPE.getValue(), "date");
+        options.put(BlogProperties.BLOG_URL.getValue(), "https://halo.run/");
+
+        OptionSnapshot snapshot = new OptionSnapshot(options);
+
+        assertTrue(snapshot.isCreatedFrom(options));
+        assertEquals(15, snapshot.getIntOrDefault(PostProperties.INDEX_PAGE_SIZE, 10));
+        assertEquals(20, snapshot.getIntOrDefault(PostProperties.RSS_PAGE_SIZE, 20));
+        assertEquals(10, snapshot.getIntOrDefault(PostProperties.ARCHIVES_PAGE_SIZE, 10));
+        assertFalse(snapshot.getBooleanOrDefault(OtherProperties.GLOBAL_ABSOLUTE_PATH_ENABLED, true));
+        assertEquals(PostPermalinkType.DATE,
+            snapshot.getEnumOrDefault(PermalinkProperties.POST_PERMALINK_TYPE, PostPermalinkType.class, PostPermalinkType.DEFAULT));
+        assertEquals("https://halo.run", snapshot.getBlogUrl());
+        assertEquals("", snapshot.getStringOrDefault(BlogProperties.BLOG_TITLE, ""));
+    }
+
+    @Test
+    void unindexedPropertyTest() {
+        Map<String, Object> options = new HashMap<>();
+        options.put(SmmsProperties.SMMS_API_SECRET_TOKEN.getValue(), "token");
+
+        OptionSnapshot snapshot = new OptionSnapshot(options);
+
+        assertEquals("token", snapshot.getString(SmmsProperties.SMMS_API_SECRET_TOKEN));
+    }
+}
@@ -0,0 +1,99 @@
+package run.halo.app.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import run.halo.app.model.entity.Post;
+import run.halo.app.model.enums.PostStatus;
+import run.halo.app.model.vo.AdjacentPostVO;
+import run.halo.app.repository.PostRepository;
+import run.halo.app.service.PostService;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Keyset lookup of the adjacent posts, in the default order: top priority, create time and id descending.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class AdjacentPostsTest {
+
+    @Autowired
+    PostService postService;
+
+    @Autowired
+    PostRepository postRepository;
+
+    Post topped;
+
+    Post latest;
+
+    Post tiedFormer;
+
+    Post tiedLatter;
+
+    Post oldest;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+
+        topped = createPost("topped", 1, "2020-01-01", PostStatus.PUBLISHED);
+        latest = createPost("latest", 0, "2020-01-03", PostStatus.PUBLISHED);
+        // Tied on the top priority and create time, ordered by id
+        tiedFormer = createPost("tied-former", 0, "2020-01-02", PostStatus.PUBLISHED);
+        tiedLatter = createPost("tied-latter", 0, "2020-01-02", PostStatus.PUBLISHED);
+        createPost("draft", 0, "2020-01-02", PostStatus.DRAFT);
+        oldest = createPost("oldest", 0, "2020-01-01", PostStatus.PUBLISHED);
+    }
+
+    @Test
+    void firstPostTest() {
+        AdjacentPostVO adjacentPosts = postService.getAdjacentPosts(topped);
+
+        assertFalse(adjacentPosts.getOptionalPrevPost().isPresent());
+        assertEquals(latest.getId(), adjacentPosts.getNextPost().getId());
+    }
+
+    @Test
+    void tiedPostsTest() {
+        AdjacentPostVO adjacentPosts = postService.getAdjacentPosts(latest);
+        assertEquals(topped.getId(), adjacentPosts.getPrevPost().getId());
+        assertEquals(tiedLatter.getId(), adjacentPosts.getNextPost().getId());
+
+        adjacentPosts = postService.getAdjacentPosts(tiedLatter);
+        assertEquals(latest.getId(), adjacentPosts.getPrevPost().getId());
+        assertEquals(tiedFormer.getId(), adjacentPosts.getNextPost().getId());
+
+        adjacentPosts = postService.getAdjacentPosts(tiedFormer);
+        assertEquals(tiedLatter.getId(), adjacentPosts.getPrevPost().getId());
+        assertEquals(oldest.getId(), adjacentPosts.getNextPost().getId());
+    }
+
+    @Test
+    void lastPostTest() {
+        AdjacentPostVO adjacentPosts = postService.getAdjacentPosts(oldest);
+
+        assertEquals(tiedFormer.getId(), adjacentPosts.getPrevPost().getId());
+        assertFalse(adjacentPosts.getOptionalNextPost().isPresent());
+    }
+
+    private Post createPost(String slug, int topPriority, String createDate, PostStatus status) {
+        Post post = new Post();
+        post.setTitle(slug);
+        post.setSlug(slug);
+        post.setTopPriority(topPriority);
+        post.setStatus(status);
+        post.setCreateTime(Date.from(LocalDate.parse(createDate).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        return postRepository.saveAndFlush(post);
+    }
+}
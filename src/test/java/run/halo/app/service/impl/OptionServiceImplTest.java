@@ -7,19 +7,25 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import run.halo.app.cache.AbstractStringCacheStore;
+import run.halo.app.event.options.OptionUpdatedEvent;
 import run.halo.app.model.entity.Option;
+import run.halo.app.model.properties.BlogProperties;
 import run.halo.app.model.properties.QiniuOssProperties;
 import run.halo.app.repository.OptionRepository;
 import run.halo.app.service.OptionService;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
 
 /**
  * OptionService test.
@@ -78,6 +84,24 @@ class OptionServiceImplTest {
         getQiniuZoneTest("na0", Zone.zoneNa0());
     }
 
+    @Test
+    void dropSnapshotLoadedBeforeUpdateTest() {
+        Map<String, Object> oldOptions = Collections.singletonMap(BlogProperties.BLOG_TITLE.getValue(), "old");
+        Map<String, Object> newOptions = Collections.singletonMap(BlogProperties.BLOG_TITLE.getValue(), "new");
+        given(cacheStore.get(eq(OptionService.OPTIONS_KEY), eq(Map.class), any()))
+            .willAnswer(invocation -> {
+                // The options are updated while the snapshot is being built
+                optionService.onOptionUpdated(new OptionUpdatedEvent(this));
+                return oldOptions;
+            })
+            .willReturn(newOptions);
+
+        assertEquals("old", optionService.getBlogTitle());
+        assertEquals("new", optionService.getBlogTitle());
+        assertEquals("new", optionService.getBlogTitle());
+        then(cacheStore).should(times(2)).get(eq(OptionService.OPTIONS_KEY), eq(Map.class), any());
+    }
+
     void getQiniuZoneTest(String region, Zone actualZone) {
         getQiniuZoneTest(actualZone, new Option("", region));
     }
@@ -89,13 +113,13 @@ class OptionServiceImplTest {
 //        given(optionRepository.findByKey(zoneProperty.getValue())).willReturn(Optional.ofNullable(option));
         Map<String, Object> optionMap = new HashMap<>(1);
         optionMap.put(zoneProperty.getValue(), Optional.ofNullable(option).map(Option::getValue).orElse(null));
-        given(cacheStore.getAny(OptionService.OPTIONS_KEY, Map.class)).willReturn(Optional.of(optionMap));
+        given(cacheStore.get(eq(OptionService.OPTIONS_KEY), eq(Map.class), any())).willReturn(optionMap);
 
         // When
         Zone zone = optionService.getQnYunZone();
 
         // Then
-        then(cacheStore).should().getAny(OptionService.OPTIONS_KEY, Map.class);
+        then(cacheStore).should().get(eq(OptionService.OPTIONS_KEY), eq(Map.class), any());
 
         assertNotNull(zone);
         assertEquals(actualZone.getRegion(), zone.getRegion());
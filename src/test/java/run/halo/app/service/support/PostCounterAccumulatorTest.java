@@ -0,0 +1,113 @@
+package run.halo.app.service.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import run.halo.app.config.properties.HaloProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+/**
+ * Post counter accumulator test.
+ */
+class PostCounterAccumulatorTest {
+
+    JdbcTemplate jdbcTemplate;
+
+    PlatformTransactionManager transactionManager;
+
+    PostCounterAccumulator accumulator;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        HaloProperties haloProperties = new HaloProperties();
+        haloProperties.setPostCounterFlushInterval(Duration.ofHours(1));
+        accumulator = new PostCounterAccumulator(jdbcTemplate, transactionManager, haloProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accumulator.preDestroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushInBatchTest() {
+        given(jdbcTemplate.batchUpdate(anyString(), anyList())).willReturn(new int[] {1, 1});
+
+        accumulator.increaseVisit(1);
+        accumulator.increaseVisit(1);
+        accumulator.increaseLike(1);
+        accumulator.increaseVisit(2);
+
+        assertEquals(2, accumulator.flush());
+
+        ArgumentCaptor<List<Object[]>> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), argsCaptor.capture());
+        List<Object[]> args = argsCaptor.getValue();
+        assertEquals(2, args.size());
+        for (Object[] arg : args) {
+            if (Integer.valueOf(1).equals(arg[2])) {
+                assertArrayEquals(new Object[] {2L, 1L, 1}, arg);
+            } else {
+                assertArrayEquals(new Object[] {1L, 0L, 2}, arg);
+            }
+        }
+
+        // Nothing to flush any more
+        assertEquals(0, accumulator.flush());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void keepDeltasOnFailureTest() {
+        given(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .willThrow(new IllegalStateException("Database is down"))
+            .willReturn(new int[] {1});
+
+        accumulator.increaseVisit(1);
+
+        assertThrows(IllegalStateException.class, () -> accumulator.flush());
+        // Rows written before the failure are not committed
+        verify(transactionManager).rollback(any());
+
+        accumulator.increaseVisit(1);
+        assertEquals(1, accumulator.flush());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void dropMissingPostTest() {
+        given(jdbcTemplate.batchUpdate(anyString(), anyList())).willReturn(new int[] {0});
+
+        accumulator.increaseVisit(404);
+        assertEquals(1, accumulator.flush());
+
+        // Counters of the post not updated are removed
+        assertEquals(0, accumulator.flush());
+        verify(jdbcTemplate, times(1)).batchUpdate(contains("status in (0, 3)"), anyList());
+    }
+
+    @Test
+    void drainOnDestroyTest() {
+        given(jdbcTemplate.batchUpdate(anyString(), anyList())).willReturn(new int[] {1});
+
+        accumulator.increaseLike(3);
+        accumulator.preDestroy();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+}
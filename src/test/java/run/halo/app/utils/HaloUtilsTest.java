@@ -151,4 +151,14 @@ class HaloUtilsTest {
 
         assertEquals("https://cn.gravatar.com/avatar?d=mm", HaloUtils.normalizeUrl("https://cn.gravatar.com/avatar?d=mm"));
     }
+
+    @Test
+    void countWords() {
+        assertEquals(0, HaloUtils.countWords(null));
+        assertEquals(0, HaloUtils.countWords(" \n "));
+
+        assertEquals(4, HaloUtils.countWords("Don't send e-mail twice."));
+        assertEquals(4, HaloUtils.countWords("你好，世界"));
+        assertEquals(7, HaloUtils.countWords("Halo 是一款 blog 系统"));
+    }
 }
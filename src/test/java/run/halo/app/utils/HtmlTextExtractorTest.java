@@ -0,0 +1,48 @@
+package run.halo.app.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Html text extractor test.
+ */
+class HtmlTextExtractorTest {
+
+    @Test
+    void extractText() {
+        assertEquals("", HtmlTextExtractor.extractText(null, 10));
+        assertEquals("Hello world second & third…",
+            HtmlTextExtractor.extractText("<p>Hello&nbsp;<b>world</b></p>\n<p>second &amp; third&hellip;</p>", 100));
+        assertEquals("foobar baz", HtmlTextExtractor.extractText("foo<strong>bar</strong><br>baz", 100));
+        assertEquals("text", HtmlTextExtractor.extractText(
+            "<style>p{color:red}</style><script>if (a<b) x();</script><!-- <p>comment</p> -->text", 100));
+        assertEquals("a < b &unknown; 中文", HtmlTextExtractor.extractText("a\u0001 < b &unknown; &#x4E2D;&#25991;", 100));
+        assertEquals("alt", HtmlTextExtractor.extractText("<img src=\"a>b\" alt='x'>alt", 100));
+    }
+
+    @Test
+    void extractTextWithMaxLength() {
+        assertEquals("", HtmlTextExtractor.extractText("<p>abcdef ghijk</p>", 0));
+        assertEquals("abcdef", HtmlTextExtractor.extractText("<p>abcdef ghijk</p>", 6));
+        assertEquals("abcdef", HtmlTextExtractor.extractText("<p>abcdef ghijk</p>", 7));
+        assertEquals("abcdef g", HtmlTextExtractor.extractText("<p>abcdef ghijk</p>", 8));
+    }
+
+    @Test
+    void extractEscapedText() {
+        assertEquals("&lt;script&gt; &quot;x&quot; &#39;y&#39; a &amp; b",
+            HtmlTextExtractor.extractEscapedText("<pre><code>&lt;script&gt; &quot;x&quot; 'y' a & b</code></pre>", 100));
+        assertEquals("&lt;a", HtmlTextExtractor.extractEscapedText("&lt;abc", 2));
+        assertEquals("I &hearts; it&para;", HtmlTextExtractor.extractEscapedText("<p>I &hearts; it&para;</p>", 100));
+        assertEquals("I &hearts;", HtmlTextExtractor.extractEscapedText("I &hearts; it", 3));
+    }
+
+    @Test
+    void stripInvalidXmlChars() {
+        String text = "valid\ttext\r\n";
+        assertSame(text, HtmlTextExtractor.stripInvalidXmlChars(text));
+        assertEquals("bad", HtmlTextExtractor.stripInvalidXmlChars("b\u0000a\u0008d\u007F"));
+    }
+}
@@ -0,0 +1,43 @@
+package run.halo.app.utils;
+
+import org.junit.jupiter.api.Test;
+import run.halo.app.core.markdown.TemplateEmbedProvider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Markdown utils test.
+ */
+class MarkdownUtilsTest {
+
+    @Test
+    void renderEmbeds() {
+        String html = MarkdownUtils.renderHtml("Listen [music:28391863] and watch [bilibili:170001,640,360]");
+
+        assertTrue(html.contains("src=\"//music.163.com/outchain/player?type=2&id=28391863&auto=1&height=66\""));
+        assertTrue(html.contains("<iframe height=360 width=640 src=\"//player.bilibili.com/player.html?aid=170001\""));
+        assertFalse(html.contains("[music:"));
+    }
+
+    @Test
+    void keepInvalidAndCodeShortcodes() {
+        assertEquals("<p>[music:abc]</p>\n", MarkdownUtils.renderHtml("[music:abc]"));
+        assertEquals("<p><code>[music:28391863]</code></p>\n", MarkdownUtils.renderHtml("`[music:28391863]`"));
+        assertEquals("<p><a href=\"https://halo.run\">unknown:1</a></p>\n", MarkdownUtils.renderHtml("[unknown:1](https://halo.run)"));
+    }
+
+    @Test
+    void registerEmbedProvider() {
+        MarkdownUtils.registerEmbedProvider(new TemplateEmbedProvider("gist", "(\\w+)", "<script src=\"https://gist.github.com/$1.js\"></script>"));
+        try {
+            assertEquals("<p><script src=\"https://gist.github.com/abc123.js\"></script></p>\n", MarkdownUtils.renderHtml("[gist:abc123]"));
+        } finally {
+            // The providers are global
+            MarkdownUtils.unregisterEmbedProvider("gist");
+        }
+
+        assertEquals("<p>[gist:abc123]</p>\n", MarkdownUtils.renderHtml("[gist:abc123]"));
+    }
+}